@@ -0,0 +1,135 @@
+package com.reactivespring.common.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Rejects new requests with 503 and Retry-After while the event loops lag or too many requests are in flight, so an
+ * overloaded instance sheds the excess up front instead of letting every queued request time out. Exempt paths, such
+ * as health checks, are always admitted. Stream paths are checked on subscribe but not counted as in flight, and a
+ * stream that was admitted is never cut off. Each service lists its own stream paths in {@code admission.streamPaths}.
+ */
+@Component
+public class AdmissionControlWebFilter implements WebFilter, Ordered {
+    private final EventLoopLagMonitor eventLoopLagMonitor;
+
+    private final boolean enabled;
+
+    private final int maxInFlight;
+
+    private final Duration maxEventLoopLag;
+
+    private final String retryAfterSeconds;
+
+    private final List<PathPattern> exemptPaths;
+
+    private final List<PathPattern> streamPaths;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final Counter rejectedInFlight;
+
+    private final Counter rejectedEventLoopLag;
+
+    public AdmissionControlWebFilter(EventLoopLagMonitor eventLoopLagMonitor,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${admission.enabled:true}") boolean enabled,
+                                     @Value("${admission.maxInFlight:1000}") int maxInFlight,
+                                     @Value("${admission.maxEventLoopLag:PT0.1S}") Duration maxEventLoopLag,
+                                     @Value("${admission.retryAfterSeconds:1}") int retryAfterSeconds,
+                                     @Value("${admission.exemptPaths:/actuator/**}") List<String> exemptPaths,
+                                     @Value("${admission.streamPaths:}") List<String> streamPaths) {
+        this.eventLoopLagMonitor = eventLoopLagMonitor;
+        this.enabled = enabled;
+        this.maxInFlight = maxInFlight;
+        this.maxEventLoopLag = maxEventLoopLag;
+        this.retryAfterSeconds = Integer.toString(retryAfterSeconds);
+        this.exemptPaths = parse(exemptPaths);
+        this.streamPaths = parse(streamPaths);
+
+        Gauge.builder("admission.inFlight", inFlight, AtomicInteger::get)
+            .description("Admitted requests that have not completed, streams excluded")
+            .register(meterRegistry);
+        rejectedInFlight = rejected(meterRegistry, "inFlight");
+        rejectedEventLoopLag = rejected(meterRegistry, "eventLoopLag");
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        final PathContainer path = exchange.getRequest().getPath().pathWithinApplication();
+
+        if (!enabled || matches(exemptPaths, path)) {
+            return chain.filter(exchange);
+        }
+
+        if (eventLoopLagMonitor.lag().compareTo(maxEventLoopLag) > 0) {
+            rejectedEventLoopLag.increment();
+            return reject(exchange);
+        }
+
+        if (matches(streamPaths, path)) {
+            return chain.filter(exchange);
+        }
+
+        if (inFlight.incrementAndGet() > maxInFlight) {
+            inFlight.decrementAndGet();
+            rejectedInFlight.increment();
+            return reject(exchange);
+        }
+
+        return chain.filter(exchange)
+            .doFinally(signal -> inFlight.decrementAndGet());
+    }
+
+    /**
+     * Runs ahead of the other filters so a rejected request costs as little as possible.
+     */
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    private Mono<Void> reject(ServerWebExchange exchange) {
+        exchange.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+
+        return exchange.getResponse().setComplete();
+    }
+
+    private static boolean matches(List<PathPattern> patterns, PathContainer path) {
+        return patterns.stream().anyMatch(pattern -> pattern.matches(path));
+    }
+
+    private static List<PathPattern> parse(List<String> patterns) {
+        return patterns.stream()
+            .map(String::trim)
+            .filter(pattern -> !pattern.isEmpty())
+            .map(PathPatternParser.defaultInstance::parse)
+            .collect(Collectors.toList());
+    }
+
+    private static Counter rejected(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("admission.rejected")
+            .tag("reason", reason)
+            .description("Requests rejected with 503 before reaching a handler")
+            .register(meterRegistry);
+    }
+}
@@ -0,0 +1,251 @@
+package com.reactivespring.common.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+@Slf4j
+@Component
+public class CompressionWebFilter implements WebFilter {
+    private static final String GZIP = "gzip";
+    private static final String DEFLATE = "deflate";
+
+    private final boolean enabled;
+    private final int level;
+    private final int minResponseSize;
+    private final List<MediaType> mimeTypes;
+
+    public CompressionWebFilter(@Value("${compression.enabled:true}") boolean enabled,
+                                @Value("${compression.level:6}") int level,
+                                @Value("${compression.minResponseSize:2048}") int minResponseSize,
+                                @Value("${compression.mimeTypes:application/json,application/x-ndjson,text/event-stream}")
+                                    List<MediaType> mimeTypes) {
+        this.enabled = enabled;
+        this.level = level;
+        this.minResponseSize = minResponseSize;
+        this.mimeTypes = mimeTypes;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (!enabled) {
+            return chain.filter(exchange);
+        }
+
+        final String encoding = negotiate(exchange.getRequest().getHeaders().get(HttpHeaders.ACCEPT_ENCODING));
+
+        if (encoding == null) {
+            return chain.filter(exchange);
+        }
+
+        return chain.filter(exchange.mutate()
+            .response(new CompressingResponse(exchange.getResponse(), encoding))
+            .build());
+    }
+
+    private String negotiate(List<String> acceptEncodings) {
+        if (acceptEncodings == null) {
+            return null;
+        }
+
+        final List<String> accepted = acceptEncodings.stream()
+            .flatMap(header -> Arrays.stream(header.split(",")))
+            .map(String::trim)
+            .filter(token -> !token.replace(" ", "").matches(".*;q=0(\\.0*)?$"))
+            .map(token -> token.split(";")[0].trim().toLowerCase())
+            .collect(Collectors.toList());
+
+        if (accepted.contains(GZIP)) {
+            return GZIP;
+        }
+
+        if (accepted.contains(DEFLATE)) {
+            return DEFLATE;
+        }
+
+        return null;
+    }
+
+    private class CompressingResponse extends ServerHttpResponseDecorator {
+        private final String encoding;
+
+        CompressingResponse(ServerHttpResponse delegate, String encoding) {
+            super(delegate);
+            this.encoding = encoding;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            if (!isCompressible()) {
+                return super.writeWith(body);
+            }
+
+            if (body instanceof Mono) {
+                return Mono.from(body)
+                    .flatMap(buffer -> {
+                        if (buffer.readableByteCount() < minResponseSize) {
+                            return super.writeWith(Mono.just(buffer));
+                        }
+
+                        final Compressor compressor = startCompression();
+                        try {
+                            final byte[] compressed = compressor.write(buffer, false);
+                            return super.writeWith(Mono.just(wrap(concat(compressed, compressor.finish()))));
+                        } finally {
+                            compressor.close();
+                        }
+                    })
+                    .switchIfEmpty(Mono.defer(() -> super.writeWith(Mono.empty())));
+            }
+
+            final Compressor compressor = startCompression();
+            return super.writeWith(
+                Flux.<DataBuffer>from(body)
+                    .map(buffer -> wrap(compressor.write(buffer, false)))
+                    .concatWith(Mono.fromCallable(() -> wrap(compressor.finish())))
+                    .doFinally(signal -> compressor.close())
+            );
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            if (!isCompressible()) {
+                return super.writeAndFlushWith(body);
+            }
+
+            final Compressor compressor = startCompression();
+            return super.writeAndFlushWith(
+                Flux.<Publisher<? extends DataBuffer>>from(body)
+                    .<Publisher<? extends DataBuffer>>map(chunk ->
+                        Flux.<DataBuffer>from(chunk).map(buffer -> wrap(compressor.write(buffer, true)))
+                    )
+                    .concatWith(Mono.fromCallable(() -> Mono.fromCallable(() -> wrap(compressor.finish()))))
+                    .doFinally(signal -> compressor.close())
+            );
+        }
+
+        private boolean isCompressible() {
+            final HttpHeaders headers = getHeaders();
+            final MediaType contentType = headers.getContentType();
+            final HttpStatus status = getStatusCode();
+
+            return !headers.containsKey(HttpHeaders.CONTENT_ENCODING)
+                && status != HttpStatus.NO_CONTENT
+                && status != HttpStatus.NOT_MODIFIED
+                && contentType != null
+                && mimeTypes.stream().anyMatch(mimeType -> mimeType.isCompatibleWith(contentType));
+        }
+
+        private Compressor startCompression() {
+            final HttpHeaders headers = getHeaders();
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+            headers.set(HttpHeaders.CONTENT_ENCODING, encoding);
+            headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+            return new Compressor(encoding, level);
+        }
+
+        private DataBuffer wrap(byte[] bytes) {
+            return bufferFactory().wrap(bytes);
+        }
+
+        private byte[] concat(byte[] first, byte[] second) {
+            final byte[] result = Arrays.copyOf(first, first.length + second.length);
+            System.arraycopy(second, 0, result, first.length, second.length);
+            return result;
+        }
+    }
+
+    private static class Compressor {
+        private final ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        private final Deflater deflater;
+        private final DeflaterOutputStream out;
+
+        Compressor(String encoding, int level) {
+            try {
+                if (GZIP.equals(encoding)) {
+                    final GZIPOutputStream gzip = new GZIPOutputStream(sink, true) {
+                        {
+                            def.setLevel(level);
+                        }
+                    };
+                    deflater = null;
+                    out = gzip;
+                } else {
+                    deflater = new Deflater(level);
+                    out = new DeflaterOutputStream(sink, deflater, true);
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        byte[] write(DataBuffer buffer, boolean flush) {
+            try {
+                final byte[] bytes = new byte[buffer.readableByteCount()];
+                buffer.read(bytes);
+                out.write(bytes);
+
+                if (flush) {
+                    out.flush();
+                }
+
+                return drain();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            } finally {
+                DataBufferUtils.release(buffer);
+            }
+        }
+
+        byte[] finish() {
+            try {
+                out.finish();
+                return drain();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        void close() {
+            try {
+                out.close();
+            } catch (IOException ex) {
+                log.warn("Could not close compression stream", ex);
+            } finally {
+                if (deflater != null) {
+                    deflater.end();
+                }
+            }
+        }
+
+        private byte[] drain() {
+            final byte[] bytes = sink.toByteArray();
+            sink.reset();
+            return bytes;
+        }
+    }
+}
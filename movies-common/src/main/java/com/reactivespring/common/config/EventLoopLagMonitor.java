@@ -0,0 +1,90 @@
+package com.reactivespring.common.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.netty.util.concurrent.EventExecutor;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.http.HttpResources;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures how long a task waits before the server event loops run it. Each probe submits a no-op task to every
+ * loop; a probe that has not run yet counts with its age so far, so a stalled loop reports a growing lag.
+ */
+@Component
+public class EventLoopLagMonitor implements DisposableBean {
+    private final Map<EventExecutor, Probe> probes = new ConcurrentHashMap<>();
+
+    private final Scheduler scheduler;
+
+    private final Disposable probing;
+
+    public EventLoopLagMonitor(MeterRegistry meterRegistry,
+                               @Value("${admission.enabled:true}") boolean enabled,
+                               @Value("${admission.lagProbeInterval:PT0.05S}") Duration probeInterval) {
+        TimeGauge.builder("eventLoop.lag", this, TimeUnit.NANOSECONDS, monitor -> monitor.lag().toNanos())
+            .description("Longest wait of a task queued on a server event loop")
+            .register(meterRegistry);
+
+        if (!enabled) {
+            scheduler = null;
+            probing = null;
+            return;
+        }
+
+        scheduler = Schedulers.newSingle("event-loop-lag", true);
+        probing = Flux.interval(probeInterval, scheduler)
+            .subscribe(tick -> probe());
+    }
+
+    public Duration lag() {
+        final long now = System.nanoTime();
+        long lag = 0;
+
+        for (Probe probe : probes.values()) {
+            final long startedAt = probe.startedAt.get();
+            lag = Math.max(lag, startedAt != 0 ? Math.max(now - startedAt, probe.lastLag) : probe.lastLag);
+        }
+
+        return Duration.ofNanos(lag);
+    }
+
+    private void probe() {
+        for (EventExecutor executor : HttpResources.get().onServer(true)) {
+            final Probe probe = probes.computeIfAbsent(executor, ignored -> new Probe());
+            final long startedAt = System.nanoTime();
+
+            if (probe.startedAt.compareAndSet(0, startedAt)) {
+                executor.execute(() -> {
+                    probe.lastLag = System.nanoTime() - startedAt;
+                    probe.startedAt.set(0);
+                });
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (probing != null) {
+            probing.dispose();
+            scheduler.dispose();
+        }
+    }
+
+    private static class Probe {
+        private final AtomicLong startedAt = new AtomicLong();
+
+        private volatile long lastLag;
+    }
+}
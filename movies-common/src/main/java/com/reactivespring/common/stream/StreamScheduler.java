@@ -0,0 +1,63 @@
+package com.reactivespring.common.stream;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs stream fan-out and serialization on a fixed pool of threads, so bursts to many stream subscribers do not
+ * occupy the Netty event loops serving request/response traffic.
+ * <p>
+ * The task queue is unbounded: publishOn queues at most one drain task per subscriber, so the queue grows with the
+ * number of subscribers, while the elements each one falls behind by are bounded by {@link SubscriberBuffer}. A
+ * bounded queue would instead reject the drain task of whichever subscriber found it full and fail that stream.
+ */
+@Component
+public class StreamScheduler implements DisposableBean {
+    private final Scheduler scheduler;
+
+    public StreamScheduler(MeterRegistry meterRegistry,
+                           @Value("${stream.dedicatedScheduler:true}") boolean enabled,
+                           @Value("${stream.schedulerThreads:4}") int threads) {
+        if (!enabled) {
+            scheduler = Schedulers.immediate();
+            return;
+        }
+
+        final ExecutorService executor = new ThreadPoolExecutor(
+            threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), threadFactory()
+        );
+
+        scheduler = Schedulers.fromExecutorService(ExecutorServiceMetrics.monitor(meterRegistry, executor, "stream"), "stream");
+    }
+
+    public Scheduler scheduler() {
+        return scheduler;
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.dispose();
+    }
+
+    private static ThreadFactory threadFactory() {
+        final AtomicInteger count = new AtomicInteger();
+
+        return runnable -> {
+            final Thread thread = new Thread(runnable, "stream-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
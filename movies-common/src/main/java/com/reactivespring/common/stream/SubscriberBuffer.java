@@ -0,0 +1,129 @@
+package com.reactivespring.common.stream;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Exceptions;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+@Slf4j
+@Component
+public class SubscriberBuffer {
+    public enum OverflowPolicy {
+        DROP_OLDEST, KEEP_LATEST, DISCONNECT
+    }
+
+    private final MeterRegistry meterRegistry;
+
+    private final StreamScheduler streamScheduler;
+
+    private final int bufferSize;
+
+    private final OverflowPolicy overflowPolicy;
+
+    private final Map<String, Set<AtomicInteger>> subscriberLags = new ConcurrentHashMap<>();
+
+    public SubscriberBuffer(MeterRegistry meterRegistry,
+                            StreamScheduler streamScheduler,
+                            @Value("${stream.subscriberBufferSize:256}") int bufferSize,
+                            @Value("${stream.overflowPolicy:drop-oldest}") String overflowPolicy) {
+        this.meterRegistry = meterRegistry;
+        this.streamScheduler = streamScheduler;
+        this.bufferSize = bufferSize;
+        this.overflowPolicy = OverflowPolicy.valueOf(overflowPolicy.trim().toUpperCase().replace('-', '_'));
+    }
+
+    public <T> Flux<T> buffer(String stream, Flux<T> source) {
+        final String policy = overflowPolicy.name().toLowerCase().replace('_', '-');
+        final Counter dropped = Counter.builder("stream.subscriber.dropped")
+            .tag("stream", stream)
+            .tag("policy", policy)
+            .register(meterRegistry);
+        final Counter disconnected = Counter.builder("stream.subscriber.disconnected")
+            .tag("stream", stream)
+            .register(meterRegistry);
+        final DistributionSummary lagSummary = DistributionSummary.builder("stream.subscriber.lag")
+            .tag("stream", stream)
+            .register(meterRegistry);
+        final Set<AtomicInteger> lags = subscriberLags.computeIfAbsent(stream, this::registerLagGauges);
+
+        return Flux.defer(() -> {
+            final AtomicInteger lag = new AtomicInteger();
+            lags.add(lag);
+
+            final Flux<T> counted = source
+                .publishOn(streamScheduler.scheduler())
+                .doOnNext(element -> lagSummary.record(lag.incrementAndGet()));
+            final Consumer<T> onDrop = element -> {
+                lag.decrementAndGet();
+                dropped.increment();
+            };
+
+            return withOverflowPolicy(counted, lag, onDrop)
+                .doOnNext(element -> lag.decrementAndGet())
+                .doOnError(Exceptions::isOverflow, ex -> {
+                    disconnected.increment();
+                    log.warn("Disconnecting slow {} subscriber after {} buffered events", stream, bufferSize);
+                })
+                .doFinally(signal -> lags.remove(lag));
+        });
+    }
+
+    private <T> Flux<T> withOverflowPolicy(Flux<T> source, AtomicInteger lag, Consumer<T> onDrop) {
+        switch (overflowPolicy) {
+            case KEEP_LATEST:
+                return source.onBackpressureBuffer(1, onDrop, BufferOverflowStrategy.DROP_OLDEST);
+            case DISCONNECT:
+                return disconnectOnOverflow(source, lag, onDrop);
+            default:
+                return source.onBackpressureBuffer(bufferSize, onDrop, BufferOverflowStrategy.DROP_OLDEST);
+        }
+    }
+
+    private <T> Flux<T> disconnectOnOverflow(Flux<T> source, AtomicInteger lag, Consumer<T> onDrop) {
+        final Sinks.Empty<T> overflow = Sinks.empty();
+
+        final Flux<T> buffered = source
+            .doOnNext(element -> {
+                if (lag.get() > bufferSize) {
+                    overflow.tryEmitError(Exceptions.failWithOverflow());
+                }
+            })
+            .doOnComplete(overflow::tryEmitEmpty)
+            .onBackpressureBuffer(bufferSize + 1, onDrop, BufferOverflowStrategy.DROP_LATEST);
+
+        return Flux.merge(1, buffered, overflow.asMono());
+    }
+
+    private Set<AtomicInteger> registerLagGauges(String stream) {
+        final Set<AtomicInteger> lags = ConcurrentHashMap.newKeySet();
+
+        Gauge.builder("stream.subscribers", lags, Set::size)
+            .tag("stream", stream)
+            .register(meterRegistry);
+        Gauge.builder("stream.subscriber.lag.max", lags, SubscriberBuffer::maxLag)
+            .tag("stream", stream)
+            .register(meterRegistry);
+
+        return lags;
+    }
+
+    private static double maxLag(Set<AtomicInteger> lags) {
+        return lags.stream()
+            .mapToInt(AtomicInteger::get)
+            .max()
+            .orElse(0);
+    }
+}
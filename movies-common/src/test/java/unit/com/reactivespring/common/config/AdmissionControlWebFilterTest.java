@@ -0,0 +1,103 @@
+package com.reactivespring.common.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+class AdmissionControlWebFilterTest {
+    private final EventLoopLagMonitor eventLoopLagMonitor = Mockito.mock(EventLoopLagMonitor.class);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final Sinks.Empty<Void> pending = Sinks.empty();
+
+    private final WebFilterChain pendingChain = exchange -> pending.asMono();
+
+    private final WebFilterChain completingChain = exchange -> Mono.empty();
+
+    private AdmissionControlWebFilter admissionControlWebFilter;
+
+    @BeforeEach
+    void setUp() {
+        when(eventLoopLagMonitor.lag()).thenReturn(Duration.ZERO);
+        admissionControlWebFilter = new AdmissionControlWebFilter(
+            eventLoopLagMonitor, meterRegistry, true, 1, Duration.ofMillis(100), 2,
+            List.of("/actuator/**"), List.of("/api/v1/items/stream")
+        );
+    }
+
+    @Test
+    void rejectsBeyondMaxInFlightUntilARequestCompletes() {
+        final Disposable first = admissionControlWebFilter.filter(exchange("/api/v1/items"), pendingChain).subscribe();
+
+        final MockServerWebExchange rejected = exchange("/api/v1/items");
+        StepVerifier.create(admissionControlWebFilter.filter(rejected, completingChain)).verifyComplete();
+        assertRejected(rejected);
+        assertThat(meterRegistry.get("admission.rejected").tag("reason", "inFlight").counter().count()).isEqualTo(1);
+
+        pending.tryEmitEmpty();
+        first.dispose();
+
+        final MockServerWebExchange admitted = exchange("/api/v1/items");
+        StepVerifier.create(admissionControlWebFilter.filter(admitted, completingChain)).verifyComplete();
+        assertThat(admitted.getResponse().getStatusCode()).isNotEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(meterRegistry.get("admission.inFlight").gauge().value()).isZero();
+    }
+
+    @Test
+    void rejectsWhileEventLoopsLag() {
+        when(eventLoopLagMonitor.lag()).thenReturn(Duration.ofMillis(250));
+
+        final MockServerWebExchange rejected = exchange("/api/v1/items/stream");
+        StepVerifier.create(admissionControlWebFilter.filter(rejected, completingChain)).verifyComplete();
+
+        assertRejected(rejected);
+        assertThat(meterRegistry.get("admission.rejected").tag("reason", "eventLoopLag").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void admitsExemptPathsUnderLoad() {
+        when(eventLoopLagMonitor.lag()).thenReturn(Duration.ofSeconds(1));
+
+        final MockServerWebExchange health = exchange("/actuator/health");
+        StepVerifier.create(admissionControlWebFilter.filter(health, completingChain)).verifyComplete();
+
+        assertThat(health.getResponse().getStatusCode()).isNotEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @Test
+    void openStreamsDoNotCountAsInFlight() {
+        final Disposable stream = admissionControlWebFilter.filter(exchange("/api/v1/items/stream"), pendingChain).subscribe();
+
+        final MockServerWebExchange admitted = exchange("/api/v1/items");
+        StepVerifier.create(admissionControlWebFilter.filter(admitted, completingChain)).verifyComplete();
+
+        assertThat(admitted.getResponse().getStatusCode()).isNotEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        stream.dispose();
+    }
+
+    private static MockServerWebExchange exchange(String path) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get(path));
+    }
+
+    private static void assertRejected(MockServerWebExchange exchange) {
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(exchange.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+    }
+}
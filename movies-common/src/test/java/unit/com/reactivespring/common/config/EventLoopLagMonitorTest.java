@@ -0,0 +1,46 @@
+package com.reactivespring.common.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.netty.http.HttpResources;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventLoopLagMonitorTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final EventLoopLagMonitor eventLoopLagMonitor = new EventLoopLagMonitor(meterRegistry, true, Duration.ofMillis(10));
+
+    @AfterEach
+    void tearDown() {
+        eventLoopLagMonitor.destroy();
+    }
+
+    @Test
+    void reportsAStalledEventLoop() throws InterruptedException {
+        final CountDownLatch release = new CountDownLatch(1);
+        HttpResources.get().onServer(true).next().execute(() -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        try {
+            Thread.sleep(300);
+            assertThat(eventLoopLagMonitor.lag()).isGreaterThanOrEqualTo(Duration.ofMillis(200));
+            assertThat(meterRegistry.get("eventLoop.lag").timeGauge().value(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(200);
+        } finally {
+            release.countDown();
+        }
+
+        Thread.sleep(100);
+        assertThat(eventLoopLagMonitor.lag()).isLessThan(Duration.ofMillis(200));
+    }
+}
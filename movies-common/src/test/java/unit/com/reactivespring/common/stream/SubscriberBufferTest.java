@@ -0,0 +1,193 @@
+package com.reactivespring.common.stream;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import reactor.core.Exceptions;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SubscriberBufferTest {
+    private static final int BUFFER_SIZE = 16;
+    private static final int EVENTS = 10_000;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private Sinks.Many<Integer> sink;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        sink = Sinks.many().replay().all();
+    }
+
+    @Test
+    void stalledSubscriberDoesNotHoldBackHealthySubscriber() {
+        final SubscriberBuffer subscriberBuffer = new SubscriberBuffer(meterRegistry, immediate(), BUFFER_SIZE, "drop-oldest");
+        final RecordingSubscriber healthy = new RecordingSubscriber(Long.MAX_VALUE);
+        final RecordingSubscriber stalled = new RecordingSubscriber(1);
+
+        subscriberBuffer.buffer("test", sink.asFlux()).subscribe(healthy);
+        subscriberBuffer.buffer("test", sink.asFlux()).subscribe(stalled);
+
+        for (int i = 0; i < EVENTS; i++) {
+            sink.tryEmitNext(i);
+
+            assertThat(healthy.received).hasSize(i + 1);
+            assertThat(maxLag()).isLessThanOrEqualTo(BUFFER_SIZE);
+        }
+
+        assertThat(stalled.received).containsExactly(0);
+        assertThat(maxLag()).isEqualTo(BUFFER_SIZE);
+        assertThat(meterRegistry.get("stream.subscriber.dropped").counter().count())
+            .isEqualTo(EVENTS - 1 - BUFFER_SIZE);
+
+        stalled.request(BUFFER_SIZE);
+
+        assertThat(stalled.received).hasSize(BUFFER_SIZE + 1);
+        assertThat(stalled.received.get(1)).isEqualTo(EVENTS - BUFFER_SIZE);
+        assertThat(maxLag()).isZero();
+    }
+
+    @Test
+    void keepLatest() {
+        final SubscriberBuffer subscriberBuffer = new SubscriberBuffer(meterRegistry, immediate(), BUFFER_SIZE, "keep-latest");
+        final RecordingSubscriber stalled = new RecordingSubscriber(0);
+
+        subscriberBuffer.buffer("test", sink.asFlux()).subscribe(stalled);
+
+        for (int i = 0; i < EVENTS; i++) {
+            sink.tryEmitNext(i);
+        }
+
+        assertThat(maxLag()).isEqualTo(1);
+
+        stalled.request(1);
+
+        assertThat(stalled.received).containsExactly(EVENTS - 1);
+    }
+
+    @Test
+    void disconnect() {
+        final SubscriberBuffer subscriberBuffer = new SubscriberBuffer(meterRegistry, immediate(), BUFFER_SIZE, "disconnect");
+        final RecordingSubscriber healthy = new RecordingSubscriber(Long.MAX_VALUE);
+        final RecordingSubscriber stalled = new RecordingSubscriber(0);
+
+        subscriberBuffer.buffer("test", sink.asFlux()).subscribe(healthy);
+        subscriberBuffer.buffer("test", sink.asFlux()).subscribe(stalled);
+
+        for (int i = 0; i < EVENTS; i++) {
+            sink.tryEmitNext(i);
+        }
+
+        assertThat(healthy.received).hasSize(EVENTS);
+        assertThat(healthy.error).isNull();
+        assertThat(stalled.error).matches(Exceptions::isOverflow);
+        assertThat(meterRegistry.get("stream.subscriber.disconnected").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("stream.subscribers").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void deliversOnDedicatedStreamScheduler() {
+        final StreamScheduler streamScheduler = new StreamScheduler(meterRegistry, true, 2);
+        final SubscriberBuffer subscriberBuffer = new SubscriberBuffer(
+            meterRegistry, streamScheduler, BUFFER_SIZE, "drop-oldest"
+        );
+
+        try {
+            StepVerifier.create(subscriberBuffer.buffer("test", Flux.range(0, 3))
+                    .map(element -> Thread.currentThread().getName()))
+                .expectNextMatches(thread -> thread.startsWith("stream-"))
+                .expectNextMatches(thread -> thread.startsWith("stream-"))
+                .expectNextMatches(thread -> thread.startsWith("stream-"))
+                .verifyComplete();
+
+            assertThat(meterRegistry.get("executor.pool.size").tag("name", "stream").gauge().value()).isPositive();
+        } finally {
+            streamScheduler.destroy();
+        }
+    }
+
+    @Test
+    void blockedSubscriberDoesNotFailSubscribersSharingTheScheduler() {
+        final StreamScheduler streamScheduler = new StreamScheduler(meterRegistry, true, 2);
+        final SubscriberBuffer subscriberBuffer = new SubscriberBuffer(
+            meterRegistry, streamScheduler, BUFFER_SIZE, "drop-oldest"
+        );
+        final CountDownLatch release = new CountDownLatch(1);
+
+        try {
+            subscriberBuffer.buffer("test", Flux.range(0, EVENTS))
+                .subscribe(element -> awaitQuietly(release));
+
+            final List<Flux<Integer>> others = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                others.add(subscriberBuffer.buffer("test", Flux.range(0, BUFFER_SIZE)));
+            }
+
+            StepVerifier.create(Flux.merge(others).count())
+                .expectNext(100L * BUFFER_SIZE)
+                .expectComplete()
+                .verify(Duration.ofSeconds(10));
+        } finally {
+            release.countDown();
+            streamScheduler.destroy();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private StreamScheduler immediate() {
+        return new StreamScheduler(meterRegistry, false, 0);
+    }
+
+    private double maxLag() {
+        return meterRegistry.get("stream.subscriber.lag.max").gauge().value();
+    }
+
+    private static class RecordingSubscriber extends BaseSubscriber<Integer> {
+        private final long initialRequest;
+
+        private final List<Integer> received = new ArrayList<>();
+
+        private Throwable error;
+
+        RecordingSubscriber(long initialRequest) {
+            this.initialRequest = initialRequest;
+        }
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+            if (initialRequest > 0) {
+                request(initialRequest);
+            }
+        }
+
+        @Override
+        protected void hookOnNext(Integer value) {
+            received.add(value);
+        }
+
+        @Override
+        protected void hookOnError(Throwable throwable) {
+            error = throwable;
+        }
+    }
+}
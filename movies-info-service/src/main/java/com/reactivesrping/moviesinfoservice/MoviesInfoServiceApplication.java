@@ -1,9 +1,21 @@
 package com.reactivesrping.moviesinfoservice;
 
+import com.reactivespring.common.config.AdmissionControlWebFilter;
+import com.reactivespring.common.config.CompressionWebFilter;
+import com.reactivespring.common.config.EventLoopLagMonitor;
+import com.reactivespring.common.stream.StreamScheduler;
+import com.reactivespring.common.stream.SubscriberBuffer;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
+@EnableScheduling
 @SpringBootApplication
+@Import({
+    AdmissionControlWebFilter.class, CompressionWebFilter.class, EventLoopLagMonitor.class,
+    StreamScheduler.class, SubscriberBuffer.class
+})
 public class MoviesInfoServiceApplication {
     public static void main(String[] args) {
         SpringApplication.run(MoviesInfoServiceApplication.class, args);
@@ -1,5 +1,6 @@
 package com.reactivesrping.moviesinfoservice.configs;
 
+import com.reactivesrping.moviesinfoservice.exceptions.MovieInfoDataException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -26,4 +27,11 @@ public class GlobalErrorHandler {
 
         return ResponseEntity.badRequest().body(errors);
     }
+
+    @ExceptionHandler(MovieInfoDataException.class)
+    public ResponseEntity<String> handleError(MovieInfoDataException ex) {
+        log.error("Exception catch ", ex);
+
+        return ResponseEntity.badRequest().body(ex.getMessage());
+    }
 }
@@ -1,5 +1,6 @@
 package com.reactivesrping.moviesinfoservice.controllers;
 
+import com.reactivespring.common.stream.StreamScheduler;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
@@ -10,6 +11,12 @@ import java.time.Duration;
 
 @RestController
 public class FluxAndMonoController {
+    private final StreamScheduler streamScheduler;
+
+    public FluxAndMonoController(StreamScheduler streamScheduler) {
+        this.streamScheduler = streamScheduler;
+    }
+
     @GetMapping("/flux")
     public Flux<Integer> flux() {
         return Flux.just(1, 2, 3, 4).log();
@@ -22,6 +29,8 @@ public class FluxAndMonoController {
 
     @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
     public Flux<Long> stream() {
-        return Flux.interval(Duration.ofSeconds(1)).log();
+        return Flux.interval(Duration.ofSeconds(1))
+            .publishOn(streamScheduler.scheduler())
+            .log();
     }
 }
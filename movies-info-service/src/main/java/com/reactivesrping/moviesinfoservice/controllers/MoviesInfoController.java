@@ -1,16 +1,31 @@
 package com.reactivesrping.moviesinfoservice.controllers;
 
+import com.reactivespring.common.stream.SubscriberBuffer;
+import com.reactivesrping.moviesinfoservice.domain.CompactMovieInfo;
+import com.reactivesrping.moviesinfoservice.domain.ImportSummary;
 import com.reactivesrping.moviesinfoservice.domain.MovieInfo;
+import com.reactivesrping.moviesinfoservice.domain.MovieInfoEvent;
+import com.reactivesrping.moviesinfoservice.domain.YearCount;
+import com.reactivesrping.moviesinfoservice.exceptions.MovieInfoDataException;
+import com.reactivesrping.moviesinfoservice.services.MovieInfoEventStream;
+import com.reactivesrping.moviesinfoservice.services.MovieInfoExportService;
+import com.reactivesrping.moviesinfoservice.services.MovieInfoImportService;
+import com.reactivesrping.moviesinfoservice.services.MovieInfoJsonCache;
 import com.reactivesrping.moviesinfoservice.services.MoviesInfoService;
+import com.reactivesrping.moviesinfoservice.utils.ETagUtil;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
@@ -20,48 +35,173 @@ import reactor.core.publisher.Mono;
 import reactor.core.publisher.Sinks;
 
 import javax.validation.Valid;
+import java.util.List;
 
 @RestController
 @RequestMapping("api/v1/movies-info")
 public class MoviesInfoController {
     private final MoviesInfoService moviesInfoService;
 
-    private final Sinks.Many<MovieInfo> moviesInfoSink;
+    private final MovieInfoImportService movieInfoImportService;
 
-    public MoviesInfoController(MoviesInfoService moviesInfoService) {
+    private final MovieInfoExportService movieInfoExportService;
+
+    private final MovieInfoJsonCache movieInfoJsonCache;
+
+    private final MovieInfoEventStream movieInfoEventStream;
+
+    private final SubscriberBuffer subscriberBuffer;
+
+    private final Sinks.Many<CompactMovieInfo> moviesInfoSink;
+
+    public MoviesInfoController(MoviesInfoService moviesInfoService,
+                                MovieInfoImportService movieInfoImportService,
+                                MovieInfoExportService movieInfoExportService,
+                                MovieInfoJsonCache movieInfoJsonCache,
+                                MovieInfoEventStream movieInfoEventStream,
+                                SubscriberBuffer subscriberBuffer) {
         this.moviesInfoService = moviesInfoService;
+        this.movieInfoImportService = movieInfoImportService;
+        this.movieInfoExportService = movieInfoExportService;
+        this.movieInfoJsonCache = movieInfoJsonCache;
+        this.movieInfoEventStream = movieInfoEventStream;
+        this.subscriberBuffer = subscriberBuffer;
         moviesInfoSink = Sinks.many().replay().all();
     }
 
     @GetMapping
-    public Flux<MovieInfo> index(@RequestParam(required = false) Integer year) {
+    public Mono<ResponseEntity<Flux<MovieInfo>>> index(@RequestParam(required = false) Integer year,
+                                                       @RequestParam(required = false) List<String> fields) {
+        validateFields(fields);
+
         if (year != null) {
-            return moviesInfoService.findByYear(year);
+            final Flux<MovieInfo> movieInfoFlux = fields == null
+                ? moviesInfoService.findByYear(year)
+                : moviesInfoService.findByYear(year, fields);
+
+            return movieInfoFlux.collectList()
+                .map(movieInfos -> ResponseEntity.ok()
+                    .eTag(ETagUtil.eTag(movieInfos, fields))
+                    .body(Flux.fromIterable(movieInfos).map(movieInfo -> withRequestedFields(movieInfo, fields))));
+        }
+
+        // No ETag here: hashing the unpaged listing would hold the whole collection in memory before the first byte.
+        final Flux<MovieInfo> movieInfoFlux = fields == null
+            ? moviesInfoService.findAll()
+            : moviesInfoService.findAll(fields);
+
+        return Mono.just(ResponseEntity.ok()
+            .body(movieInfoFlux.map(movieInfo -> withRequestedFields(movieInfo, fields))));
+    }
+
+    private void validateFields(List<String> fields) {
+        if (fields == null) {
+            return;
         }
 
-        return moviesInfoService.findAll().log();
+        fields.stream()
+            .filter(field -> !movieInfoJsonCache.fieldNames().contains(field))
+            .findFirst()
+            .ifPresent(field -> {
+                throw new MovieInfoDataException("fields : unknown field " + field);
+            });
+    }
+
+    private MovieInfo withRequestedFields(MovieInfo movieInfo, List<String> fields) {
+        if (fields == null || fields.isEmpty() || fields.contains("movieInfoId")) {
+            return movieInfo;
+        }
+
+        return movieInfo.withMovieInfoId(null);
     }
 
     @GetMapping("{id}")
-    public Mono<ResponseEntity<MovieInfo>> show(@PathVariable String id) {
-        return moviesInfoService.findById(id)
-            .map(ResponseEntity::ok)
+    public Mono<ResponseEntity<Object>> show(@PathVariable String id,
+                                             @RequestParam(required = false) List<String> fields,
+                                             @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                                 String ifNoneMatch) {
+        validateFields(fields);
+
+        if (ifNoneMatch == null) {
+            return findMovieInfo(id, fields);
+        }
+
+        return moviesInfoService.findVersionById(id)
+            .map(version -> ETagUtil.eTag(id, version, fields))
+            .filter(eTag -> ETagUtil.matches(ifNoneMatch, eTag))
+            .map(eTag -> ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build())
+            .switchIfEmpty(Mono.defer(() -> findMovieInfo(id, fields)));
+    }
+
+    private Mono<ResponseEntity<Object>> findMovieInfo(String id, List<String> fields) {
+        if (fields == null) {
+            return moviesInfoService.findById(id)
+                .map(movieInfo -> ResponseEntity.ok()
+                    .eTag(ETagUtil.eTag(id, movieInfo.getVersion(), null))
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .<Object>body(movieInfoJsonCache.encode(movieInfo)))
+                .switchIfEmpty(Mono.just(ResponseEntity.notFound().build()));
+        }
+
+        return moviesInfoService.findById(id, fields)
+            .map(movieInfo -> ResponseEntity.ok()
+                .eTag(ETagUtil.eTag(id, movieInfo.getVersion(), fields))
+                .<Object>body(withRequestedFields(movieInfo, fields)))
             .switchIfEmpty(Mono.just(ResponseEntity.notFound().build()));
     }
 
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<DataBuffer> export(@RequestParam(required = false) Integer batchSize,
+                                   @RequestParam(defaultValue = "false") boolean snapshot,
+                                   ServerHttpResponse response) {
+        return movieInfoExportService.export(batchSize, snapshot, response.bufferFactory());
+    }
+
+    @GetMapping("/search")
+    public Flux<MovieInfo> search(@RequestParam String q, @RequestParam(defaultValue = "20") int limit) {
+        return moviesInfoService.search(q, limit);
+    }
+
+    @GetMapping(value = "/stats/years", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<YearCount> countByYear(@RequestParam(required = false) Integer fromYear,
+                                       @RequestParam(required = false) Integer toYear,
+                                       @RequestParam(required = false) String cast,
+                                       @RequestParam(defaultValue = "1") int bucketSize) {
+        return moviesInfoService.countByYear(fromYear, toYear, cast, bucketSize);
+    }
+
     @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
     public Flux<MovieInfo> stream() {
-        return moviesInfoSink.asFlux();
+        if (movieInfoEventStream.isChangeStream()) {
+            return subscriberBuffer.buffer("movieInfos", movieInfoEventStream.events())
+                .filter(event -> event.getType() != MovieInfoEvent.Type.DELETE && event.getMovieInfo() != null)
+                .map(MovieInfoEvent::getMovieInfo);
+        }
+
+        return subscriberBuffer.buffer("movieInfos", moviesInfoSink.asFlux())
+            .map(CompactMovieInfo::toMovieInfo);
+    }
+
+    @GetMapping(value = "/events", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<MovieInfoEvent> events() {
+        return subscriberBuffer.buffer("movieInfoEvents", movieInfoEventStream.events());
     }
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     public Mono<MovieInfo> create(@RequestBody @Valid MovieInfo movieInfo) {
         return moviesInfoService.create(movieInfo)
-            .doOnNext(moviesInfoSink::tryEmitNext)
+            .doOnNext(savedMovieInfo -> moviesInfoSink.tryEmitNext(CompactMovieInfo.of(savedMovieInfo)))
             .log();
     }
 
+    @PostMapping(value = "/import",
+        consumes = MediaType.APPLICATION_NDJSON_VALUE,
+        produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ImportSummary> importMovieInfos(@RequestBody Flux<String> lines) {
+        return movieInfoImportService.importMovieInfos(lines);
+    }
+
     @PutMapping("{id}")
     public Mono<ResponseEntity<MovieInfo>> update(@RequestBody MovieInfo movieInfoToSave, @PathVariable String id) {
         return moviesInfoService.update(movieInfoToSave, id)
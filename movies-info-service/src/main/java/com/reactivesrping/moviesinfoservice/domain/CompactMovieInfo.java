@@ -0,0 +1,81 @@
+package com.reactivesrping.moviesinfoservice.domain;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * In-memory form of {@link MovieInfo} for caches and replay sinks: cast names are interned so actors shared by
+ * many movies are stored once, the cast is a plain array and the release date is packed into an epoch day.
+ */
+public final class CompactMovieInfo {
+    private static final int NO_YEAR = 0;
+
+    private static final int NO_RELEASE_DATE = Integer.MIN_VALUE;
+
+    private final String movieInfoId;
+
+    private final String name;
+
+    private final int year;
+
+    private final String[] cast;
+
+    private final int releaseDate;
+
+    private final long version;
+
+    private CompactMovieInfo(String movieInfoId, String name, int year, String[] cast, int releaseDate, long version) {
+        this.movieInfoId = movieInfoId;
+        this.name = name;
+        this.year = year;
+        this.cast = cast;
+        this.releaseDate = releaseDate;
+        this.version = version;
+    }
+
+    public static CompactMovieInfo of(MovieInfo movieInfo) {
+        return new CompactMovieInfo(
+            movieInfo.getMovieInfoId(),
+            movieInfo.getName(),
+            movieInfo.getYear() != null ? movieInfo.getYear() : NO_YEAR,
+            internCast(movieInfo.getCast()),
+            movieInfo.getReleaseDate() != null ? Math.toIntExact(movieInfo.getReleaseDate().toEpochDay()) : NO_RELEASE_DATE,
+            movieInfo.getVersion()
+        );
+    }
+
+    public MovieInfo toMovieInfo() {
+        return new MovieInfo(
+            movieInfoId,
+            name,
+            year != NO_YEAR ? year : null,
+            cast != null ? Arrays.asList(cast.clone()) : null,
+            releaseDate != NO_RELEASE_DATE ? LocalDate.ofEpochDay(releaseDate) : null,
+            version
+        );
+    }
+
+    public String getMovieInfoId() {
+        return movieInfoId;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    private static String[] internCast(List<String> cast) {
+        if (cast == null) {
+            return null;
+        }
+
+        final String[] interned = new String[cast.size()];
+
+        for (int i = 0; i < interned.length; i++) {
+            final String member = cast.get(i);
+            interned[i] = member != null ? member.intern() : null;
+        }
+
+        return interned;
+    }
+}
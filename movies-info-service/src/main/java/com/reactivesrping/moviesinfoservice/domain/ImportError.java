@@ -0,0 +1,16 @@
+package com.reactivesrping.moviesinfoservice.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportError {
+    private long line;
+
+    private String message;
+}
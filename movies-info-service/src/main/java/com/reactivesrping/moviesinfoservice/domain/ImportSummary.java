@@ -0,0 +1,20 @@
+package com.reactivesrping.moviesinfoservice.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportSummary {
+    private long accepted;
+
+    private long rejected;
+
+    private List<ImportError> errors;
+}
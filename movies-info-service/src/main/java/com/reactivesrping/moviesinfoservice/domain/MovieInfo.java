@@ -1,15 +1,19 @@
 package com.reactivesrping.moviesinfoservice.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.With;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Positive;
 import java.time.LocalDate;
 import java.util.List;
@@ -20,6 +24,7 @@ import java.util.List;
 @Document
 @NoArgsConstructor
 @AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class MovieInfo {
     @Id
     private String movieInfoId;
@@ -27,11 +32,20 @@ public class MovieInfo {
     @NotBlank
     private String name;
 
+    @Indexed
+    @NotNull
     @Positive
-    private int year;
+    private Integer year;
 
     @NotEmpty
     private List<@NotBlank String> cast;
 
     private LocalDate releaseDate;
+
+    @JsonIgnore
+    private long version;
+
+    public MovieInfo(String movieInfoId, String name, Integer year, List<String> cast, LocalDate releaseDate) {
+        this(movieInfoId, name, year, cast, releaseDate, 0L);
+    }
 }
@@ -0,0 +1,24 @@
+package com.reactivesrping.moviesinfoservice.domain;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class MovieInfoEvent {
+    public enum Type {
+        INSERT, UPDATE, DELETE
+    }
+
+    private Type type;
+
+    private String movieInfoId;
+
+    private MovieInfo movieInfo;
+}
@@ -0,0 +1,18 @@
+package com.reactivesrping.moviesinfoservice.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class YearCount {
+    private int fromYear;
+
+    private int toYear;
+
+    private long count;
+}
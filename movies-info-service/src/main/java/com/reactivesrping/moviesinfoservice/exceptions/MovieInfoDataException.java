@@ -0,0 +1,7 @@
+package com.reactivesrping.moviesinfoservice.exceptions;
+
+public class MovieInfoDataException extends RuntimeException {
+    public MovieInfoDataException(String message) {
+        super(message);
+    }
+}
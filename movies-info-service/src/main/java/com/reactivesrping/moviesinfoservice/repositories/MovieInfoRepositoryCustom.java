@@ -0,0 +1,26 @@
+package com.reactivesrping.moviesinfoservice.repositories;
+
+import com.reactivesrping.moviesinfoservice.domain.MovieInfo;
+import com.reactivesrping.moviesinfoservice.domain.YearCount;
+import org.bson.BsonValue;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+public interface MovieInfoRepositoryCustom {
+    Flux<MovieInfo> findAll();
+    Flux<MovieInfo> findByYear(int year);
+    Flux<MovieInfo> findByYearFromPrimary(int year);
+    Flux<MovieInfo> findAll(Collection<String> fields);
+    Flux<MovieInfo> findByYear(int year, Collection<String> fields);
+    Mono<MovieInfo> findById(String id, Collection<String> fields);
+    Mono<Long> findVersionById(String id);
+    Flux<String> findAllIds();
+    Flux<MovieInfo> findAllForExport(int batchSize, boolean snapshot);
+    Flux<YearCount> countByYear(Integer fromYear, Integer toYear, String castMember, int bucketSize);
+    Flux<ChangeStreamEvent<MovieInfo>> watch(BsonValue resumeToken);
+    Mono<BsonValue> findResumeToken(String streamId);
+    Mono<Void> saveResumeToken(String streamId, BsonValue resumeToken);
+}
@@ -0,0 +1,242 @@
+package com.reactivesrping.moviesinfoservice.repositories;
+
+import com.mongodb.ClientSessionOptions;
+import com.mongodb.ReadPreference;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.reactivestreams.client.ClientSession;
+import com.reactivesrping.moviesinfoservice.domain.MovieInfo;
+import com.reactivesrping.moviesinfoservice.domain.YearCount;
+import com.reactivesrping.moviesinfoservice.exceptions.MovieInfoDataException;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.data.mongodb.core.ChangeStreamOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+public class MovieInfoRepositoryCustomImpl implements MovieInfoRepositoryCustom {
+    private static final int ID_SCAN_BATCH_SIZE = 10_000;
+
+    private static final String RESUME_TOKENS_COLLECTION = "streamResumeTokens";
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    private final ReactiveMongoTemplate readReactiveMongoTemplate;
+
+    public MovieInfoRepositoryCustomImpl(ReactiveMongoTemplate reactiveMongoTemplate,
+                                         @Value("${mongo.reads.readPreference:primary}") String readPreference,
+                                         @Value("${mongo.reads.maxStalenessSeconds:0}") long maxStalenessSeconds) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.readReactiveMongoTemplate = new ReactiveMongoTemplate(
+            reactiveMongoTemplate.getMongoDatabaseFactory(), reactiveMongoTemplate.getConverter()
+        );
+        this.readReactiveMongoTemplate.setReadPreference(readPreference(readPreference, maxStalenessSeconds));
+    }
+
+    @Override
+    public Flux<MovieInfo> findAll() {
+        return findAll(List.of());
+    }
+
+    @Override
+    public Flux<MovieInfo> findByYear(int year) {
+        return findByYear(year, List.of());
+    }
+
+    /**
+     * Reads the year from the primary regardless of the configured read preference, for loads whose result is cached.
+     */
+    @Override
+    public Flux<MovieInfo> findByYearFromPrimary(int year) {
+        return reactiveMongoTemplate.find(new Query(where("year").is(year)), MovieInfo.class);
+    }
+
+    @Override
+    public Flux<MovieInfo> findAll(Collection<String> fields) {
+        return Mono.fromCallable(() -> project(new Query(), fields))
+            .flatMapMany(query -> readReactiveMongoTemplate.find(query, MovieInfo.class));
+    }
+
+    @Override
+    public Flux<MovieInfo> findByYear(int year, Collection<String> fields) {
+        return Mono.fromCallable(() -> project(new Query(where("year").is(year)), fields))
+            .flatMapMany(query -> readReactiveMongoTemplate.find(query, MovieInfo.class));
+    }
+
+    @Override
+    public Mono<MovieInfo> findById(String id, Collection<String> fields) {
+        return Mono.fromCallable(() -> project(new Query(where("movieInfoId").is(id)), fields))
+            .flatMap(query -> readReactiveMongoTemplate.findOne(query, MovieInfo.class));
+    }
+
+    @Override
+    public Mono<Long> findVersionById(String id) {
+        final Query query = new Query(where("movieInfoId").is(id));
+        query.fields().include("version");
+
+        return readReactiveMongoTemplate.findOne(query, MovieInfo.class)
+            .map(MovieInfo::getVersion);
+    }
+
+    @Override
+    public Flux<String> findAllIds() {
+        final Query query = new Query().cursorBatchSize(ID_SCAN_BATCH_SIZE);
+        query.fields().include("movieInfoId");
+
+        return reactiveMongoTemplate.find(query, Document.class, reactiveMongoTemplate.getCollectionName(MovieInfo.class))
+            .map(document -> document.get("_id").toString());
+    }
+
+    @Override
+    public Flux<MovieInfo> findAllForExport(int batchSize, boolean snapshot) {
+        final Query query = new Query()
+            .cursorBatchSize(batchSize)
+            .noCursorTimeout();
+
+        if (!snapshot) {
+            return readReactiveMongoTemplate.find(query, MovieInfo.class);
+        }
+
+        return readReactiveMongoTemplate.withSession(ClientSessionOptions.builder().snapshot(true).build())
+            .execute(operations -> operations.find(query, MovieInfo.class), ClientSession::close);
+    }
+
+    @Override
+    public Flux<YearCount> countByYear(Integer fromYear, Integer toYear, String castMember, int bucketSize) {
+        return Mono.fromCallable(() -> countByYearAggregation(fromYear, toYear, castMember, bucketSize))
+            .flatMapMany(aggregation -> readReactiveMongoTemplate.aggregate(aggregation, MovieInfo.class, Document.class))
+            .map(document -> {
+                final int bucketStart = document.get("_id", Number.class).intValue();
+
+                return YearCount.builder()
+                    .fromYear(bucketStart)
+                    .toYear(bucketStart + bucketSize - 1)
+                    .count(document.get("count", Number.class).longValue())
+                    .build();
+            });
+    }
+
+    @Override
+    public Flux<ChangeStreamEvent<MovieInfo>> watch(BsonValue resumeToken) {
+        final ChangeStreamOptions.ChangeStreamOptionsBuilder options = ChangeStreamOptions.builder()
+            .fullDocumentLookup(FullDocument.UPDATE_LOOKUP);
+
+        // Unlike resumeAfter, startAfter also accepts the token of an invalidate event.
+        if (resumeToken != null) {
+            options.startAfter(resumeToken);
+        }
+
+        return reactiveMongoTemplate.changeStream(
+            null, reactiveMongoTemplate.getCollectionName(MovieInfo.class), options.build(), MovieInfo.class
+        );
+    }
+
+    @Override
+    public Mono<BsonValue> findResumeToken(String streamId) {
+        return reactiveMongoTemplate.findById(streamId, Document.class, RESUME_TOKENS_COLLECTION)
+            .map(document -> new BsonDocument("_data", new BsonString(document.getString("token"))));
+    }
+
+    @Override
+    public Mono<Void> saveResumeToken(String streamId, BsonValue resumeToken) {
+        final String token = resumeToken.asDocument().getString("_data").getValue();
+
+        return reactiveMongoTemplate.upsert(
+            new Query(where("_id").is(streamId)), Update.update("token", token), RESUME_TOKENS_COLLECTION
+        ).then();
+    }
+
+    private Aggregation countByYearAggregation(Integer fromYear, Integer toYear, String castMember, int bucketSize) {
+        if (bucketSize <= 0) {
+            throw new MovieInfoDataException("bucketSize : must be greater than 0");
+        }
+
+        if (fromYear != null && toYear != null && fromYear > toYear) {
+            throw new MovieInfoDataException("fromYear : must not be greater than toYear");
+        }
+
+        final Criteria criteria = new Criteria();
+
+        if (fromYear != null || toYear != null) {
+            final Criteria year = criteria.and("year");
+
+            if (fromYear != null) {
+                year.gte(fromYear);
+            }
+
+            if (toYear != null) {
+                year.lte(toYear);
+            }
+        }
+
+        if (castMember != null) {
+            criteria.and("cast").is(castMember);
+        }
+
+        final List<AggregationOperation> operations = new ArrayList<>();
+        operations.add(Aggregation.match(criteria));
+
+        if (bucketSize == 1) {
+            operations.add(Aggregation.group("year").count().as("count"));
+        } else {
+            operations.add(Aggregation.project()
+                .and(ArithmeticOperators.valueOf("year")
+                    .subtract(ArithmeticOperators.valueOf("year").mod(bucketSize)))
+                .as("bucket"));
+            operations.add(Aggregation.group("bucket").count().as("count"));
+        }
+
+        operations.add(Aggregation.sort(Sort.Direction.ASC, "_id"));
+
+        return Aggregation.newAggregation(operations);
+    }
+
+    private Query project(Query query, Collection<String> fields) {
+        if (fields.isEmpty()) {
+            return query;
+        }
+
+        final MongoPersistentEntity<?> entity = readReactiveMongoTemplate.getConverter()
+            .getMappingContext()
+            .getRequiredPersistentEntity(MovieInfo.class);
+
+        fields.forEach(field -> {
+            if (entity.getPersistentProperty(field) == null) {
+                throw new MovieInfoDataException("fields : unknown field " + field);
+            }
+
+            query.fields().include(field);
+        });
+
+        query.fields().include("version");
+
+        return query;
+    }
+
+    private static ReadPreference readPreference(String name, long maxStalenessSeconds) {
+        if (maxStalenessSeconds <= 0) {
+            return ReadPreference.valueOf(name);
+        }
+
+        return ReadPreference.valueOf(name, List.of(), maxStalenessSeconds, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,113 @@
+package com.reactivesrping.moviesinfoservice.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.reactivesrping.moviesinfoservice.domain.CompactMovieInfo;
+import com.reactivesrping.moviesinfoservice.domain.MovieInfo;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+@Component
+public class MovieInfoCache {
+    private final Cache<String, CompactMovieInfo> movieInfosById;
+
+    private final Cache<Integer, CompactMovieInfo[]> movieInfosByYear;
+
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public MovieInfoCache(MeterRegistry meterRegistry,
+                          @Value("${cache.maximumSize:10000}") long maximumSize,
+                          @Value("${cache.yearMaximumSize:500}") long yearMaximumSize,
+                          @Value("${cache.expireAfterWriteSeconds:600}") long expireAfterWriteSeconds) {
+        movieInfosById = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(Duration.ofSeconds(expireAfterWriteSeconds))
+            .recordStats()
+            .build();
+
+        movieInfosByYear = Caffeine.newBuilder()
+            .maximumSize(yearMaximumSize)
+            .expireAfterWrite(Duration.ofSeconds(expireAfterWriteSeconds))
+            .recordStats()
+            .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, movieInfosById, "movieInfosById");
+        CaffeineCacheMetrics.monitor(meterRegistry, movieInfosByYear, "movieInfosByYear");
+    }
+
+    public Mono<MovieInfo> findById(String id, Supplier<Mono<MovieInfo>> loader) {
+        return Mono.defer(() -> {
+            final CompactMovieInfo cached = movieInfosById.getIfPresent(id);
+
+            if (cached != null) {
+                return Mono.just(cached.toMovieInfo());
+            }
+
+            final long invalidationsBeforeLoad = invalidations.get();
+
+            return loader.get()
+                .doOnNext(movieInfo -> {
+                    if (invalidations.get() == invalidationsBeforeLoad) {
+                        movieInfosById.put(id, CompactMovieInfo.of(movieInfo));
+                    }
+                });
+        });
+    }
+
+    public Mono<MovieInfo> getIfPresent(String id) {
+        return Mono.justOrEmpty(movieInfosById.getIfPresent(id))
+            .map(CompactMovieInfo::toMovieInfo);
+    }
+
+    public Flux<MovieInfo> findByYear(int year, Supplier<Flux<MovieInfo>> loader) {
+        return Flux.defer(() -> {
+            final CompactMovieInfo[] cached = movieInfosByYear.getIfPresent(year);
+
+            if (cached != null) {
+                return Flux.fromArray(cached).map(CompactMovieInfo::toMovieInfo);
+            }
+
+            final long invalidationsBeforeLoad = invalidations.get();
+
+            return loader.get()
+                .collectList()
+                .doOnNext(movieInfos -> {
+                    if (invalidations.get() == invalidationsBeforeLoad) {
+                        movieInfosByYear.put(year, movieInfos.stream()
+                            .map(CompactMovieInfo::of)
+                            .toArray(CompactMovieInfo[]::new));
+                    }
+                })
+                .flatMapIterable(movieInfos -> movieInfos);
+        });
+    }
+
+    public void invalidate(String id, Integer year) {
+        invalidations.incrementAndGet();
+        movieInfosById.invalidate(id);
+
+        if (year != null) {
+            movieInfosByYear.invalidate(year);
+        }
+    }
+
+    /**
+     * Invalidates a movie info whose previous year is not known, as for a change made through another instance:
+     * every cached year listing that holds it is dropped.
+     */
+    public void invalidate(String id) {
+        invalidations.incrementAndGet();
+        movieInfosById.invalidate(id);
+        movieInfosByYear.asMap().values().removeIf(movieInfos -> Arrays.stream(movieInfos)
+            .anyMatch(movieInfo -> id.equals(movieInfo.getMovieInfoId())));
+    }
+}
@@ -0,0 +1,180 @@
+package com.reactivesrping.moviesinfoservice.services;
+
+import com.mongodb.client.model.changestream.OperationType;
+import com.reactivesrping.moviesinfoservice.domain.MovieInfo;
+import com.reactivesrping.moviesinfoservice.domain.MovieInfoEvent;
+import com.reactivesrping.moviesinfoservice.repositories.MovieInfoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonValue;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.retry.Retry;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Fans movie info insert, update and delete events out to every stream subscriber of this instance. With
+ * {@code stream.source=change-stream} the events come from one MongoDB change stream per instance, so writes made
+ * through other instances are seen too, and the resume token is persisted so a restart continues where it stopped.
+ * The change stream is reopened after the last resume token when it fails or ends, as it does once invalidated.
+ */
+@Slf4j
+@Component
+public class MovieInfoEventStream {
+    public enum Source {
+        LOCAL, CHANGE_STREAM
+    }
+
+    private final MovieInfoRepository movieInfoRepository;
+
+    private final Source source;
+
+    private final String resumeTokenId;
+
+    private final Duration resumeTokenFlushInterval;
+
+    private final Sinks.Many<MovieInfoEvent> events = Sinks.many().multicast().directBestEffort();
+
+    private final AtomicReference<BsonValue> resumeToken = new AtomicReference<>();
+
+    private volatile BsonValue savedResumeToken;
+
+    private Disposable changes;
+
+    private Disposable resumeTokenFlushes;
+
+    public MovieInfoEventStream(MovieInfoRepository movieInfoRepository,
+                                @Value("${stream.source:local}") String source,
+                                @Value("${stream.resumeTokenId:movieInfos}") String resumeTokenId,
+                                @Value("${stream.resumeTokenFlushInterval:PT1S}") Duration resumeTokenFlushInterval) {
+        this.movieInfoRepository = movieInfoRepository;
+        this.source = Source.valueOf(source.trim().toUpperCase().replace('-', '_'));
+        this.resumeTokenId = resumeTokenId;
+        this.resumeTokenFlushInterval = resumeTokenFlushInterval;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (source != Source.CHANGE_STREAM) {
+            return;
+        }
+
+        changes = movieInfoRepository.findResumeToken(resumeTokenId)
+            .doOnNext(token -> {
+                resumeToken.set(token);
+                savedResumeToken = token;
+            })
+            .thenMany(Flux.defer(() -> movieInfoRepository.watch(resumeToken.get()))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                    .maxBackoff(Duration.ofSeconds(30))
+                    .doBeforeRetry(signal -> log.warn("Movie info change stream failed, resuming", signal.failure())))
+                .repeatWhen(completions -> completions.delayElements(Duration.ofSeconds(1)))
+            )
+            .subscribe(this::onChange, ex -> log.error("Movie info change stream stopped", ex));
+
+        resumeTokenFlushes = Flux.interval(resumeTokenFlushInterval)
+            .concatMap(tick -> flushResumeToken())
+            .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (changes != null) {
+            changes.dispose();
+            resumeTokenFlushes.dispose();
+            flushResumeToken().block(Duration.ofSeconds(5));
+        }
+    }
+
+    public Flux<MovieInfoEvent> events() {
+        return events.asFlux();
+    }
+
+    public boolean isChangeStream() {
+        return source == Source.CHANGE_STREAM;
+    }
+
+    public void publish(MovieInfoEvent.Type type, String movieInfoId, MovieInfo movieInfo) {
+        if (source == Source.LOCAL) {
+            emit(new MovieInfoEvent(type, movieInfoId, movieInfo));
+        }
+    }
+
+    private void onChange(ChangeStreamEvent<MovieInfo> change) {
+        if (change.getOperationType() == OperationType.INVALIDATE) {
+            log.warn("Movie info change stream invalidated, restarting after its resume token");
+        }
+
+        final MovieInfoEvent event = toEvent(change);
+
+        if (event != null) {
+            emit(event);
+        }
+
+        resumeToken.set(change.getResumeToken());
+    }
+
+    private void emit(MovieInfoEvent event) {
+        events.emitNext(event, (signal, result) -> result == Sinks.EmitResult.FAIL_NON_SERIALIZED);
+    }
+
+    private Mono<Void> flushResumeToken() {
+        final BsonValue token = resumeToken.get();
+
+        if (token == null || token.equals(savedResumeToken)) {
+            return Mono.empty();
+        }
+
+        return movieInfoRepository.saveResumeToken(resumeTokenId, token)
+            .doOnSuccess(saved -> savedResumeToken = token)
+            .onErrorResume(ex -> {
+                log.warn("Could not save movie info change stream resume token", ex);
+                return Mono.empty();
+            });
+    }
+
+    private static MovieInfoEvent toEvent(ChangeStreamEvent<MovieInfo> change) {
+        if (change.getOperationType() == null) {
+            return null;
+        }
+
+        final String movieInfoId = documentKeyId(change);
+
+        switch (change.getOperationType()) {
+            case INSERT:
+                return new MovieInfoEvent(MovieInfoEvent.Type.INSERT, movieInfoId, change.getBody());
+            case UPDATE:
+            case REPLACE:
+                return new MovieInfoEvent(MovieInfoEvent.Type.UPDATE, movieInfoId, change.getBody());
+            case DELETE:
+                return new MovieInfoEvent(MovieInfoEvent.Type.DELETE, movieInfoId, null);
+            default:
+                return null;
+        }
+    }
+
+    private static String documentKeyId(ChangeStreamEvent<MovieInfo> change) {
+        final BsonValue id = change.getRaw() != null && change.getRaw().getDocumentKey() != null
+            ? change.getRaw().getDocumentKey().get("_id")
+            : null;
+
+        if (id == null) {
+            return null;
+        }
+
+        if (id.isObjectId()) {
+            return id.asObjectId().getValue().toHexString();
+        }
+
+        return id.isString() ? id.asString().getValue() : id.toString();
+    }
+}
@@ -0,0 +1,70 @@
+package com.reactivesrping.moviesinfoservice.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reactivesrping.moviesinfoservice.domain.MovieInfo;
+import com.reactivesrping.moviesinfoservice.exceptions.MovieInfoDataException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+@Service
+public class MovieInfoExportService {
+    private static final byte NEW_LINE = '\n';
+
+    private final MoviesInfoService moviesInfoService;
+
+    private final ObjectMapper objectMapper;
+
+    private final int defaultBatchSize;
+
+    private final int maxBatchSize;
+
+    public MovieInfoExportService(MoviesInfoService moviesInfoService,
+                                  ObjectMapper objectMapper,
+                                  @Value("${export.batchSize:1000}") int defaultBatchSize,
+                                  @Value("${export.maxBatchSize:10000}") int maxBatchSize) {
+        this.moviesInfoService = moviesInfoService;
+        this.objectMapper = objectMapper;
+        this.defaultBatchSize = defaultBatchSize;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public Flux<DataBuffer> export(Integer batchSize, boolean snapshot, DataBufferFactory bufferFactory) {
+        return Flux.defer(() -> {
+            final int cursorBatchSize = batchSize != null ? batchSize : defaultBatchSize;
+
+            if (cursorBatchSize <= 0 || cursorBatchSize > maxBatchSize) {
+                throw new MovieInfoDataException("batchSize : must be between 1 and " + maxBatchSize);
+            }
+
+            return moviesInfoService.findAllForExport(cursorBatchSize, snapshot)
+                .limitRate(cursorBatchSize)
+                .buffer(cursorBatchSize)
+                .map(movieInfos -> encode(movieInfos, bufferFactory));
+        });
+    }
+
+    private DataBuffer encode(List<MovieInfo> movieInfos, DataBufferFactory bufferFactory) {
+        final DataBuffer buffer = bufferFactory.allocateBuffer();
+
+        try (OutputStream outputStream = buffer.asOutputStream()) {
+            for (MovieInfo movieInfo : movieInfos) {
+                outputStream.write(objectMapper.writeValueAsBytes(movieInfo));
+                outputStream.write(NEW_LINE);
+            }
+
+            return buffer;
+        } catch (IOException ex) {
+            DataBufferUtils.release(buffer);
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
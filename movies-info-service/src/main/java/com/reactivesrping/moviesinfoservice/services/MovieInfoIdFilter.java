@@ -0,0 +1,134 @@
+package com.reactivesrping.moviesinfoservice.services;
+
+import com.reactivesrping.moviesinfoservice.domain.MovieInfoEvent;
+import com.reactivesrping.moviesinfoservice.repositories.MovieInfoRepository;
+import com.reactivesrping.moviesinfoservice.utils.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Answers "definitely not stored" for movie info ids without querying Mongo. The filter can only do that when it sees
+ * every insert, so it is authoritative only with {@code stream.source=change-stream}, where the ids of writes made
+ * through any instance or directly in the database arrive from the change stream. With the local source every lookup
+ * falls through to Mongo.
+ */
+@Slf4j
+@Component
+public class MovieInfoIdFilter {
+    private final MovieInfoRepository movieInfoRepository;
+
+    private final boolean enabled;
+
+    private final boolean authoritative;
+
+    private final long expectedInsertions;
+
+    private final double falsePositiveRate;
+
+    private final Counter definiteMisses;
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    private volatile BloomFilter current;
+
+    private volatile BloomFilter building;
+
+    public MovieInfoIdFilter(MovieInfoRepository movieInfoRepository,
+                             MovieInfoEventStream movieInfoEventStream,
+                             MeterRegistry meterRegistry,
+                             @Value("${bloomFilter.enabled:true}") boolean enabled,
+                             @Value("${bloomFilter.expectedInsertions:1000000}") long expectedInsertions,
+                             @Value("${bloomFilter.falsePositiveRate:0.01}") double falsePositiveRate) {
+        this.movieInfoRepository = movieInfoRepository;
+        this.enabled = enabled;
+        this.authoritative = enabled && movieInfoEventStream.isChangeStream();
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+
+        definiteMisses = Counter.builder("movieinfo.idfilter.misses")
+            .description("Lookups answered as not found without querying Mongo")
+            .register(meterRegistry);
+        Gauge.builder("movieinfo.idfilter.bytes", this, it -> it.current == null ? 0 : it.current.bitSize() / 8.0)
+            .register(meterRegistry);
+        Gauge.builder("movieinfo.idfilter.insertions", this, it -> it.current == null ? 0 : it.current.insertions())
+            .register(meterRegistry);
+        Gauge.builder("movieinfo.idfilter.fpp", this, it -> it.current == null ? 0 : it.current.expectedFalsePositiveRate())
+            .description("Estimated false positive probability at the current fill")
+            .register(meterRegistry);
+
+        if (authoritative) {
+            movieInfoEventStream.events()
+                .filter(event -> event.getType() != MovieInfoEvent.Type.DELETE && event.getMovieInfoId() != null)
+                .subscribe(event -> put(event.getMovieInfoId()));
+        } else if (enabled) {
+            log.info("Id filter disabled: it needs stream.source=change-stream to see writes from other instances");
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        rebuild();
+    }
+
+    @Scheduled(
+        initialDelayString = "${bloomFilter.rebuildInterval:PT1H}",
+        fixedDelayString = "${bloomFilter.rebuildInterval:PT1H}"
+    )
+    public void rebuild() {
+        if (!authoritative || !rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+
+        final BloomFilter next = new BloomFilter(expectedInsertions, falsePositiveRate);
+        building = next;
+
+        movieInfoRepository.findAllIds()
+            .doOnNext(next::put)
+            .count()
+            .doFinally(signal -> {
+                building = null;
+                rebuilding.set(false);
+            })
+            .subscribe(
+                count -> {
+                    current = next;
+                    log.info("Id filter rebuilt with {} movie info ids", count);
+                },
+                ex -> log.error("Could not rebuild id filter", ex)
+            );
+    }
+
+    public void put(String movieInfoId) {
+        final BloomFilter next = building;
+
+        if (next != null) {
+            next.put(movieInfoId);
+        }
+
+        final BloomFilter filter = current;
+
+        if (filter != null) {
+            filter.put(movieInfoId);
+        }
+    }
+
+    public boolean mightContain(String movieInfoId) {
+        final BloomFilter filter = current;
+
+        if (filter == null || filter.mightContain(movieInfoId)) {
+            return true;
+        }
+
+        definiteMisses.increment();
+        return false;
+    }
+}
@@ -0,0 +1,116 @@
+package com.reactivesrping.moviesinfoservice.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reactivesrping.moviesinfoservice.domain.ImportError;
+import com.reactivesrping.moviesinfoservice.domain.ImportSummary;
+import com.reactivesrping.moviesinfoservice.domain.MovieInfo;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Service
+public class MovieInfoImportService {
+    private final MoviesInfoService moviesInfoService;
+
+    private final ObjectMapper objectMapper;
+
+    private final Validator validator;
+
+    private final int batchSize;
+
+    private final int maxErrors;
+
+    public MovieInfoImportService(MoviesInfoService moviesInfoService,
+                                  ObjectMapper objectMapper,
+                                  Validator validator,
+                                  @Value("${import.batchSize:500}") int batchSize,
+                                  @Value("${import.maxErrors:100}") int maxErrors) {
+        this.moviesInfoService = moviesInfoService;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.batchSize = batchSize;
+        this.maxErrors = maxErrors;
+    }
+
+    public Flux<ImportSummary> importMovieInfos(Flux<String> lines) {
+        return lines.index()
+            .filter(line -> !line.getT2().isBlank())
+            .map(this::parse)
+            .buffer(batchSize)
+            .concatMap(this::write, 1)
+            .scan(new ImportSummary(0, 0, List.of()), this::merge);
+    }
+
+    private ImportLine parse(Tuple2<Long, String> line) {
+        final long lineNumber = line.getT1() + 1;
+
+        try {
+            final MovieInfo movieInfo = objectMapper.readValue(line.getT2(), MovieInfo.class);
+            final String violations = validate(movieInfo);
+
+            return violations.isEmpty()
+                ? new ImportLine(movieInfo, null)
+                : new ImportLine(null, new ImportError(lineNumber, violations));
+        } catch (JsonProcessingException ex) {
+            return new ImportLine(null, new ImportError(lineNumber, ex.getOriginalMessage()));
+        }
+    }
+
+    private String validate(MovieInfo movieInfo) {
+        final Set<ConstraintViolation<MovieInfo>> constraintViolations = validator.validate(movieInfo);
+
+        return constraintViolations.stream()
+            .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+            .sorted()
+            .collect(Collectors.joining(","));
+    }
+
+    private Mono<ImportSummary> write(List<ImportLine> batch) {
+        final List<MovieInfo> movieInfos = batch.stream()
+            .filter(line -> line.movieInfo != null)
+            .map(line -> line.movieInfo)
+            .collect(Collectors.toList());
+        final List<ImportError> errors = batch.stream()
+            .filter(line -> line.error != null)
+            .map(line -> line.error)
+            .collect(Collectors.toList());
+
+        return moviesInfoService.createAll(movieInfos)
+            .count()
+            .map(accepted -> new ImportSummary(accepted, errors.size(), errors));
+    }
+
+    private ImportSummary merge(ImportSummary total, ImportSummary batch) {
+        final List<ImportError> errors = new ArrayList<>(total.getErrors());
+        batch.getErrors().stream()
+            .limit(Math.max(0, maxErrors - errors.size()))
+            .forEach(errors::add);
+
+        return new ImportSummary(
+            total.getAccepted() + batch.getAccepted(),
+            total.getRejected() + batch.getRejected(),
+            errors
+        );
+    }
+
+    private static class ImportLine {
+        private final MovieInfo movieInfo;
+
+        private final ImportError error;
+
+        ImportLine(MovieInfo movieInfo, ImportError error) {
+            this.movieInfo = movieInfo;
+            this.error = error;
+        }
+    }
+}
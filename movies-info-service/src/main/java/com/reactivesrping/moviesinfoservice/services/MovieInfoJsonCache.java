@@ -0,0 +1,92 @@
+package com.reactivesrping.moviesinfoservice.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.reactivesrping.moviesinfoservice.domain.MovieInfo;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.UncheckedIOException;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Component
+public class MovieInfoJsonCache {
+    private final ObjectMapper objectMapper;
+
+    private final Cache<String, EncodedMovieInfo> encodedMovieInfos;
+
+    private final Set<String> fieldNames;
+
+    public MovieInfoJsonCache(ObjectMapper objectMapper,
+                              MeterRegistry meterRegistry,
+                              @Value("${jsonCache.maximumBytes:67108864}") long maximumBytes) {
+        this.objectMapper = objectMapper;
+
+        encodedMovieInfos = Caffeine.newBuilder()
+            .maximumWeight(maximumBytes)
+            .weigher((String id, EncodedMovieInfo encoded) -> encoded.json.length)
+            .recordStats()
+            .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, encodedMovieInfos, "movieInfoJson");
+
+        fieldNames = objectMapper.getSerializationConfig()
+            .introspect(objectMapper.constructType(MovieInfo.class))
+            .findProperties()
+            .stream()
+            .map(BeanPropertyDefinition::getName)
+            .collect(Collectors.toUnmodifiableSet());
+    }
+
+    /**
+     * Names of the properties that appear in the JSON form of a movie info, i.e. the ones a client may select.
+     */
+    public Set<String> fieldNames() {
+        return fieldNames;
+    }
+
+    public byte[] encode(MovieInfo movieInfo) {
+        final String id = movieInfo.getMovieInfoId();
+        final EncodedMovieInfo cached = encodedMovieInfos.getIfPresent(id);
+
+        if (cached != null && cached.version == movieInfo.getVersion()) {
+            return cached.json;
+        }
+
+        final EncodedMovieInfo encoded = new EncodedMovieInfo(movieInfo.getVersion(), serialize(movieInfo));
+        encodedMovieInfos.asMap().merge(id, encoded, (existing, candidate) ->
+            existing.version > candidate.version ? existing : candidate
+        );
+
+        return encoded.json;
+    }
+
+    public void invalidate(String id) {
+        encodedMovieInfos.invalidate(id);
+    }
+
+    private byte[] serialize(MovieInfo movieInfo) {
+        try {
+            return objectMapper.writeValueAsBytes(movieInfo);
+        } catch (JsonProcessingException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static class EncodedMovieInfo {
+        private final long version;
+
+        private final byte[] json;
+
+        EncodedMovieInfo(long version, byte[] json) {
+            this.version = version;
+            this.json = json;
+        }
+    }
+}
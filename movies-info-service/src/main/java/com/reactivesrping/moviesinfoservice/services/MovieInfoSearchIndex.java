@@ -0,0 +1,322 @@
+package com.reactivesrping.moviesinfoservice.services;
+
+import com.reactivesrping.moviesinfoservice.domain.MovieInfo;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Prefix search over movie names and cast. Each term keeps a sorted array of document ordinals; a query walks the
+ * postings of its prefixes in ordinal order and stops once it has {@code limit} documents. Ordinals freed by removals
+ * are handed out again, so the ordinal space stays as large as the most documents indexed at once. A movie info older
+ * than the indexed one is ignored, so a change event arriving after a local write cannot roll it back.
+ */
+@Component
+public class MovieInfoSearchIndex {
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final NavigableMap<String, PostingList> postings = new TreeMap<>();
+
+    private final Map<String, Integer> ordinals = new HashMap<>();
+
+    private final List<MovieInfo> documents = new ArrayList<>();
+
+    private int[] freeOrdinals = new int[8];
+
+    private int freeCount;
+
+    public void index(MovieInfo movieInfo) {
+        lock.writeLock().lock();
+        try {
+            final Integer existing = ordinals.get(movieInfo.getMovieInfoId());
+
+            if (existing != null) {
+                if (documents.get(existing).getVersion() > movieInfo.getVersion()) {
+                    return;
+                }
+
+                unindex(existing);
+            }
+
+            final int ordinal;
+
+            if (existing != null) {
+                ordinal = existing;
+                documents.set(ordinal, movieInfo);
+            } else if (freeCount > 0) {
+                ordinal = freeOrdinals[--freeCount];
+                documents.set(ordinal, movieInfo);
+                ordinals.put(movieInfo.getMovieInfoId(), ordinal);
+            } else {
+                ordinal = documents.size();
+                documents.add(movieInfo);
+                ordinals.put(movieInfo.getMovieInfoId(), ordinal);
+            }
+
+            terms(movieInfo).forEach(term -> postings.computeIfAbsent(term, it -> new PostingList()).add(ordinal));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String movieInfoId) {
+        lock.writeLock().lock();
+        try {
+            final Integer ordinal = ordinals.remove(movieInfoId);
+
+            if (ordinal != null) {
+                unindex(ordinal);
+                documents.set(ordinal, null);
+                free(ordinal);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            ordinals.clear();
+            documents.clear();
+            freeCount = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<MovieInfo> search(String query, int limit) {
+        final Set<String> prefixes = tokenize(query);
+
+        if (prefixes.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            final PrefixCursor[] cursors = new PrefixCursor[prefixes.size()];
+            int index = 0;
+
+            for (String prefix : prefixes) {
+                final Collection<PostingList> postingLists =
+                    postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values();
+
+                if (postingLists.isEmpty()) {
+                    return List.of();
+                }
+
+                cursors[index++] = new PrefixCursor(postingLists.toArray(new PostingList[0]));
+            }
+
+            return intersect(cursors, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Leapfrogs the prefix cursors: each one in turn skips to the current candidate ordinal, and a candidate that
+     * every cursor lands on is a match.
+     */
+    private List<MovieInfo> intersect(PrefixCursor[] cursors, int limit) {
+        final List<MovieInfo> results = new ArrayList<>(Math.min(limit, 16));
+        int candidate = 0;
+        int agreed = 0;
+
+        for (int cursor = 0; results.size() < limit; cursor = (cursor + 1) % cursors.length) {
+            final int next = cursors[cursor].advance(candidate);
+
+            if (next < 0) {
+                break;
+            }
+
+            if (next == candidate) {
+                agreed++;
+            } else {
+                candidate = next;
+                agreed = 1;
+            }
+
+            if (agreed == cursors.length) {
+                results.add(documents.get(candidate));
+                candidate++;
+                agreed = 0;
+            }
+        }
+
+        return results;
+    }
+
+    private void free(int ordinal) {
+        if (freeCount == freeOrdinals.length) {
+            freeOrdinals = Arrays.copyOf(freeOrdinals, freeOrdinals.length * 2);
+        }
+
+        freeOrdinals[freeCount++] = ordinal;
+    }
+
+    private void unindex(int ordinal) {
+        terms(documents.get(ordinal)).forEach(term -> {
+            final PostingList postingList = postings.get(term);
+
+            if (postingList != null && postingList.remove(ordinal) && postingList.isEmpty()) {
+                postings.remove(term);
+            }
+        });
+    }
+
+    private Set<String> terms(MovieInfo movieInfo) {
+        final Set<String> terms = tokenize(movieInfo.getName());
+        final Collection<String> cast = movieInfo.getCast();
+
+        if (cast != null) {
+            cast.forEach(member -> terms.addAll(tokenize(member)));
+        }
+
+        return terms;
+    }
+
+    static Set<String> tokenize(String text) {
+        final Set<String> tokens = new TreeSet<>();
+
+        if (text == null) {
+            return tokens;
+        }
+
+        final String normalized = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD))
+            .replaceAll("")
+            .toLowerCase();
+
+        for (String token : NON_WORD.split(normalized)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+
+        return tokens;
+    }
+
+    private static class PostingList {
+        private int[] ordinals = new int[2];
+        private int size;
+
+        void add(int ordinal) {
+            if (size > 0 && ordinals[size - 1] < ordinal) {
+                append(ordinal);
+                return;
+            }
+
+            final int position = Arrays.binarySearch(ordinals, 0, size, ordinal);
+
+            if (position >= 0) {
+                return;
+            }
+
+            final int insertAt = -position - 1;
+            ensureCapacity();
+            System.arraycopy(ordinals, insertAt, ordinals, insertAt + 1, size - insertAt);
+            ordinals[insertAt] = ordinal;
+            size++;
+        }
+
+        boolean remove(int ordinal) {
+            final int position = Arrays.binarySearch(ordinals, 0, size, ordinal);
+
+            if (position < 0) {
+                return false;
+            }
+
+            System.arraycopy(ordinals, position + 1, ordinals, position, size - position - 1);
+            size--;
+            return true;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        /**
+         * Returns the position of the first ordinal at or after {@code from} that is not below {@code target}.
+         */
+        int seek(int from, int target) {
+            if (from >= size || ordinals[from] >= target) {
+                return from;
+            }
+
+            final int position = Arrays.binarySearch(ordinals, from, size, target);
+            return position >= 0 ? position : -position - 1;
+        }
+
+        private void append(int ordinal) {
+            ensureCapacity();
+            ordinals[size++] = ordinal;
+        }
+
+        private void ensureCapacity() {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, ordinals.length * 2);
+            }
+        }
+    }
+
+    /**
+     * The union of the posting lists of one prefix's terms, read in ordinal order.
+     */
+    private static class PrefixCursor {
+        private final PostingList[] postingLists;
+        private final int[] positions;
+
+        PrefixCursor(PostingList[] postingLists) {
+            this.postingLists = postingLists;
+            this.positions = new int[postingLists.length];
+        }
+
+        /**
+         * Returns the smallest ordinal not below {@code target} in any of the lists, or -1 when all are exhausted.
+         */
+        int advance(int target) {
+            int next = -1;
+
+            for (int i = 0; i < postingLists.length; i++) {
+                final PostingList postingList = postingLists[i];
+                positions[i] = postingList.seek(positions[i], target);
+
+                if (positions[i] < postingList.size) {
+                    final int ordinal = postingList.ordinals[positions[i]];
+
+                    if (next < 0 || ordinal < next) {
+                        next = ordinal;
+                    }
+                }
+            }
+
+            return next;
+        }
+    }
+}
@@ -1,48 +1,237 @@
 package com.reactivesrping.moviesinfoservice.services;
 
 import com.reactivesrping.moviesinfoservice.domain.MovieInfo;
+import com.reactivesrping.moviesinfoservice.domain.MovieInfoEvent;
+import com.reactivesrping.moviesinfoservice.domain.YearCount;
 import com.reactivesrping.moviesinfoservice.repositories.MovieInfoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+@Slf4j
 @Service
 public class MoviesInfoService {
     private final MovieInfoRepository movieInfoRepository;
 
-    public MoviesInfoService(MovieInfoRepository movieInfoRepository) {
+    private final MovieInfoSearchIndex movieInfoSearchIndex;
+
+    private final MovieInfoCache movieInfoCache;
+
+    private final MovieInfoIdFilter movieInfoIdFilter;
+
+    private final MovieInfoJsonCache movieInfoJsonCache;
+
+    private final MovieInfoEventStream movieInfoEventStream;
+
+    public MoviesInfoService(MovieInfoRepository movieInfoRepository,
+                             MovieInfoSearchIndex movieInfoSearchIndex,
+                             MovieInfoCache movieInfoCache,
+                             MovieInfoIdFilter movieInfoIdFilter,
+                             MovieInfoJsonCache movieInfoJsonCache,
+                             MovieInfoEventStream movieInfoEventStream) {
         this.movieInfoRepository = movieInfoRepository;
+        this.movieInfoSearchIndex = movieInfoSearchIndex;
+        this.movieInfoCache = movieInfoCache;
+        this.movieInfoIdFilter = movieInfoIdFilter;
+        this.movieInfoJsonCache = movieInfoJsonCache;
+        this.movieInfoEventStream = movieInfoEventStream;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildSearchIndex() {
+        movieInfoRepository.findAll()
+            .doOnNext(movieInfoSearchIndex::index)
+            .count()
+            .subscribe(
+                count -> log.info("Search index built with {} movie infos", count),
+                ex -> log.error("Could not build search index", ex)
+            );
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void applyChangeEvents() {
+        if (!movieInfoEventStream.isChangeStream()) {
+            return;
+        }
+
+        movieInfoEventStream.events()
+            .subscribe(this::apply, ex -> log.error("Stopped applying movie info change events", ex));
     }
 
+    /**
+     * Applies a change made through any instance to the caches and the search index of this one; the id filter
+     * follows the same events itself. Changes made through this instance were already applied when the write
+     * completed, so applying them again only costs a cache miss.
+     */
+    void apply(MovieInfoEvent event) {
+        final String id = event.getMovieInfoId();
+
+        if (id == null) {
+            return;
+        }
+
+        movieInfoCache.invalidate(id);
+        movieInfoJsonCache.invalidate(id);
+
+        if (event.getType() == MovieInfoEvent.Type.DELETE) {
+            movieInfoSearchIndex.remove(id);
+        } else if (event.getMovieInfo() != null) {
+            movieInfoCache.invalidate(id, event.getMovieInfo().getYear());
+            movieInfoSearchIndex.index(event.getMovieInfo());
+        }
+    }
+
+    /**
+     * Saves the movie info, replacing any stored one with the same id. A replaced movie info keeps counting up from
+     * the stored version, so an ETag issued for the old document never matches the new one.
+     */
     public Mono<MovieInfo> create(MovieInfo movieInfo) {
-        return movieInfoRepository.save(movieInfo);
+        final Mono<MovieInfo> versioned = movieInfo.getMovieInfoId() == null
+            ? Mono.just(movieInfo.withVersion(0))
+            : movieInfoRepository.findById(movieInfo.getMovieInfoId())
+                .map(storedMovieInfo -> movieInfo.withVersion(storedMovieInfo.getVersion() + 1))
+                .defaultIfEmpty(movieInfo.withVersion(0));
+
+        return versioned
+            .flatMap(movieInfoRepository::save)
+            .doOnNext(savedMovieInfo -> {
+                movieInfoIdFilter.put(savedMovieInfo.getMovieInfoId());
+                movieInfoCache.invalidate(savedMovieInfo.getMovieInfoId(), savedMovieInfo.getYear());
+                movieInfoJsonCache.invalidate(savedMovieInfo.getMovieInfoId());
+                movieInfoSearchIndex.index(savedMovieInfo);
+                movieInfoEventStream.publish(MovieInfoEvent.Type.INSERT, savedMovieInfo.getMovieInfoId(), savedMovieInfo);
+            });
+    }
+
+    public Flux<MovieInfo> createAll(List<MovieInfo> movieInfos) {
+        if (movieInfos.isEmpty()) {
+            return Flux.empty();
+        }
+
+        final List<String> ids = movieInfos.stream()
+            .map(MovieInfo::getMovieInfoId)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList());
+
+        final Mono<Map<String, Long>> storedVersions = ids.isEmpty()
+            ? Mono.just(Map.of())
+            : movieInfoRepository.findAllById(ids).collectMap(MovieInfo::getMovieInfoId, MovieInfo::getVersion);
+
+        return storedVersions
+            .map(versions -> movieInfos.stream()
+                .map(movieInfo -> {
+                    final Long storedVersion = movieInfo.getMovieInfoId() == null
+                        ? null
+                        : versions.get(movieInfo.getMovieInfoId());
+
+                    return movieInfo.withVersion(storedVersion == null ? 0 : storedVersion + 1);
+                })
+                .collect(Collectors.toList()))
+            .flatMapMany(movieInfoRepository::saveAll)
+            .doOnNext(savedMovieInfo -> {
+                movieInfoIdFilter.put(savedMovieInfo.getMovieInfoId());
+                movieInfoCache.invalidate(savedMovieInfo.getMovieInfoId(), savedMovieInfo.getYear());
+                movieInfoJsonCache.invalidate(savedMovieInfo.getMovieInfoId());
+                movieInfoSearchIndex.index(savedMovieInfo);
+                movieInfoEventStream.publish(MovieInfoEvent.Type.INSERT, savedMovieInfo.getMovieInfoId(), savedMovieInfo);
+            });
     }
 
     public Flux<MovieInfo> findAll() {
         return movieInfoRepository.findAll();
     }
 
+    public Flux<MovieInfo> findAllForExport(int batchSize, boolean snapshot) {
+        return movieInfoRepository.findAllForExport(batchSize, snapshot);
+    }
+
+    public Flux<MovieInfo> findAll(Collection<String> fields) {
+        return movieInfoRepository.findAll(fields);
+    }
+
     public Mono<MovieInfo> findById(String id) {
-        return movieInfoRepository.findById(id);
+        if (!movieInfoIdFilter.mightContain(id)) {
+            return Mono.empty();
+        }
+
+        // Cache misses read from the primary: a lagging secondary could refill the cache with a value that an update
+        // has already invalidated, and it would then be served until it expires.
+        return movieInfoCache.findById(id, () -> movieInfoRepository.findById(id));
+    }
+
+    public Mono<MovieInfo> findById(String id, Collection<String> fields) {
+        if (!movieInfoIdFilter.mightContain(id)) {
+            return Mono.empty();
+        }
+
+        return movieInfoRepository.findById(id, fields);
+    }
+
+    public Mono<Long> findVersionById(String id) {
+        if (!movieInfoIdFilter.mightContain(id)) {
+            return Mono.empty();
+        }
+
+        return movieInfoCache.getIfPresent(id)
+            .map(MovieInfo::getVersion)
+            .switchIfEmpty(Mono.defer(() -> movieInfoRepository.findVersionById(id)));
     }
 
     public Mono<MovieInfo> update(MovieInfo movieInfoToUpdate, String id) {
         return movieInfoRepository.findById(id)
-            .map(movieInfo ->
-                movieInfo
+            .flatMap(movieInfo -> {
+                final MovieInfo updatedMovieInfo = movieInfo
                     .withCast(movieInfoToUpdate.getCast())
                     .withName(movieInfoToUpdate.getName())
                     .withReleaseDate(movieInfoToUpdate.getReleaseDate())
                     .withYear(movieInfoToUpdate.getYear())
-            )
-            .flatMap(movieInfoRepository::save);
+                    .withVersion(movieInfo.getVersion() + 1);
+
+                return movieInfoRepository.save(updatedMovieInfo)
+                    .doOnNext(savedMovieInfo -> {
+                        movieInfoCache.invalidate(id, movieInfo.getYear());
+                        movieInfoCache.invalidate(id, savedMovieInfo.getYear());
+                        movieInfoJsonCache.invalidate(id);
+                        movieInfoSearchIndex.index(savedMovieInfo);
+                        movieInfoEventStream.publish(MovieInfoEvent.Type.UPDATE, id, savedMovieInfo);
+                    });
+            });
     }
 
     public Mono<Void> delete(String id) {
-        return movieInfoRepository.deleteById(id);
+        return movieInfoRepository.findById(id)
+            .flatMap(movieInfo -> movieInfoRepository.deleteById(id)
+                .then(Mono.fromRunnable(() -> {
+                    movieInfoCache.invalidate(id, movieInfo.getYear());
+                    movieInfoJsonCache.invalidate(id);
+                    movieInfoSearchIndex.remove(id);
+                    movieInfoEventStream.publish(MovieInfoEvent.Type.DELETE, id, null);
+                }))
+            );
+    }
+
+    public Flux<MovieInfo> search(String query, int limit) {
+        return Flux.defer(() -> Flux.fromIterable(movieInfoSearchIndex.search(query, limit)));
     }
 
     public Flux<MovieInfo> findByYear(int year) {
-        return movieInfoRepository.findByYear(year);
+        return movieInfoCache.findByYear(year, () -> movieInfoRepository.findByYearFromPrimary(year));
+    }
+
+    public Flux<MovieInfo> findByYear(int year, Collection<String> fields) {
+        return movieInfoRepository.findByYear(year, fields);
+    }
+
+    public Flux<YearCount> countByYear(Integer fromYear, Integer toYear, String castMember, int bucketSize) {
+        return movieInfoRepository.countByYear(fromYear, toYear, castMember, bucketSize);
     }
 }
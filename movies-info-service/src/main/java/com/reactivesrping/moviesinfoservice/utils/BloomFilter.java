@@ -0,0 +1,95 @@
+package com.reactivesrping.moviesinfoservice.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class BloomFilter {
+    private final AtomicLongArray words;
+
+    private final long bitSize;
+
+    private final int hashFunctions;
+
+    private final AtomicLong insertions = new AtomicLong();
+
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("expectedInsertions must be positive and falsePositiveRate in (0, 1)");
+        }
+
+        final long optimalBits = (long) Math.ceil(
+            -expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2))
+        );
+
+        words = new AtomicLongArray((int) ((optimalBits + 63) / 64));
+        bitSize = (long) words.length() * 64;
+        hashFunctions = Math.max(1, (int) Math.round((double) bitSize / expectedInsertions * Math.log(2)));
+    }
+
+    public void put(String value) {
+        final long hash = hash(value);
+        final long step = mix(hash) | 1;
+
+        for (int i = 0; i < hashFunctions; i++) {
+            final long bit = Math.floorMod(hash + i * step, bitSize);
+            final long mask = 1L << bit;
+
+            words.getAndAccumulate((int) (bit >>> 6), mask, (word, it) -> word | it);
+        }
+
+        insertions.incrementAndGet();
+    }
+
+    public boolean mightContain(String value) {
+        final long hash = hash(value);
+        final long step = mix(hash) | 1;
+
+        for (int i = 0; i < hashFunctions; i++) {
+            final long bit = Math.floorMod(hash + i * step, bitSize);
+
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public long bitSize() {
+        return bitSize;
+    }
+
+    public int hashFunctions() {
+        return hashFunctions;
+    }
+
+    public long insertions() {
+        return insertions.get();
+    }
+
+    public double expectedFalsePositiveRate() {
+        return Math.pow(1 - Math.exp(-hashFunctions * (double) insertions.get() / bitSize), hashFunctions);
+    }
+
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+
+        return mix(hash);
+    }
+
+    private static long mix(long value) {
+        long mixed = value;
+        mixed ^= mixed >>> 33;
+        mixed *= 0xff51afd7ed558ccdL;
+        mixed ^= mixed >>> 33;
+        mixed *= 0xc4ceb9fe1a85ec53L;
+        mixed ^= mixed >>> 33;
+        return mixed;
+    }
+}
@@ -0,0 +1,45 @@
+package com.reactivesrping.moviesinfoservice.utils;
+
+import com.reactivesrping.moviesinfoservice.domain.MovieInfo;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class ETagUtil {
+    public static String eTag(String movieInfoId, long version, List<String> fields) {
+        return "\"" + movieInfoId + "-" + version + fieldsSuffix(fields) + "\"";
+    }
+
+    public static String eTag(List<MovieInfo> movieInfos, List<String> fields) {
+        final String versions = movieInfos.stream()
+            .map(it -> it.getMovieInfoId() + ":" + it.getVersion())
+            .collect(Collectors.joining(","));
+
+        return "\"" + DigestUtils.md5DigestAsHex(versions.getBytes(StandardCharsets.UTF_8)) + fieldsSuffix(fields) + "\"";
+    }
+
+    public static boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+
+        for (String candidate : ifNoneMatch.split(",")) {
+            final String trimmed = candidate.trim();
+            if (trimmed.equals("*") || trimmed.equals(eTag)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static String fieldsSuffix(List<String> fields) {
+        if (fields == null || fields.isEmpty()) {
+            return "";
+        }
+
+        return "-" + DigestUtils.md5DigestAsHex(String.join(",", fields).getBytes(StandardCharsets.UTF_8)).substring(0, 8);
+    }
+}
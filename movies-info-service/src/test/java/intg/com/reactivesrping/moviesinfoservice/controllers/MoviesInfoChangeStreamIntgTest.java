@@ -0,0 +1,86 @@
+package com.reactivesrping.moviesinfoservice.controllers;
+
+import com.reactivesrping.moviesinfoservice.domain.MovieInfo;
+import com.reactivesrping.moviesinfoservice.domain.MovieInfoEvent;
+import com.reactivesrping.moviesinfoservice.repositories.MovieInfoRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+@ActiveProfiles("test")
+@AutoConfigureWebTestClient
+@SpringBootTest(webEnvironment = RANDOM_PORT)
+@TestPropertySource(properties = {
+    "spring.mongodb.embedded.storage.repl-set-name=rs0",
+    "stream.source=change-stream",
+    "stream.resumeTokenFlushInterval=PT0.1S"
+})
+class MoviesInfoChangeStreamIntgTest {
+    private static final String API_V1_MOVIES_INFO_PATH = "/api/v1/movies-info";
+
+    @Autowired
+    private MovieInfoRepository movieInfoRepository;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @AfterEach
+    void tearDown() {
+        movieInfoRepository.deleteAll().block();
+    }
+
+    @Test
+    void eventsIncludeWritesMadeOutsideThisInstance() {
+        final MovieInfo movieInfo = new MovieInfo("abc", "Dark Knight Rises",
+            2012, List.of("Christian Bale", "Tom Hardy"), LocalDate.parse("2012-07-20"));
+
+        final Flux<MovieInfoEvent> events = webTestClient.get()
+            .uri(API_V1_MOVIES_INFO_PATH + "/events")
+            .accept(MediaType.APPLICATION_NDJSON)
+            .exchange()
+            .expectStatus().isOk()
+            .returnResult(MovieInfoEvent.class)
+            .getResponseBody();
+
+        StepVerifier.create(events)
+            .then(() -> movieInfoRepository.save(movieInfo)
+                .flatMap(saved -> movieInfoRepository.save(saved.withName("The Dark Knight Rises")))
+                .then(movieInfoRepository.deleteById("abc"))
+                .delaySubscription(Duration.ofMillis(500))
+                .subscribe())
+            .assertNext(event -> {
+                assertThat(event.getType()).isEqualTo(MovieInfoEvent.Type.INSERT);
+                assertThat(event.getMovieInfo().getName()).isEqualTo("Dark Knight Rises");
+            })
+            .assertNext(event -> {
+                assertThat(event.getType()).isEqualTo(MovieInfoEvent.Type.UPDATE);
+                assertThat(event.getMovieInfoId()).isEqualTo("abc");
+            })
+            .assertNext(event -> {
+                assertThat(event.getType()).isEqualTo(MovieInfoEvent.Type.DELETE);
+                assertThat(event.getMovieInfoId()).isEqualTo("abc");
+            })
+            .thenCancel()
+            .verify(Duration.ofSeconds(10));
+
+        StepVerifier.create(Mono.delay(Duration.ofMillis(300)).then(movieInfoRepository.findResumeToken("movieInfos")))
+            .expectNextCount(1)
+            .verifyComplete();
+    }
+}
@@ -1,6 +1,8 @@
 package com.reactivesrping.moviesinfoservice.controllers;
 
+import com.reactivesrping.moviesinfoservice.domain.ImportSummary;
 import com.reactivesrping.moviesinfoservice.domain.MovieInfo;
+import com.reactivesrping.moviesinfoservice.domain.YearCount;
 import com.reactivesrping.moviesinfoservice.repositories.MovieInfoRepository;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -8,6 +10,8 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import org.springframework.web.method.support.UriComponentsContributor;
@@ -85,6 +89,101 @@ class MoviesInfoControllerIntgTest {
             .hasSize(3);
     }
 
+    @Test
+    void search() {
+        final MovieInfo movieInfo = new MovieInfo(null, "Batman Begins",
+            2005, List.of("Christian Bale", "Michael Cane"), LocalDate.parse("2005-06-15"));
+
+        webTestClient.post()
+            .uri(API_V1_MOVIES_INFO_PATH)
+            .bodyValue(movieInfo)
+            .exchange()
+            .expectStatus().isCreated();
+
+        webTestClient.get()
+            .uri(API_V1_MOVIES_INFO_PATH + "/search?q={q}", "bat mich")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBodyList(MovieInfo.class)
+            .hasSize(1)
+            .value(movieInfos -> assertThat(movieInfos.get(0).getName()).isEqualTo("Batman Begins"));
+    }
+
+    @Test
+    void countByYear() {
+        webTestClient.get()
+            .uri(API_V1_MOVIES_INFO_PATH + "/stats/years")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBodyList(YearCount.class)
+            .value(yearCounts -> assertThat(yearCounts)
+                .containsExactly(new YearCount(2005, 2005, 1), new YearCount(2008, 2008, 1), new YearCount(2012, 2012, 1)));
+    }
+
+    @Test
+    void countByYearBuckets() {
+        webTestClient.get()
+            .uri(API_V1_MOVIES_INFO_PATH + "/stats/years?fromYear=2006&cast={cast}&bucketSize=10", "Christian Bale")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBodyList(YearCount.class)
+            .value(yearCounts -> assertThat(yearCounts)
+                .containsExactly(new YearCount(2000, 2009, 1), new YearCount(2010, 2019, 1)));
+    }
+
+    @Test
+    void countByYearInvalidBucketSize() {
+        webTestClient.get()
+            .uri(API_V1_MOVIES_INFO_PATH + "/stats/years?bucketSize=0")
+            .exchange()
+            .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void importMovieInfos() {
+        final String body = String.join("\n",
+            "{\"name\":\"Batman Begins\",\"year\":2005,\"cast\":[\"Christian Bale\"],\"releaseDate\":\"2005-06-15\"}",
+            "{\"name\":\"Inception\",\"year\":2010,\"cast\":[\"Leonardo DiCaprio\"],\"releaseDate\":\"2010-07-16\"}",
+            "{\"name\":\"\",\"year\":2010,\"cast\":[\"Tom Hardy\"]}"
+        );
+
+        final ImportSummary summary = webTestClient.post()
+            .uri(API_V1_MOVIES_INFO_PATH + "/import")
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .bodyValue(body)
+            .exchange()
+            .expectStatus().isOk()
+            .returnResult(ImportSummary.class)
+            .getResponseBody()
+            .blockLast();
+
+        assertThat(summary).isNotNull();
+        assertThat(summary.getAccepted()).isEqualTo(2);
+        assertThat(summary.getRejected()).isEqualTo(1);
+
+        webTestClient.get()
+            .uri(API_V1_MOVIES_INFO_PATH)
+            .exchange()
+            .expectStatus().isOk()
+            .expectBodyList(MovieInfo.class)
+            .hasSize(5);
+    }
+
+    @Test
+    void export() {
+        final Flux<MovieInfo> movieInfoFlux = webTestClient.get()
+            .uri(API_V1_MOVIES_INFO_PATH + "/export?batchSize=2")
+            .accept(MediaType.APPLICATION_NDJSON)
+            .exchange()
+            .expectStatus().isOk()
+            .returnResult(MovieInfo.class)
+            .getResponseBody();
+
+        StepVerifier.create(movieInfoFlux)
+            .expectNextCount(3)
+            .verifyComplete();
+    }
+
     @Test
     void indexStream() {
         final MovieInfo movieInfo = new MovieInfo(null, "Batman Begins",
@@ -134,6 +233,52 @@ class MoviesInfoControllerIntgTest {
             .hasSize(1);
     }
 
+    @Test
+    void indexWithFields() {
+        final URI uri = UriComponentsBuilder.fromUriString(API_V1_MOVIES_INFO_PATH)
+            .queryParam("year", 2005)
+            .queryParam("fields", "name,year")
+            .buildAndExpand()
+            .toUri();
+
+        webTestClient.get()
+            .uri(uri)
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.length()").isEqualTo(1)
+            .jsonPath("$[0].name").isEqualTo("Dark Knight Rises 1")
+            .jsonPath("$[0].year").isEqualTo(2005)
+            .jsonPath("$[0].movieInfoId").doesNotExist()
+            .jsonPath("$[0].cast").doesNotExist();
+    }
+
+    @Test
+    void showWithFields() {
+        final var movieInfoId = "abc";
+
+        webTestClient.get()
+            .uri(API_V1_MOVIES_INFO_PATH + "/{id}?fields=movieInfoId,name", movieInfoId)
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.movieInfoId").isEqualTo("abc")
+            .jsonPath("$.name").isEqualTo("Dark Knight Rises")
+            .jsonPath("$.cast").doesNotExist();
+    }
+
+    @Test
+    void showWithUnknownField() {
+        final var movieInfoId = "abc";
+
+        webTestClient.get()
+            .uri(API_V1_MOVIES_INFO_PATH + "/{id}?fields=budget", movieInfoId)
+            .exchange()
+            .expectStatus().isBadRequest()
+            .expectBody(String.class)
+            .isEqualTo("fields : unknown field budget");
+    }
+
     @Test
     void show() {
         final var movieInfoId = "abc";
@@ -147,6 +292,42 @@ class MoviesInfoControllerIntgTest {
 
     }
 
+    @Test
+    void showNotModifiedUntilUpdated() {
+        final var movieInfoId = "abc";
+
+        final String eTag = webTestClient.get()
+            .uri(API_V1_MOVIES_INFO_PATH + "/{id}", movieInfoId)
+            .exchange()
+            .expectStatus().isOk()
+            .returnResult(MovieInfo.class)
+            .getResponseHeaders()
+            .getETag();
+
+        webTestClient.get()
+            .uri(API_V1_MOVIES_INFO_PATH + "/{id}", movieInfoId)
+            .header(HttpHeaders.IF_NONE_MATCH, eTag)
+            .exchange()
+            .expectStatus().isNotModified();
+
+        final MovieInfo movieInfo = new MovieInfo(null, "Dark Knight Rises 1",
+            2005, List.of("Christian Bale", "Michael Cane"), LocalDate.parse("2005-06-15"));
+
+        webTestClient.put()
+            .uri(API_V1_MOVIES_INFO_PATH + "/{id}", movieInfoId)
+            .bodyValue(movieInfo)
+            .exchange()
+            .expectStatus().isOk();
+
+        webTestClient.get()
+            .uri(API_V1_MOVIES_INFO_PATH + "/{id}", movieInfoId)
+            .header(HttpHeaders.IF_NONE_MATCH, eTag)
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.name").isEqualTo("Dark Knight Rises 1");
+    }
+
     @Test
     void update() {
         final var movieInfoId = "abc";
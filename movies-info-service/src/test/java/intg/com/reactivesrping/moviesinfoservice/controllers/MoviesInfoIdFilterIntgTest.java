@@ -0,0 +1,85 @@
+package com.reactivesrping.moviesinfoservice.controllers;
+
+import com.reactivesrping.moviesinfoservice.domain.MovieInfo;
+import com.reactivesrping.moviesinfoservice.repositories.MovieInfoRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+@ActiveProfiles("test")
+@AutoConfigureWebTestClient
+@SpringBootTest(webEnvironment = RANDOM_PORT)
+@TestPropertySource(properties = {
+    "spring.mongodb.embedded.storage.repl-set-name=rs0",
+    "stream.source=change-stream",
+    "bloomFilter.enabled=true",
+    "bloomFilter.expectedInsertions=1000"
+})
+class MoviesInfoIdFilterIntgTest {
+    private static final String API_V1_MOVIES_INFO_PATH = "/api/v1/movies-info";
+
+    @Autowired
+    private MovieInfoRepository movieInfoRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @AfterEach
+    void tearDown() {
+        movieInfoRepository.deleteAll().block();
+    }
+
+    @Test
+    void unknownIdIsAnsweredByTheFilter() throws InterruptedException {
+        final double missesBefore = misses();
+
+        // The filter is built in the background at startup; until then lookups fall through to Mongo.
+        for (int attempt = 0; attempt < 50 && misses() == missesBefore; attempt++) {
+            Thread.sleep(100);
+            webTestClient.get()
+                .uri(API_V1_MOVIES_INFO_PATH + "/{id}", "missing")
+                .exchange()
+                .expectStatus().isNotFound();
+        }
+
+        assertThat(misses()).isGreaterThan(missesBefore);
+    }
+
+    @Test
+    void idWrittenOutsideThisInstanceIsFound() throws InterruptedException {
+        movieInfoRepository.save(new MovieInfo("written-elsewhere", "Dark Knight Rises",
+            2012, List.of("Christian Bale", "Tom Hardy"), LocalDate.parse("2012-07-20"))).block();
+
+        HttpStatus status = HttpStatus.NOT_FOUND;
+        for (int attempt = 0; attempt < 50 && status == HttpStatus.NOT_FOUND; attempt++) {
+            Thread.sleep(100);
+            status = webTestClient.get()
+                .uri(API_V1_MOVIES_INFO_PATH + "/{id}", "written-elsewhere")
+                .exchange()
+                .returnResult(MovieInfo.class)
+                .getStatus();
+        }
+
+        assertThat(status).isEqualTo(HttpStatus.OK);
+    }
+
+    private double misses() {
+        return meterRegistry.get("movieinfo.idfilter.misses").counter().count();
+    }
+}
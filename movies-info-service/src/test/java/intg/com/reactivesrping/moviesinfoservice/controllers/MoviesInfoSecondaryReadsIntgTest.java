@@ -0,0 +1,84 @@
+package com.reactivesrping.moviesinfoservice.controllers;
+
+import com.reactivesrping.moviesinfoservice.domain.MovieInfo;
+import com.reactivesrping.moviesinfoservice.repositories.MovieInfoRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+@ActiveProfiles("test")
+@AutoConfigureWebTestClient
+@SpringBootTest(webEnvironment = RANDOM_PORT)
+@TestPropertySource(properties = {
+    "spring.mongodb.embedded.storage.repl-set-name=rs0",
+    "mongo.reads.readPreference=secondaryPreferred",
+    "mongo.reads.maxStalenessSeconds=90"
+})
+class MoviesInfoSecondaryReadsIntgTest {
+    private static final String API_V1_MOVIES_INFO_PATH = "/api/v1/movies-info";
+
+    @Autowired
+    private MovieInfoRepository movieInfoRepository;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @BeforeEach
+    void setUp() {
+        final var movieInfos = List.of(
+            new MovieInfo(null, "The Dark Knight",
+                2008, List.of("Christian Bale", "HeathLedger"), LocalDate.parse("2008-07-18")),
+            new MovieInfo("abc", "Dark Knight Rises",
+                2012, List.of("Christian Bale", "Tom Hardy"), LocalDate.parse("2012-07-20"))
+        );
+
+        movieInfoRepository.saveAll(movieInfos).blockLast();
+    }
+
+    @AfterEach
+    void tearDown() {
+        movieInfoRepository.deleteAll().block();
+    }
+
+    @Test
+    void index() {
+        webTestClient.get()
+            .uri(API_V1_MOVIES_INFO_PATH + "?year=2012")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBodyList(MovieInfo.class)
+            .hasSize(1);
+    }
+
+    @Test
+    void updateThenShow() {
+        final MovieInfo movieInfo = new MovieInfo(null, "Dark Knight Rises 1",
+            2012, List.of("Christian Bale", "Tom Hardy"), LocalDate.parse("2012-07-20"));
+
+        webTestClient.put()
+            .uri(API_V1_MOVIES_INFO_PATH + "/{id}", "abc")
+            .bodyValue(movieInfo)
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.name").isEqualTo("Dark Knight Rises 1");
+
+        webTestClient.get()
+            .uri(API_V1_MOVIES_INFO_PATH + "/{id}", "abc")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.name").isEqualTo("Dark Knight Rises 1");
+    }
+}
@@ -0,0 +1,202 @@
+package com.reactivesrping.moviesinfoservice.configs;
+
+import com.reactivespring.common.config.EventLoopLagMonitor;
+import com.reactivespring.common.stream.StreamScheduler;
+import com.reactivespring.common.stream.SubscriberBuffer;
+import com.reactivesrping.moviesinfoservice.controllers.FluxAndMonoController;
+import com.reactivesrping.moviesinfoservice.controllers.MoviesInfoController;
+import com.reactivesrping.moviesinfoservice.domain.MovieInfo;
+import com.reactivesrping.moviesinfoservice.services.MovieInfoEventStream;
+import com.reactivesrping.moviesinfoservice.services.MovieInfoExportService;
+import com.reactivesrping.moviesinfoservice.services.MovieInfoImportService;
+import com.reactivesrping.moviesinfoservice.services.MovieInfoJsonCache;
+import com.reactivesrping.moviesinfoservice.services.MoviesInfoService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@AutoConfigureWebTestClient
+@Import({
+    MovieInfoImportService.class, MovieInfoExportService.class, MovieInfoJsonCache.class,
+    SubscriberBuffer.class, StreamScheduler.class, EventLoopLagMonitor.class, SimpleMeterRegistry.class
+})
+@WebFluxTest({MoviesInfoController.class, FluxAndMonoController.class})
+@TestPropertySource(properties = {"compression.minResponseSize=256", "compression.level=1"})
+class CompressionWebFilterTest {
+    private static final String API_V1_MOVIES_INFO_PATH = "/api/v1/movies-info";
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @MockBean
+    private MoviesInfoService moviesInfoService;
+
+    @MockBean
+    private MovieInfoEventStream movieInfoEventStream;
+
+    private List<MovieInfo> movieInfos;
+
+    @BeforeEach
+    void setUp() {
+        movieInfos = List.of(
+            new MovieInfo(null, "Dark Knight Rises 1",
+                2005, List.of("Christian Bale", "Michael Cane"), LocalDate.parse("2005-06-15")),
+            new MovieInfo(null, "The Dark Knight",
+                2008, List.of("Christian Bale", "HeathLedger"), LocalDate.parse("2008-07-18")),
+            new MovieInfo("abc", "Dark Knight Rises",
+                2012, List.of("Christian Bale", "Tom Hardy"), LocalDate.parse("2012-07-20"))
+        );
+    }
+
+    @Test
+    void indexGzip() throws IOException {
+        when(moviesInfoService.findAll()).thenReturn(Flux.fromIterable(movieInfos));
+
+        final byte[] body = webTestClient.get()
+            .uri(API_V1_MOVIES_INFO_PATH)
+            .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate")
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().valueEquals(HttpHeaders.CONTENT_ENCODING, "gzip")
+            .expectHeader().valueEquals(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+            .expectBody().returnResult()
+            .getResponseBody();
+
+        assertThat(decompress(new GZIPInputStream(new ByteArrayInputStream(Objects.requireNonNull(body)))))
+            .contains("\"name\":\"Dark Knight Rises 1\"", "\"name\":\"The Dark Knight\"");
+    }
+
+    @Test
+    void indexDeflate() throws IOException {
+        when(moviesInfoService.findAll()).thenReturn(Flux.fromIterable(movieInfos));
+
+        final byte[] body = webTestClient.get()
+            .uri(API_V1_MOVIES_INFO_PATH)
+            .header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, deflate")
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().valueEquals(HttpHeaders.CONTENT_ENCODING, "deflate")
+            .expectBody().returnResult()
+            .getResponseBody();
+
+        assertThat(decompress(new InflaterInputStream(new ByteArrayInputStream(Objects.requireNonNull(body)))))
+            .contains("\"name\":\"Dark Knight Rises\"");
+    }
+
+    @Test
+    void indexIdentity() {
+        when(moviesInfoService.findAll()).thenReturn(Flux.fromIterable(movieInfos));
+
+        webTestClient.get()
+            .uri(API_V1_MOVIES_INFO_PATH)
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().doesNotExist(HttpHeaders.CONTENT_ENCODING)
+            .expectBodyList(MovieInfo.class)
+            .hasSize(3);
+    }
+
+    @Test
+    void showBelowMinResponseSize() {
+        when(moviesInfoService.findById(eq("abc"))).thenReturn(Mono.just(movieInfos.get(2)));
+
+        webTestClient.get()
+            .uri(API_V1_MOVIES_INFO_PATH + "/{id}", "abc")
+            .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().doesNotExist(HttpHeaders.CONTENT_ENCODING)
+            .expectBody()
+            .jsonPath("$.name").isEqualTo("Dark Knight Rises");
+    }
+
+    @Test
+    void streamFlushedPerEvent() {
+        final Flux<DataBuffer> body = webTestClient.get()
+            .uri("/stream")
+            .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().valueEquals(HttpHeaders.CONTENT_ENCODING, "gzip")
+            .returnResult(DataBuffer.class)
+            .getResponseBody();
+
+        final Flux<String> inflated = body
+            .map(buffer -> {
+                final byte[] bytes = new byte[buffer.readableByteCount()];
+                buffer.read(bytes);
+                DataBufferUtils.release(buffer);
+                return bytes;
+            })
+            .scan(new byte[0], this::concat)
+            .map(this::inflateGzipPrefix);
+
+        StepVerifier.create(inflated.filter(text -> text.contains("data:1")).next())
+            .assertNext(text -> assertThat(text).startsWith("data:0"))
+            .expectComplete()
+            .verify(Duration.ofSeconds(10));
+    }
+
+    private String decompress(InputStream inputStream) throws IOException {
+        try (inputStream) {
+            return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private byte[] concat(byte[] first, byte[] second) {
+        final byte[] result = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+
+    private String inflateGzipPrefix(byte[] bytes) {
+        final int gzipHeaderLength = 10;
+
+        if (bytes.length <= gzipHeaderLength) {
+            return "";
+        }
+
+        final Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(bytes, gzipHeaderLength, bytes.length - gzipHeaderLength);
+            final byte[] output = new byte[4096];
+            final int length = inflater.inflate(output);
+            return new String(output, 0, length, StandardCharsets.UTF_8);
+        } catch (DataFormatException ex) {
+            throw new IllegalStateException(ex);
+        } finally {
+            inflater.end();
+        }
+    }
+}
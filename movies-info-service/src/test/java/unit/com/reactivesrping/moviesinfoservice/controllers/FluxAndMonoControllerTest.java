@@ -1,9 +1,13 @@
 package com.reactivesrping.moviesinfoservice.controllers;
 
+import com.reactivespring.common.config.EventLoopLagMonitor;
+import com.reactivespring.common.stream.StreamScheduler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import reactor.core.publisher.Flux;
 import reactor.test.StepVerifier;
@@ -14,6 +18,7 @@ import java.util.Objects;
 import static org.assertj.core.api.Assertions.assertThat;
 
 @AutoConfigureWebTestClient
+@Import({StreamScheduler.class, EventLoopLagMonitor.class, SimpleMeterRegistry.class})
 @WebFluxTest(FluxAndMonoController.class)
 class FluxAndMonoControllerTest {
     @Autowired
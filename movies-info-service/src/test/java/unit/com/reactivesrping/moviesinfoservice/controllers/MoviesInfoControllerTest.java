@@ -1,7 +1,18 @@
 package com.reactivesrping.moviesinfoservice.controllers;
 
+import com.reactivespring.common.config.EventLoopLagMonitor;
+import com.reactivespring.common.stream.StreamScheduler;
+import com.reactivespring.common.stream.SubscriberBuffer;
+import com.reactivesrping.moviesinfoservice.domain.ImportError;
+import com.reactivesrping.moviesinfoservice.domain.ImportSummary;
 import com.reactivesrping.moviesinfoservice.domain.MovieInfo;
+import com.reactivesrping.moviesinfoservice.domain.YearCount;
+import com.reactivesrping.moviesinfoservice.services.MovieInfoEventStream;
+import com.reactivesrping.moviesinfoservice.services.MovieInfoExportService;
+import com.reactivesrping.moviesinfoservice.services.MovieInfoImportService;
+import com.reactivesrping.moviesinfoservice.services.MovieInfoJsonCache;
 import com.reactivesrping.moviesinfoservice.services.MoviesInfoService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -9,6 +20,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -18,11 +32,20 @@ import java.util.List;
 import java.util.Objects;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @AutoConfigureWebTestClient
+@Import({
+    MovieInfoImportService.class, MovieInfoExportService.class, MovieInfoJsonCache.class,
+    SubscriberBuffer.class, StreamScheduler.class, EventLoopLagMonitor.class, SimpleMeterRegistry.class
+})
 @WebFluxTest(MoviesInfoController.class)
 class MoviesInfoControllerTest {
     private static final String API_V1_MOVIES_INFO_PATH = "/api/v1/movies-info";
@@ -33,6 +56,9 @@ class MoviesInfoControllerTest {
     @MockBean
     private MoviesInfoService moviesInfoService;
 
+    @MockBean
+    private MovieInfoEventStream movieInfoEventStream;
+
     private List<MovieInfo> movieInfos;
 
     @BeforeEach
@@ -77,6 +103,184 @@ class MoviesInfoControllerTest {
             .jsonPath("$.name").isEqualTo("Dark Knight Rises");
     }
 
+    @Test
+    void indexWithFields() {
+        when(moviesInfoService.findAll(eq(List.of("name", "year"))))
+            .thenReturn(Flux.fromIterable(movieInfos).map(it -> new MovieInfo(null, it.getName(), it.getYear(), null, null)));
+
+        webTestClient.get()
+            .uri(API_V1_MOVIES_INFO_PATH + "?fields=name,year")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.length()").isEqualTo(3)
+            .jsonPath("$[0].name").isEqualTo("Dark Knight Rises 1")
+            .jsonPath("$[0].cast").doesNotExist()
+            .jsonPath("$[0].releaseDate").doesNotExist();
+    }
+
+    @Test
+    void showWithFields() {
+        when(moviesInfoService.findById(eq("abc"), eq(List.of("movieInfoId", "name"))))
+            .thenReturn(Mono.just(new MovieInfo("abc", "Dark Knight Rises", null, null, null)));
+
+        webTestClient.get()
+            .uri(API_V1_MOVIES_INFO_PATH + "/{id}?fields=movieInfoId,name", "abc")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.movieInfoId").isEqualTo("abc")
+            .jsonPath("$.name").isEqualTo("Dark Knight Rises")
+            .jsonPath("$.year").doesNotExist()
+            .jsonPath("$.cast").doesNotExist();
+    }
+
+    @Test
+    void indexWithUnknownField() {
+        webTestClient.get()
+            .uri(API_V1_MOVIES_INFO_PATH + "?year=2005&fields=name,bogus")
+            .exchange()
+            .expectStatus().isBadRequest()
+            .expectBody(String.class)
+            .isEqualTo("fields : unknown field bogus");
+
+        verify(moviesInfoService, never()).findByYear(anyInt(), anyList());
+    }
+
+    @Test
+    void showWithIgnoredField() {
+        webTestClient.get()
+            .uri(API_V1_MOVIES_INFO_PATH + "/{id}?fields=name,version", "abc")
+            .header(HttpHeaders.IF_NONE_MATCH, "\"abc-0\"")
+            .exchange()
+            .expectStatus().isBadRequest()
+            .expectBody(String.class)
+            .isEqualTo("fields : unknown field version");
+
+        verify(moviesInfoService, never()).findVersionById(isA(String.class));
+    }
+
+    @Test
+    void indexByYearNotModified() {
+        when(moviesInfoService.findByYear(eq(2005))).thenReturn(Flux.fromIterable(movieInfos));
+
+        final String eTag = webTestClient.get()
+            .uri(API_V1_MOVIES_INFO_PATH + "?year=2005")
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().exists(HttpHeaders.ETAG)
+            .returnResult(MovieInfo.class)
+            .getResponseHeaders()
+            .getETag();
+
+        webTestClient.get()
+            .uri(API_V1_MOVIES_INFO_PATH + "?year=2005")
+            .header(HttpHeaders.IF_NONE_MATCH, eTag)
+            .exchange()
+            .expectStatus().isNotModified()
+            .expectBody().isEmpty();
+    }
+
+    @Test
+    void indexIsStreamedWithoutETag() {
+        when(moviesInfoService.findAll()).thenReturn(Flux.fromIterable(movieInfos));
+
+        webTestClient.get()
+            .uri(API_V1_MOVIES_INFO_PATH)
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().doesNotExist(HttpHeaders.ETAG)
+            .expectBodyList(MovieInfo.class)
+            .hasSize(3);
+    }
+
+    @Test
+    void showNotModified() {
+        when(moviesInfoService.findVersionById(eq("abc"))).thenReturn(Mono.just(2L));
+
+        webTestClient.get()
+            .uri(API_V1_MOVIES_INFO_PATH + "/{id}", "abc")
+            .header(HttpHeaders.IF_NONE_MATCH, "\"abc-2\"")
+            .exchange()
+            .expectStatus().isNotModified()
+            .expectHeader().valueEquals(HttpHeaders.ETAG, "\"abc-2\"")
+            .expectBody().isEmpty();
+
+        verify(moviesInfoService, never()).findById(eq("abc"));
+    }
+
+    @Test
+    void showModified() {
+        when(moviesInfoService.findVersionById(eq("abc"))).thenReturn(Mono.just(3L));
+        when(moviesInfoService.findById(eq("abc"))).thenReturn(Mono.just(movieInfos.get(2).withVersion(3L)));
+
+        webTestClient.get()
+            .uri(API_V1_MOVIES_INFO_PATH + "/{id}", "abc")
+            .header(HttpHeaders.IF_NONE_MATCH, "\"abc-2\"")
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().valueEquals(HttpHeaders.ETAG, "\"abc-3\"")
+            .expectBody()
+            .jsonPath("$.name").isEqualTo("Dark Knight Rises");
+    }
+
+    @Test
+    void export() {
+        when(moviesInfoService.findAllForExport(eq(2), eq(false))).thenReturn(Flux.fromIterable(movieInfos));
+
+        final String body = webTestClient.get()
+            .uri(API_V1_MOVIES_INFO_PATH + "/export?batchSize=2")
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().contentType(MediaType.APPLICATION_NDJSON)
+            .expectBody(String.class)
+            .returnResult()
+            .getResponseBody();
+
+        assertThat(body).isNotNull();
+        assertThat(body.split("\n"))
+            .hasSize(3)
+            .allMatch(line -> line.startsWith("{") && line.endsWith("}"));
+        assertThat(body).contains("\"name\":\"Dark Knight Rises\"");
+    }
+
+    @Test
+    void exportInvalidBatchSize() {
+        webTestClient.get()
+            .uri(API_V1_MOVIES_INFO_PATH + "/export?batchSize=0")
+            .exchange()
+            .expectStatus().isBadRequest();
+
+        verify(moviesInfoService, never()).findAllForExport(anyInt(), anyBoolean());
+    }
+
+    @Test
+    void search() {
+        when(moviesInfoService.search(eq("dark kni"), eq(20))).thenReturn(Flux.fromIterable(movieInfos.subList(1, 3)));
+
+        webTestClient.get()
+            .uri(API_V1_MOVIES_INFO_PATH + "/search?q={q}", "dark kni")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBodyList(MovieInfo.class)
+            .hasSize(2);
+    }
+
+    @Test
+    void countByYear() {
+        when(moviesInfoService.countByYear(eq(2000), eq(2019), eq("Christian Bale"), eq(10)))
+            .thenReturn(Flux.just(new YearCount(2000, 2009, 2), new YearCount(2010, 2019, 1)));
+
+        webTestClient.get()
+            .uri(API_V1_MOVIES_INFO_PATH + "/stats/years?fromYear=2000&toYear=2019&cast={cast}&bucketSize=10",
+                "Christian Bale")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBodyList(YearCount.class)
+            .value(yearCounts -> assertThat(yearCounts)
+                .containsExactly(new YearCount(2000, 2009, 2), new YearCount(2010, 2019, 1)));
+    }
+
     @Test
     void create() {
         final MovieInfo movieInfo = new MovieInfo(null, "Batman Begins",
@@ -119,6 +323,37 @@ class MoviesInfoControllerTest {
             });
     }
 
+    @Test
+    void importMovieInfos() {
+        when(moviesInfoService.createAll(anyList()))
+            .thenAnswer(invocation -> Flux.fromIterable(invocation.<List<MovieInfo>>getArgument(0)));
+
+        final String body = String.join("\n",
+            "{\"name\":\"Batman Begins\",\"year\":2005,\"cast\":[\"Christian Bale\"]}",
+            "",
+            "{\"name\":\"The Dark Knight\",\"year\":2008,\"cast\":[\"Christian Bale\"]}",
+            "{\"name\":\"Broken\",",
+            "{\"name\":\"\",\"year\":2012,\"cast\":[\"Tom Hardy\"]}"
+        );
+
+        final ImportSummary summary = webTestClient.post()
+            .uri(API_V1_MOVIES_INFO_PATH + "/import")
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .bodyValue(body)
+            .exchange()
+            .expectStatus().isOk()
+            .returnResult(ImportSummary.class)
+            .getResponseBody()
+            .blockLast();
+
+        assertThat(summary).isNotNull();
+        assertThat(summary.getAccepted()).isEqualTo(2);
+        assertThat(summary.getRejected()).isEqualTo(2);
+        assertThat(summary.getErrors())
+            .extracting(ImportError::getLine)
+            .containsExactly(4L, 5L);
+    }
+
     @Test
     void update() {
         final var movieInfoId = "abc";
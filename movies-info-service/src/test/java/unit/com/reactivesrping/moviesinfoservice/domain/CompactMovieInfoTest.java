@@ -0,0 +1,45 @@
+package com.reactivesrping.moviesinfoservice.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompactMovieInfoTest {
+    @Test
+    void roundTripsMovieInfo() {
+        final MovieInfo movieInfo = new MovieInfo("abc", "Dark Knight Rises",
+            2012, List.of("Christian Bale", "Tom Hardy"), LocalDate.parse("2012-07-20"), 3L);
+
+        assertThat(CompactMovieInfo.of(movieInfo).toMovieInfo()).isEqualTo(movieInfo);
+    }
+
+    @Test
+    void roundTripsMissingFields() {
+        final MovieInfo movieInfo = new MovieInfo("abc", "Dark Knight Rises", null, null, null);
+
+        assertThat(CompactMovieInfo.of(movieInfo).toMovieInfo()).isEqualTo(movieInfo);
+    }
+
+    @Test
+    void sharesCastNamesAcrossMovies() {
+        final CompactMovieInfo first = CompactMovieInfo.of(new MovieInfo("abc", "Batman Begins",
+            2005, List.of(new String("Christian Bale")), LocalDate.parse("2005-06-15")));
+        final CompactMovieInfo second = CompactMovieInfo.of(new MovieInfo("def", "The Dark Knight",
+            2008, List.of(new String("Christian Bale")), LocalDate.parse("2008-07-18")));
+
+        assertThat(first.toMovieInfo().getCast().get(0)).isSameAs(second.toMovieInfo().getCast().get(0));
+    }
+
+    @Test
+    void toMovieInfoDoesNotExposeCachedCast() {
+        final CompactMovieInfo compactMovieInfo = CompactMovieInfo.of(new MovieInfo("abc", "Batman Begins",
+            2005, List.of("Christian Bale"), LocalDate.parse("2005-06-15")));
+
+        compactMovieInfo.toMovieInfo().getCast().set(0, "Michael Caine");
+
+        assertThat(compactMovieInfo.toMovieInfo().getCast()).containsExactly("Christian Bale");
+    }
+}
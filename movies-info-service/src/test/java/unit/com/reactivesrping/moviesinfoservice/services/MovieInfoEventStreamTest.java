@@ -0,0 +1,152 @@
+package com.reactivesrping.moviesinfoservice.services;
+
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import com.reactivesrping.moviesinfoservice.domain.MovieInfo;
+import com.reactivesrping.moviesinfoservice.domain.MovieInfoEvent;
+import com.reactivesrping.moviesinfoservice.repositories.MovieInfoRepository;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MovieInfoEventStreamTest {
+    private MovieInfoRepository movieInfoRepository;
+
+    private Sinks.Many<ChangeStreamEvent<MovieInfo>> changes;
+
+    private MovieInfoEventStream movieInfoEventStream;
+
+    private MovieInfo movieInfo;
+
+    @BeforeEach
+    void setUp() {
+        movieInfoRepository = Mockito.mock(MovieInfoRepository.class);
+        changes = Sinks.many().unicast().onBackpressureBuffer();
+        when(movieInfoRepository.watch(any())).thenReturn(changes.asFlux());
+        when(movieInfoRepository.saveResumeToken(any(), any())).thenReturn(Mono.empty());
+
+        movieInfo = new MovieInfo("abc", "Dark Knight Rises",
+            2012, List.of("Christian Bale", "Tom Hardy"), LocalDate.parse("2012-07-20"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (movieInfoEventStream != null) {
+            movieInfoEventStream.stop();
+        }
+    }
+
+    @Test
+    void localSourcePublishesWrites() {
+        movieInfoEventStream = new MovieInfoEventStream(movieInfoRepository, "local", "movieInfos", Duration.ofSeconds(1));
+        movieInfoEventStream.start();
+
+        StepVerifier.create(movieInfoEventStream.events())
+            .then(() -> {
+                movieInfoEventStream.publish(MovieInfoEvent.Type.INSERT, "abc", movieInfo);
+                movieInfoEventStream.publish(MovieInfoEvent.Type.DELETE, "abc", null);
+            })
+            .expectNext(new MovieInfoEvent(MovieInfoEvent.Type.INSERT, "abc", movieInfo))
+            .expectNext(new MovieInfoEvent(MovieInfoEvent.Type.DELETE, "abc", null))
+            .thenCancel()
+            .verify();
+
+        verify(movieInfoRepository, never()).watch(any());
+    }
+
+    @Test
+    void changeStreamSourceEmitsTypedEventsAndSavesResumeToken() {
+        when(movieInfoRepository.findResumeToken("movieInfos")).thenReturn(Mono.empty());
+        movieInfoEventStream = new MovieInfoEventStream(
+            movieInfoRepository, "change-stream", "movieInfos", Duration.ofMillis(10)
+        );
+        movieInfoEventStream.start();
+
+        StepVerifier.create(movieInfoEventStream.events())
+            .then(() -> {
+                changes.tryEmitNext(change(OperationType.INSERT, "1", movieInfo));
+                changes.tryEmitNext(change(OperationType.REPLACE, "2", movieInfo));
+                changes.tryEmitNext(change(OperationType.DELETE, "3", null));
+                movieInfoEventStream.publish(MovieInfoEvent.Type.INSERT, "ignored", movieInfo);
+            })
+            .expectNext(new MovieInfoEvent(MovieInfoEvent.Type.INSERT, "abc", movieInfo))
+            .expectNext(new MovieInfoEvent(MovieInfoEvent.Type.UPDATE, "abc", movieInfo))
+            .expectNext(new MovieInfoEvent(MovieInfoEvent.Type.DELETE, "abc", null))
+            .thenCancel()
+            .verify();
+
+        verify(movieInfoRepository, timeout(1000)).saveResumeToken("movieInfos", resumeToken("3"));
+    }
+
+    @Test
+    void changeStreamSourceResumesAfterSavedToken() {
+        when(movieInfoRepository.findResumeToken("movieInfos")).thenReturn(Mono.just(resumeToken("7")));
+        movieInfoEventStream = new MovieInfoEventStream(
+            movieInfoRepository, "change-stream", "movieInfos", Duration.ofSeconds(1)
+        );
+
+        movieInfoEventStream.start();
+
+        verify(movieInfoRepository).watch(eq(resumeToken("7")));
+    }
+
+    @Test
+    void changeStreamSourceRestartsAfterInvalidate() {
+        final Sinks.Many<ChangeStreamEvent<MovieInfo>> restarted = Sinks.many().unicast().onBackpressureBuffer();
+        when(movieInfoRepository.findResumeToken("movieInfos")).thenReturn(Mono.empty());
+        when(movieInfoRepository.watch(eq(resumeToken("9")))).thenReturn(restarted.asFlux());
+        movieInfoEventStream = new MovieInfoEventStream(
+            movieInfoRepository, "change-stream", "movieInfos", Duration.ofSeconds(1)
+        );
+        movieInfoEventStream.start();
+
+        StepVerifier.create(movieInfoEventStream.events())
+            .then(() -> {
+                changes.tryEmitNext(change(OperationType.INVALIDATE, "9", null));
+                changes.tryEmitComplete();
+            })
+            .then(() -> verify(movieInfoRepository, timeout(3000)).watch(eq(resumeToken("9"))))
+            .then(() -> restarted.tryEmitNext(change(OperationType.INSERT, "10", movieInfo)))
+            .expectNext(new MovieInfoEvent(MovieInfoEvent.Type.INSERT, "abc", movieInfo))
+            .thenCancel()
+            .verify(Duration.ofSeconds(5));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ChangeStreamEvent<MovieInfo> change(OperationType operationType, String token, MovieInfo body) {
+        final ChangeStreamDocument<Document> raw = new ChangeStreamDocument<>(
+            operationType.getValue(), resumeToken(token), null, null, null,
+            new BsonDocument("_id", new BsonString("abc")), null, null, null, null
+        );
+        final ChangeStreamEvent<MovieInfo> change = Mockito.mock(ChangeStreamEvent.class);
+        when(change.getOperationType()).thenReturn(operationType);
+        when(change.getRaw()).thenReturn(raw);
+        when(change.getBody()).thenReturn(body);
+        when(change.getResumeToken()).thenReturn(resumeToken(token));
+
+        return change;
+    }
+
+    private static BsonDocument resumeToken(String token) {
+        return new BsonDocument("_data", new BsonString(token));
+    }
+}
@@ -0,0 +1,104 @@
+package com.reactivesrping.moviesinfoservice.services;
+
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import com.reactivesrping.moviesinfoservice.domain.MovieInfo;
+import com.reactivesrping.moviesinfoservice.repositories.MovieInfoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MovieInfoIdFilterTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private MovieInfoRepository movieInfoRepository;
+
+    private Sinks.Many<ChangeStreamEvent<MovieInfo>> changes;
+
+    private MovieInfoEventStream movieInfoEventStream;
+
+    @BeforeEach
+    void setUp() {
+        movieInfoRepository = Mockito.mock(MovieInfoRepository.class);
+        changes = Sinks.many().unicast().onBackpressureBuffer();
+        when(movieInfoRepository.watch(any())).thenReturn(changes.asFlux());
+        when(movieInfoRepository.findResumeToken("movieInfos")).thenReturn(Mono.empty());
+        when(movieInfoRepository.saveResumeToken(any(), any())).thenReturn(Mono.empty());
+        when(movieInfoRepository.findAllIds()).thenReturn(Flux.just("abc"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        movieInfoEventStream.stop();
+    }
+
+    @Test
+    void learnsIdsInsertedThroughOtherInstances() {
+        movieInfoEventStream = new MovieInfoEventStream(
+            movieInfoRepository, "change-stream", "movieInfos", Duration.ofSeconds(1)
+        );
+        final MovieInfoIdFilter movieInfoIdFilter = filter(movieInfoEventStream);
+        movieInfoEventStream.start();
+        movieInfoIdFilter.rebuild();
+
+        assertThat(movieInfoIdFilter.mightContain("def")).isFalse();
+
+        changes.tryEmitNext(insert("def"));
+
+        assertThat(movieInfoIdFilter.mightContain("abc")).isTrue();
+        assertThat(movieInfoIdFilter.mightContain("def")).isTrue();
+    }
+
+    @Test
+    void fallsThroughWithoutChangeStream() {
+        movieInfoEventStream = new MovieInfoEventStream(
+            movieInfoRepository, "local", "movieInfos", Duration.ofSeconds(1)
+        );
+        final MovieInfoIdFilter movieInfoIdFilter = filter(movieInfoEventStream);
+        movieInfoIdFilter.rebuild();
+
+        assertThat(movieInfoIdFilter.mightContain("written-elsewhere")).isTrue();
+        verify(movieInfoRepository, never()).findAllIds();
+    }
+
+    private MovieInfoIdFilter filter(MovieInfoEventStream movieInfoEventStream) {
+        return new MovieInfoIdFilter(movieInfoRepository, movieInfoEventStream, meterRegistry, true, 1000, 0.01);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ChangeStreamEvent<MovieInfo> insert(String movieInfoId) {
+        final MovieInfo movieInfo = new MovieInfo(movieInfoId, "Dark Knight Rises",
+            2012, List.of("Christian Bale", "Tom Hardy"), LocalDate.parse("2012-07-20"));
+        final BsonDocument resumeToken = new BsonDocument("_data", new BsonString(movieInfoId));
+        final ChangeStreamDocument<Document> raw = new ChangeStreamDocument<>(
+            OperationType.INSERT.getValue(), resumeToken, null, null, null,
+            new BsonDocument("_id", new BsonString(movieInfoId)), null, null, null, null
+        );
+        final ChangeStreamEvent<MovieInfo> change = Mockito.mock(ChangeStreamEvent.class);
+        when(change.getOperationType()).thenReturn(OperationType.INSERT);
+        when(change.getRaw()).thenReturn(raw);
+        when(change.getBody()).thenReturn(movieInfo);
+        when(change.getResumeToken()).thenReturn(resumeToken);
+
+        return change;
+    }
+}
@@ -0,0 +1,71 @@
+package com.reactivesrping.moviesinfoservice.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.reactivesrping.moviesinfoservice.domain.ImportSummary;
+import com.reactivesrping.moviesinfoservice.domain.MovieInfo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import javax.validation.Validation;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+class MovieInfoImportServiceTest {
+    private static final int BATCH_SIZE = 50;
+
+    private MoviesInfoService moviesInfoService;
+
+    private MovieInfoImportService movieInfoImportService;
+
+    @BeforeEach
+    void setUp() {
+        moviesInfoService = Mockito.mock(MoviesInfoService.class);
+        movieInfoImportService = new MovieInfoImportService(
+            moviesInfoService,
+            new ObjectMapper().registerModule(new JavaTimeModule()),
+            Validation.buildDefaultValidatorFactory().getValidator(),
+            BATCH_SIZE,
+            3
+        );
+
+        when(moviesInfoService.createAll(anyList()))
+            .thenAnswer(invocation -> Flux.fromIterable(invocation.<List<MovieInfo>>getArgument(0))
+                .delaySubscription(Duration.ofMillis(1)));
+    }
+
+    @Test
+    void importIsBackpressuredByWrites() {
+        final AtomicLong maxRequested = new AtomicLong();
+        final Flux<String> lines = Flux.range(0, 10_000)
+            .map(i -> i % 100 == 0
+                ? "{\"name\":\"\",\"year\":2005,\"cast\":[\"Christian Bale\"]}"
+                : "{\"name\":\"Movie " + i + "\",\"year\":2005,\"cast\":[\"Christian Bale\"],\"releaseDate\":\"2005-06-15\"}")
+            .doOnRequest(requested -> maxRequested.accumulateAndGet(requested, Math::max));
+
+        StepVerifier.create(movieInfoImportService.importMovieInfos(lines).last())
+            .assertNext(summary -> {
+                assertThat(summary.getAccepted()).isEqualTo(9_900);
+                assertThat(summary.getRejected()).isEqualTo(100);
+                assertThat(summary.getErrors()).hasSize(3);
+            })
+            .verifyComplete();
+
+        assertThat(maxRequested.get()).isLessThanOrEqualTo(BATCH_SIZE);
+    }
+
+    @Test
+    void importEmptyBody() {
+        StepVerifier.create(movieInfoImportService.importMovieInfos(Flux.empty()))
+            .expectNext(new ImportSummary(0, 0, List.of()))
+            .verifyComplete();
+    }
+}
@@ -0,0 +1,66 @@
+package com.reactivesrping.moviesinfoservice.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reactivesrping.moviesinfoservice.domain.MovieInfo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MovieInfoJsonCacheTest {
+    private ObjectMapper objectMapper;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private MovieInfo movieInfo;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = new ObjectMapper().findAndRegisterModules();
+        meterRegistry = new SimpleMeterRegistry();
+        movieInfo = new MovieInfo("abc", "Dark Knight Rises",
+            2012, List.of("Christian Bale", "Tom Hardy"), LocalDate.parse("2012-07-20"));
+    }
+
+    @Test
+    void encodeReusesBytesForSameVersion() throws IOException {
+        final MovieInfoJsonCache movieInfoJsonCache = new MovieInfoJsonCache(objectMapper, meterRegistry, 1 << 20);
+
+        final byte[] first = movieInfoJsonCache.encode(movieInfo);
+        final byte[] second = movieInfoJsonCache.encode(movieInfo);
+
+        assertThat(second).isSameAs(first);
+        assertThat(objectMapper.readValue(first, MovieInfo.class)).isEqualTo(movieInfo);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "movieInfoJson").tag("result", "hit")
+            .functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void encodeReplacesBytesForNewerVersion() throws IOException {
+        final MovieInfoJsonCache movieInfoJsonCache = new MovieInfoJsonCache(objectMapper, meterRegistry, 1 << 20);
+        final byte[] first = movieInfoJsonCache.encode(movieInfo);
+
+        movieInfo.setName("The Dark Knight Rises");
+        movieInfo.setVersion(1);
+        final byte[] second = movieInfoJsonCache.encode(movieInfo);
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(objectMapper.readValue(second, MovieInfo.class).getName()).isEqualTo("The Dark Knight Rises");
+        assertThat(movieInfoJsonCache.encode(movieInfo)).isSameAs(second);
+    }
+
+    @Test
+    void invalidateDropsBytes() {
+        final MovieInfoJsonCache movieInfoJsonCache = new MovieInfoJsonCache(objectMapper, meterRegistry, 1 << 20);
+        final byte[] first = movieInfoJsonCache.encode(movieInfo);
+
+        movieInfoJsonCache.invalidate("abc");
+
+        assertThat(movieInfoJsonCache.encode(movieInfo)).isNotSameAs(first).isEqualTo(first);
+    }
+}
@@ -0,0 +1,123 @@
+package com.reactivesrping.moviesinfoservice.services;
+
+import com.reactivesrping.moviesinfoservice.domain.MovieInfo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MovieInfoSearchIndexTest {
+    private MovieInfoSearchIndex movieInfoSearchIndex;
+
+    @BeforeEach
+    void setUp() {
+        movieInfoSearchIndex = new MovieInfoSearchIndex();
+
+        List.of(
+            new MovieInfo("1", "Batman Begins",
+                2005, List.of("Christian Bale", "Michael Cane"), LocalDate.parse("2005-06-15")),
+            new MovieInfo("2", "The Dark Knight",
+                2008, List.of("Christian Bale", "HeathLedger"), LocalDate.parse("2008-07-18")),
+            new MovieInfo("3", "Dark Knight Rises",
+                2012, List.of("Christian Bale", "Tom Hardy"), LocalDate.parse("2012-07-20")),
+            new MovieInfo("4", "Amélie",
+                2001, List.of("Audrey Tautou"), LocalDate.parse("2001-04-25"))
+        ).forEach(movieInfoSearchIndex::index);
+    }
+
+    @Test
+    void searchByNamePrefix() {
+        assertThat(movieInfoSearchIndex.search("dar kni", 10))
+            .extracting(MovieInfo::getMovieInfoId)
+            .containsExactly("2", "3");
+    }
+
+    @Test
+    void searchByCastPrefix() {
+        assertThat(movieInfoSearchIndex.search("tom", 10))
+            .extracting(MovieInfo::getMovieInfoId)
+            .containsExactly("3");
+
+        assertThat(movieInfoSearchIndex.search("bale", 10))
+            .hasSize(3);
+    }
+
+    @Test
+    void searchIgnoresCaseAndDiacritics() {
+        assertThat(movieInfoSearchIndex.search("AME", 10))
+            .extracting(MovieInfo::getMovieInfoId)
+            .containsExactly("4");
+    }
+
+    @Test
+    void searchRespectsLimit() {
+        assertThat(movieInfoSearchIndex.search("christian", 2))
+            .extracting(MovieInfo::getMovieInfoId)
+            .containsExactly("1", "2");
+    }
+
+    @Test
+    void searchWithoutMatches() {
+        assertThat(movieInfoSearchIndex.search("batman tom", 10)).isEmpty();
+        assertThat(movieInfoSearchIndex.search("  ", 10)).isEmpty();
+    }
+
+    @Test
+    void reindexReplacesOldTerms() {
+        movieInfoSearchIndex.index(new MovieInfo("1", "Batman Returns",
+            1992, List.of("Michael Keaton"), LocalDate.parse("1992-06-19")));
+
+        assertThat(movieInfoSearchIndex.search("begins", 10)).isEmpty();
+        assertThat(movieInfoSearchIndex.search("keat", 10))
+            .extracting(MovieInfo::getName)
+            .containsExactly("Batman Returns");
+        assertThat(movieInfoSearchIndex.size()).isEqualTo(4);
+    }
+
+    @Test
+    void remove() {
+        movieInfoSearchIndex.remove("3");
+
+        assertThat(movieInfoSearchIndex.search("hardy", 10)).isEmpty();
+        assertThat(movieInfoSearchIndex.search("dark", 10))
+            .extracting(MovieInfo::getMovieInfoId)
+            .containsExactly("2");
+        assertThat(movieInfoSearchIndex.size()).isEqualTo(3);
+    }
+
+    @Test
+    void reusesOrdinalsOfRemovedMovieInfos() {
+        movieInfoSearchIndex.remove("2");
+        movieInfoSearchIndex.index(new MovieInfo("5", "Batman Returns",
+            1992, List.of("Michael Keaton"), LocalDate.parse("1992-06-19")));
+
+        assertThat(movieInfoSearchIndex.search("batman", 10))
+            .extracting(MovieInfo::getMovieInfoId)
+            .containsExactly("1", "5");
+        assertThat(movieInfoSearchIndex.search("dark", 10))
+            .extracting(MovieInfo::getMovieInfoId)
+            .containsExactly("3");
+        assertThat(movieInfoSearchIndex.search("keaton", 10))
+            .extracting(MovieInfo::getMovieInfoId)
+            .containsExactly("5");
+    }
+
+    @Test
+    void intersectsPrefixesSpanningManyTerms() {
+        movieInfoSearchIndex.clear();
+        for (int index = 0; index < 100; index++) {
+            movieInfoSearchIndex.index(new MovieInfo(String.valueOf(index), "Movie" + index + " part" + (index % 7),
+                2000, List.of("Actor" + (index % 3)), LocalDate.parse("2000-01-01")));
+        }
+
+        assertThat(movieInfoSearchIndex.search("movie part3 actor2", 100))
+            .extracting(MovieInfo::getMovieInfoId)
+            .containsExactly("17", "38", "59", "80");
+        assertThat(movieInfoSearchIndex.search("movie part3 actor2", 2))
+            .extracting(MovieInfo::getMovieInfoId)
+            .containsExactly("17", "38");
+    }
+}
@@ -0,0 +1,316 @@
+package com.reactivesrping.moviesinfoservice.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reactivesrping.moviesinfoservice.domain.MovieInfo;
+import com.reactivesrping.moviesinfoservice.domain.MovieInfoEvent;
+import com.reactivesrping.moviesinfoservice.repositories.MovieInfoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MoviesInfoServiceTest {
+    private MovieInfoRepository movieInfoRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private MovieInfoIdFilter movieInfoIdFilter;
+
+    private MovieInfoJsonCache movieInfoJsonCache;
+
+    private MovieInfoSearchIndex movieInfoSearchIndex;
+
+    private MovieInfoEventStream movieInfoEventStream;
+
+    private MoviesInfoService moviesInfoService;
+
+    private MovieInfo movieInfo;
+
+    @BeforeEach
+    void setUp() {
+        movieInfoRepository = Mockito.mock(MovieInfoRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        movieInfoEventStream = new MovieInfoEventStream(
+            movieInfoRepository, "change-stream", "movieInfos", Duration.ofSeconds(1)
+        );
+        movieInfoIdFilter = new MovieInfoIdFilter(movieInfoRepository, movieInfoEventStream, meterRegistry, true, 1000, 0.01);
+        movieInfoJsonCache = new MovieInfoJsonCache(new ObjectMapper().findAndRegisterModules(), meterRegistry, 1 << 20);
+        movieInfoSearchIndex = new MovieInfoSearchIndex();
+        moviesInfoService = new MoviesInfoService(
+            movieInfoRepository,
+            movieInfoSearchIndex,
+            new MovieInfoCache(meterRegistry, 100, 10, 600),
+            movieInfoIdFilter,
+            movieInfoJsonCache,
+            movieInfoEventStream
+        );
+
+        movieInfo = new MovieInfo("abc", "Dark Knight Rises",
+            2012, List.of("Christian Bale", "Tom Hardy"), LocalDate.parse("2012-07-20"));
+    }
+
+    @Test
+    void findByIdHitsCache() {
+        when(movieInfoRepository.findById("abc")).thenReturn(Mono.just(movieInfo));
+
+        StepVerifier.create(moviesInfoService.findById("abc"))
+            .expectNext(movieInfo)
+            .verifyComplete();
+
+        StepVerifier.create(moviesInfoService.findById("abc"))
+            .expectNext(movieInfo)
+            .verifyComplete();
+
+        verify(movieInfoRepository, times(1)).findById("abc");
+        verify(movieInfoRepository, never()).findById(eq("abc"), anyCollection());
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "movieInfosById").tag("result", "hit")
+            .functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void findByIdDefiniteMissSkipsRepository() {
+        when(movieInfoRepository.findAllIds()).thenReturn(Flux.just("abc"));
+        movieInfoIdFilter.rebuild();
+
+        StepVerifier.create(moviesInfoService.findById("missing"))
+            .verifyComplete();
+
+        StepVerifier.create(moviesInfoService.findVersionById("missing"))
+            .verifyComplete();
+
+        verify(movieInfoRepository, never()).findById("missing");
+        verify(movieInfoRepository, never()).findVersionById(any());
+        assertThat(meterRegistry.get("movieinfo.idfilter.misses").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void createAddsIdToFilter() {
+        final MovieInfo newMovieInfo = movieInfo.withMovieInfoId("def");
+
+        when(movieInfoRepository.findAllIds()).thenReturn(Flux.just("abc"));
+        when(movieInfoRepository.save(any(MovieInfo.class))).thenReturn(Mono.just(newMovieInfo));
+        when(movieInfoRepository.findById("def")).thenReturn(Mono.just(newMovieInfo));
+        movieInfoIdFilter.rebuild();
+
+        moviesInfoService.create(newMovieInfo.withMovieInfoId(null)).block();
+
+        StepVerifier.create(moviesInfoService.findById("def"))
+            .expectNext(newMovieInfo)
+            .verifyComplete();
+    }
+
+    @Test
+    void findVersionByIdUsesCachedMovieInfo() {
+        when(movieInfoRepository.findById("abc")).thenReturn(Mono.just(movieInfo.withVersion(3)));
+
+        moviesInfoService.findById("abc").block();
+
+        StepVerifier.create(moviesInfoService.findVersionById("abc"))
+            .expectNext(3L)
+            .verifyComplete();
+
+        verify(movieInfoRepository, times(0)).findVersionById(any());
+    }
+
+    @Test
+    void findByYearHitsCache() {
+        when(movieInfoRepository.findByYearFromPrimary(2012)).thenReturn(Flux.just(movieInfo));
+
+        StepVerifier.create(moviesInfoService.findByYear(2012))
+            .expectNext(movieInfo)
+            .verifyComplete();
+
+        StepVerifier.create(moviesInfoService.findByYear(2012))
+            .expectNext(movieInfo)
+            .verifyComplete();
+
+        verify(movieInfoRepository, times(1)).findByYearFromPrimary(2012);
+        verify(movieInfoRepository, never()).findByYear(2012);
+    }
+
+    @Test
+    void createInvalidatesYear() {
+        final MovieInfo newMovieInfo = new MovieInfo("def", "The Dark Knight",
+            2012, List.of("Christian Bale", "HeathLedger"), LocalDate.parse("2008-07-18"));
+
+        when(movieInfoRepository.findByYearFromPrimary(2012))
+            .thenReturn(Flux.just(movieInfo))
+            .thenReturn(Flux.just(movieInfo, newMovieInfo));
+        when(movieInfoRepository.findById("def")).thenReturn(Mono.empty());
+        when(movieInfoRepository.save(any(MovieInfo.class))).thenReturn(Mono.just(newMovieInfo));
+
+        moviesInfoService.findByYear(2012).collectList().block();
+
+        StepVerifier.create(moviesInfoService.create(newMovieInfo))
+            .expectNext(newMovieInfo)
+            .verifyComplete();
+
+        StepVerifier.create(moviesInfoService.findByYear(2012))
+            .expectNext(movieInfo, newMovieInfo)
+            .verifyComplete();
+    }
+
+    @Test
+    void createOverStoredMovieInfoKeepsCountingVersions() {
+        when(movieInfoRepository.findById("abc")).thenReturn(Mono.just(movieInfo.withVersion(4)));
+        when(movieInfoRepository.save(any(MovieInfo.class)))
+            .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        StepVerifier.create(moviesInfoService.create(movieInfo))
+            .assertNext(savedMovieInfo -> assertThat(savedMovieInfo.getVersion()).isEqualTo(5))
+            .verifyComplete();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void createAllOverStoredMovieInfosKeepsCountingVersions() {
+        final MovieInfo newMovieInfo = movieInfo.withMovieInfoId("def");
+
+        when(movieInfoRepository.findAllById(List.of("abc", "def"))).thenReturn(Flux.just(movieInfo.withVersion(2)));
+        when(movieInfoRepository.saveAll(anyList()))
+            .thenAnswer(invocation -> Flux.fromIterable((List<MovieInfo>) invocation.getArgument(0)));
+
+        StepVerifier.create(moviesInfoService.createAll(List.of(movieInfo, newMovieInfo)))
+            .assertNext(savedMovieInfo -> assertThat(savedMovieInfo.getVersion()).isEqualTo(3))
+            .assertNext(savedMovieInfo -> assertThat(savedMovieInfo.getVersion()).isZero())
+            .verifyComplete();
+    }
+
+    @Test
+    void createInvalidatesEncodedJson() {
+        final MovieInfo recreatedMovieInfo = movieInfo.withName("The Dark Knight Rises");
+        final byte[] encoded = movieInfoJsonCache.encode(movieInfo);
+
+        when(movieInfoRepository.findById("abc")).thenReturn(Mono.empty());
+        when(movieInfoRepository.save(any(MovieInfo.class))).thenReturn(Mono.just(recreatedMovieInfo));
+
+        moviesInfoService.create(recreatedMovieInfo).block();
+
+        assertThat(movieInfoJsonCache.encode(recreatedMovieInfo)).isNotSameAs(encoded);
+    }
+
+    @Test
+    void updateInvalidatesIdAndBothYears() {
+        final MovieInfo updatedMovieInfo = movieInfo.withYear(2013).withVersion(1);
+
+        when(movieInfoRepository.findById("abc"))
+            .thenReturn(Mono.just(movieInfo))
+            .thenReturn(Mono.just(movieInfo))
+            .thenReturn(Mono.just(updatedMovieInfo));
+        when(movieInfoRepository.findByYearFromPrimary(2012)).thenReturn(Flux.just(movieInfo)).thenReturn(Flux.empty());
+        when(movieInfoRepository.findByYearFromPrimary(2013))
+            .thenReturn(Flux.empty())
+            .thenReturn(Flux.just(updatedMovieInfo));
+        when(movieInfoRepository.save(any(MovieInfo.class))).thenReturn(Mono.just(updatedMovieInfo));
+
+        moviesInfoService.findById("abc").block();
+        moviesInfoService.findByYear(2012).collectList().block();
+        moviesInfoService.findByYear(2013).collectList().block();
+
+        StepVerifier.create(moviesInfoService.update(movieInfo.withYear(2013), "abc"))
+            .expectNext(updatedMovieInfo)
+            .verifyComplete();
+
+        StepVerifier.create(moviesInfoService.findById("abc"))
+            .expectNext(updatedMovieInfo)
+            .verifyComplete();
+
+        StepVerifier.create(moviesInfoService.findByYear(2012))
+            .verifyComplete();
+
+        StepVerifier.create(moviesInfoService.findByYear(2013))
+            .expectNext(updatedMovieInfo)
+            .verifyComplete();
+    }
+
+    @Test
+    void deleteInvalidatesId() {
+        when(movieInfoRepository.findById("abc"))
+            .thenReturn(Mono.just(movieInfo))
+            .thenReturn(Mono.just(movieInfo))
+            .thenReturn(Mono.empty());
+        when(movieInfoRepository.deleteById("abc")).thenReturn(Mono.empty());
+
+        moviesInfoService.findById("abc").block();
+
+        StepVerifier.create(moviesInfoService.delete("abc"))
+            .verifyComplete();
+
+        StepVerifier.create(moviesInfoService.findById("abc"))
+            .verifyComplete();
+    }
+
+    @Test
+    void loadRacingUpdateDoesNotCacheStaleValue() {
+        final Sinks.One<MovieInfo> slowLoad = Sinks.one();
+        final MovieInfo updatedMovieInfo = movieInfo.withName("Dark Knight Rises (Remastered)").withVersion(1);
+
+        when(movieInfoRepository.findById("abc"))
+            .thenReturn(slowLoad.asMono())
+            .thenReturn(Mono.just(movieInfo))
+            .thenReturn(Mono.just(updatedMovieInfo));
+        when(movieInfoRepository.save(any(MovieInfo.class))).thenReturn(Mono.just(updatedMovieInfo));
+
+        final List<MovieInfo> staleRead = new ArrayList<>();
+        moviesInfoService.findById("abc").subscribe(staleRead::add);
+
+        moviesInfoService.update(updatedMovieInfo, "abc").block();
+        slowLoad.tryEmitValue(movieInfo);
+
+        assertThat(staleRead).containsExactly(movieInfo);
+
+        StepVerifier.create(moviesInfoService.findById("abc"))
+            .expectNext(updatedMovieInfo)
+            .verifyComplete();
+    }
+
+    @Test
+    void changeEventsFromOtherInstancesInvalidateCachesAndReindex() {
+        final MovieInfo remoteUpdate = movieInfo.withName("The Dark Knight Rises").withYear(2013).withVersion(1);
+
+        when(movieInfoRepository.findById("abc"))
+            .thenReturn(Mono.just(movieInfo))
+            .thenReturn(Mono.just(remoteUpdate));
+        when(movieInfoRepository.findByYearFromPrimary(2012))
+            .thenReturn(Flux.just(movieInfo))
+            .thenReturn(Flux.empty());
+        movieInfoSearchIndex.index(movieInfo);
+
+        moviesInfoService.findById("abc").block();
+        moviesInfoService.findByYear(2012).collectList().block();
+
+        moviesInfoService.apply(new MovieInfoEvent(MovieInfoEvent.Type.UPDATE, "abc", remoteUpdate));
+
+        StepVerifier.create(moviesInfoService.findById("abc"))
+            .expectNext(remoteUpdate)
+            .verifyComplete();
+        StepVerifier.create(moviesInfoService.findByYear(2012))
+            .verifyComplete();
+        assertThat(movieInfoSearchIndex.search("the dark", 10)).containsExactly(remoteUpdate);
+
+        moviesInfoService.apply(new MovieInfoEvent(MovieInfoEvent.Type.UPDATE, "abc", movieInfo));
+        assertThat(movieInfoSearchIndex.search("the dark", 10)).containsExactly(remoteUpdate);
+
+        moviesInfoService.apply(new MovieInfoEvent(MovieInfoEvent.Type.DELETE, "abc", null));
+        assertThat(movieInfoSearchIndex.search("dark", 10)).isEmpty();
+    }
+}
@@ -0,0 +1,48 @@
+package com.reactivesrping.moviesinfoservice.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BloomFilterTest {
+    @Test
+    void noFalseNegatives() {
+        final BloomFilter bloomFilter = new BloomFilter(10_000, 0.01);
+
+        IntStream.range(0, 10_000).forEach(i -> bloomFilter.put("id" + i));
+
+        assertThat(IntStream.range(0, 10_000).allMatch(i -> bloomFilter.mightContain("id" + i))).isTrue();
+        assertThat(bloomFilter.insertions()).isEqualTo(10_000);
+    }
+
+    @Test
+    void falsePositiveRateCloseToConfigured() {
+        final BloomFilter bloomFilter = new BloomFilter(10_000, 0.01);
+
+        IntStream.range(0, 10_000).forEach(i -> bloomFilter.put("id" + i));
+
+        final long falsePositives = IntStream.range(0, 100_000)
+            .filter(i -> bloomFilter.mightContain("missing" + i))
+            .count();
+
+        assertThat(falsePositives / 100_000.0).isLessThan(0.02);
+        assertThat(bloomFilter.expectedFalsePositiveRate()).isBetween(0.005, 0.015);
+    }
+
+    @Test
+    void sizing() {
+        final BloomFilter bloomFilter = new BloomFilter(1_000_000, 0.01);
+
+        assertThat(bloomFilter.bitSize()).isBetween(9_585_000L, 9_585_100L);
+        assertThat(bloomFilter.hashFunctions()).isEqualTo(7);
+    }
+
+    @Test
+    void invalidArguments() {
+        assertThatThrownBy(() -> new BloomFilter(0, 0.01)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new BloomFilter(100, 1.0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
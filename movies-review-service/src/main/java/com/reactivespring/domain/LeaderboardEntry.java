@@ -0,0 +1,25 @@
+package com.reactivespring.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A movie's all-time review count and the count and sum of the ratings of its reviews created in the last seven days.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeaderboardEntry {
+    private Long movieInfoId;
+
+    private long reviewCount;
+
+    private long ratingCount;
+
+    private double ratingSum;
+
+    public Double getAverageRating() {
+        return ratingCount > 0 ? ratingSum / ratingCount : null;
+    }
+}
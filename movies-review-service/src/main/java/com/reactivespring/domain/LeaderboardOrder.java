@@ -0,0 +1,15 @@
+package com.reactivespring.domain;
+
+import com.reactivespring.exception.ReviewDataException;
+
+public enum LeaderboardOrder {
+    RATING, REVIEWS;
+
+    public static LeaderboardOrder parse(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException ex) {
+            throw new ReviewDataException("by : must be one of rating, reviews");
+        }
+    }
+}
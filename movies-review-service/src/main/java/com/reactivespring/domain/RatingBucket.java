@@ -0,0 +1,41 @@
+package com.reactivespring.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Count and sum of the ratings of the reviews of a movie created within one hour or one day.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document("ratingBuckets")
+@CompoundIndexes({
+    @CompoundIndex(name = "movieInfoId_granularity_start", def = "{'movieInfoId': 1, 'granularity': 1, 'start': 1}"),
+    @CompoundIndex(name = "granularity_start", def = "{'granularity': 1, 'start': 1}")
+})
+public class RatingBucket {
+    @Id
+    private String id;
+
+    private Long movieInfoId;
+
+    private TrendGranularity granularity;
+
+    private Instant start;
+
+    private long count;
+
+    private double sum;
+
+    public static String id(long movieInfoId, TrendGranularity granularity, Instant start) {
+        return movieInfoId + ":" + granularity + ":" + start.toEpochMilli();
+    }
+}
@@ -0,0 +1,25 @@
+package com.reactivespring.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Ratings of one bucket, and of the window of buckets that ends with it.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RatingTrendPoint {
+    private Instant start;
+
+    private long count;
+
+    private Double average;
+
+    private long windowCount;
+
+    private Double windowAverage;
+}
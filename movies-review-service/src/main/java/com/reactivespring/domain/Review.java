@@ -5,17 +5,25 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.With;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.NotNull;
+import java.time.Instant;
 
 @With
 @Data
 @Document
 @NoArgsConstructor
 @AllArgsConstructor
+@CompoundIndexes({
+    @CompoundIndex(name = "movieInfoId_recent", def = "{'movieInfoId': 1, '_id': -1}"),
+    @CompoundIndex(name = "movieInfoId_rating", def = "{'movieInfoId': 1, 'rating': -1, '_id': -1}"),
+    @CompoundIndex(name = "rating", def = "{'rating': -1, '_id': -1}")
+})
 public class Review {
     @Id
     private String reviewId;
@@ -27,4 +35,10 @@ public class Review {
 
     @Min(value = 0L, message = "rating.negative : please pass a non-negative value")
     private Double rating;
+
+    private Instant createdAt;
+
+    public Review(String reviewId, Long movieInfoId, String comment, Double rating) {
+        this(reviewId, movieInfoId, comment, rating, null);
+    }
 }
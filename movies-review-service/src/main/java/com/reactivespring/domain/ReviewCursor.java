@@ -0,0 +1,48 @@
+package com.reactivespring.domain;
+
+import com.reactivespring.exception.ReviewDataException;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position after the last review of a page, encoded as an opaque url-safe token of the sort keys.
+ */
+@Data
+@AllArgsConstructor
+public class ReviewCursor {
+    private static final String SEPARATOR = "\n";
+
+    private ReviewSort sort;
+
+    private Double rating;
+
+    private String reviewId;
+
+    public static ReviewCursor of(ReviewSort sort, Review review) {
+        return new ReviewCursor(sort, review.getRating(), review.getReviewId());
+    }
+
+    public String encode() {
+        final String keys = sort + SEPARATOR + (rating == null ? "" : rating) + SEPARATOR + reviewId;
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(keys.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ReviewCursor decode(String cursor) {
+        try {
+            final String[] keys = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)
+                .split(SEPARATOR, 3);
+
+            return new ReviewCursor(
+                ReviewSort.valueOf(keys[0]),
+                keys[1].isEmpty() ? null : Double.valueOf(keys[1]),
+                keys[2]
+            );
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException ex) {
+            throw new ReviewDataException("cursor : is not valid");
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.reactivespring.domain;
+
+import com.reactivespring.exception.ReviewDataException;
+
+public enum ReviewSort {
+    RECENT, RATING;
+
+    public static ReviewSort parse(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException ex) {
+            throw new ReviewDataException("sort : must be one of recent, rating");
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.reactivespring.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document("reviewSummaries")
+public class ReviewSummary {
+    @Id
+    private Long movieInfoId;
+
+    private long count;
+
+    private double sum;
+
+    private Double min;
+
+    private Double max;
+
+    private Map<String, Long> histogram = new TreeMap<>();
+
+    public ReviewSummary(Long movieInfoId) {
+        this.movieInfoId = movieInfoId;
+    }
+
+    public Double getAverage() {
+        return count > 0 ? sum / count : null;
+    }
+
+    public static String bucket(double rating) {
+        return Long.toString((long) Math.floor(rating));
+    }
+}
@@ -0,0 +1,36 @@
+package com.reactivespring.domain;
+
+import com.reactivespring.exception.ReviewDataException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+public enum TrendGranularity {
+    HOUR(ChronoUnit.HOURS), DAY(ChronoUnit.DAYS);
+
+    private final ChronoUnit unit;
+
+    TrendGranularity(ChronoUnit unit) {
+        this.unit = unit;
+    }
+
+    public Duration getDuration() {
+        return unit.getDuration();
+    }
+
+    /**
+     * Returns the start of the bucket the instant falls in, in UTC.
+     */
+    public Instant truncate(Instant instant) {
+        return instant.truncatedTo(unit);
+    }
+
+    public static TrendGranularity parse(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException ex) {
+            throw new ReviewDataException("granularity : must be one of hour, day");
+        }
+    }
+}
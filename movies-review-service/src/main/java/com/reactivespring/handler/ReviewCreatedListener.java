@@ -0,0 +1,100 @@
+package com.reactivespring.handler;
+
+import com.reactivespring.domain.Review;
+import com.reactivespring.repository.RatingBucketRepository;
+import com.reactivespring.repository.ReviewSummaryRepository;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Applies a stored review to the cached reviews, the rating summary and trend buckets, the leaderboard and the
+ * review streams, whether it was saved by the request itself or drained from the ingestion journal. A review that
+ * replaced or updated a stored one moves the previous rating out instead of counting another review.
+ */
+@Component
+public class ReviewCreatedListener {
+    private final ReviewSummaryRepository reviewSummaryRepository;
+
+    private final RatingBucketRepository ratingBucketRepository;
+
+    private final ReviewLeaderboard reviewLeaderboard;
+
+    private final ReviewEventStream reviewEventStream;
+
+    private final ReviewsByMovieCache reviewsByMovieCache;
+
+    public ReviewCreatedListener(ReviewSummaryRepository reviewSummaryRepository,
+                                 RatingBucketRepository ratingBucketRepository,
+                                 ReviewLeaderboard reviewLeaderboard,
+                                 ReviewEventStream reviewEventStream,
+                                 ReviewsByMovieCache reviewsByMovieCache) {
+        this.reviewSummaryRepository = reviewSummaryRepository;
+        this.ratingBucketRepository = ratingBucketRepository;
+        this.reviewLeaderboard = reviewLeaderboard;
+        this.reviewEventStream = reviewEventStream;
+        this.reviewsByMovieCache = reviewsByMovieCache;
+    }
+
+    public Mono<Review> onCreated(Review savedReview) {
+        reviewsByMovieCache.invalidate(savedReview.getMovieInfoId());
+
+        return reviewSummaryRepository
+            .applyRatingChange(savedReview.getMovieInfoId(), null, savedReview.getRating())
+            .then(ratingBucketRepository
+                .applyRatingChange(savedReview.getMovieInfoId(), savedReview.getCreatedAt(), null, savedReview.getRating()))
+            .then(Mono.fromRunnable(() -> reviewLeaderboard
+                .apply(savedReview.getMovieInfoId(), savedReview.getCreatedAt(), 1, null, savedReview.getRating())))
+            .then(reviewEventStream.publish(savedReview))
+            .thenReturn(savedReview);
+    }
+
+    public Mono<Review> onReplaced(Review previous, Review savedReview) {
+        return applyChange(previous, savedReview)
+            .then(reviewEventStream.publish(savedReview))
+            .thenReturn(savedReview);
+    }
+
+    public Mono<Review> onUpdated(Review previous, Review savedReview) {
+        return applyChange(previous, savedReview)
+            .thenReturn(savedReview);
+    }
+
+    /**
+     * Changes the rating in place with a review delta of zero. A replacement with another movie or creation time
+     * takes the previous review out of its own summary, buckets and leaderboard day and adds the saved one.
+     */
+    private Mono<Void> applyChange(Review previous, Review savedReview) {
+        final long movieInfoId = savedReview.getMovieInfoId();
+        final Instant createdAt = savedReview.getCreatedAt();
+        final boolean sameMovie = previous.getMovieInfoId() == movieInfoId;
+        final boolean sameBuckets = sameMovie && Objects.equals(previous.getCreatedAt(), createdAt);
+
+        reviewsByMovieCache.invalidate(previous.getMovieInfoId());
+        reviewsByMovieCache.invalidate(movieInfoId);
+
+        final Mono<Void> summary = sameMovie
+            ? reviewSummaryRepository.applyRatingChange(movieInfoId, previous.getRating(), savedReview.getRating())
+            : reviewSummaryRepository.applyRatingChange(previous.getMovieInfoId(), previous.getRating(), null)
+                .then(reviewSummaryRepository.applyRatingChange(movieInfoId, null, savedReview.getRating()));
+
+        final Mono<Void> buckets = sameBuckets
+            ? ratingBucketRepository.applyRatingChange(movieInfoId, createdAt, previous.getRating(), savedReview.getRating())
+            : ratingBucketRepository
+                .applyRatingChange(previous.getMovieInfoId(), previous.getCreatedAt(), previous.getRating(), null)
+                .then(ratingBucketRepository.applyRatingChange(movieInfoId, createdAt, null, savedReview.getRating()));
+
+        return summary
+            .then(buckets)
+            .then(Mono.fromRunnable(() -> {
+                if (sameBuckets) {
+                    reviewLeaderboard.apply(movieInfoId, createdAt, 0, previous.getRating(), savedReview.getRating());
+                } else {
+                    reviewLeaderboard.apply(previous.getMovieInfoId(), previous.getCreatedAt(), -1, previous.getRating(), null);
+                    reviewLeaderboard.apply(movieInfoId, createdAt, 1, null, savedReview.getRating());
+                }
+            }));
+    }
+}
@@ -0,0 +1,157 @@
+package com.reactivespring.handler;
+
+import com.reactivespring.domain.Review;
+import com.reactivespring.domain.ReviewEvent;
+import com.reactivespring.repository.ReviewReactiveRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.retry.Retry;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Feeds created reviews to the stream subscribers of this instance. With {@code stream.source=capped-collection}
+ * each review is also appended to a capped collection that one tailable cursor per instance reads back, so every
+ * instance streams every review and the replayed history is bounded by the size of the collection.
+ */
+@Slf4j
+@Component
+public class ReviewEventStream {
+    public enum Source {
+        LOCAL, CAPPED_COLLECTION
+    }
+
+    private static final Duration CACHED = Duration.ofMillis(Long.MAX_VALUE);
+
+    private final ReviewReactiveRepository reviewReactiveRepository;
+
+    private final ReviewStreamDispatcher reviewStreamDispatcher;
+
+    private final Source source;
+
+    private final String collectionName;
+
+    private final long maxBytes;
+
+    private final long maxDocuments;
+
+    private final Duration tailRetryDelay;
+
+    private final Sinks.Many<Review> reviews;
+
+    private final Mono<Void> eventLog;
+
+    private final AtomicReference<String> lastEventId = new AtomicReference<>();
+
+    private Disposable tail;
+
+    public ReviewEventStream(ReviewReactiveRepository reviewReactiveRepository,
+                             ReviewStreamDispatcher reviewStreamDispatcher,
+                             @Value("${stream.source:local}") String source,
+                             @Value("${stream.cappedCollection:reviewEvents}") String collectionName,
+                             @Value("${stream.cappedMaxBytes:16777216}") long maxBytes,
+                             @Value("${stream.cappedMaxDocuments:10000}") long maxDocuments,
+                             @Value("${stream.tailRetryDelay:PT0.5S}") Duration tailRetryDelay) {
+        this.reviewReactiveRepository = reviewReactiveRepository;
+        this.reviewStreamDispatcher = reviewStreamDispatcher;
+        this.source = Source.valueOf(source.trim().toUpperCase().replace('-', '_'));
+        this.collectionName = collectionName;
+        this.maxBytes = maxBytes;
+        this.maxDocuments = maxDocuments;
+        this.tailRetryDelay = tailRetryDelay;
+        this.reviews = this.source == Source.CAPPED_COLLECTION
+            ? Sinks.many().replay().limit((int) Math.min(maxDocuments, Integer.MAX_VALUE))
+            : Sinks.many().replay().all();
+        this.eventLog = Mono
+            .defer(() -> reviewReactiveRepository.createEventLog(collectionName, maxBytes, maxDocuments))
+            .cache(ready -> CACHED, ex -> Duration.ZERO, () -> CACHED);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (source != Source.CAPPED_COLLECTION) {
+            return;
+        }
+
+        tail = eventLog
+            .thenMany(Flux.defer(this::resume)
+                .repeatWhen(completions -> completions.delayElements(tailRetryDelay))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, tailRetryDelay)
+                    .maxBackoff(Duration.ofSeconds(30))
+                    .doBeforeRetry(signal -> log.warn("Review event tail failed, resuming", signal.failure())))
+            )
+            .subscribe(this::onEvent, ex -> log.error("Review event tail stopped", ex));
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (tail != null) {
+            tail.dispose();
+        }
+    }
+
+    public Flux<Review> reviews() {
+        return reviews.asFlux();
+    }
+
+    /**
+     * Waits for the capped collection to exist, since appending first would create it uncapped. Never fails: the
+     * review is already stored, so a failed append is logged rather than failing the request.
+     */
+    public Mono<Void> publish(Review review) {
+        if (source == Source.LOCAL) {
+            emit(review);
+            return Mono.empty();
+        }
+
+        return eventLog
+            .then(reviewReactiveRepository.appendEvent(collectionName, review))
+            .onErrorResume(ex -> {
+                log.warn("Could not append review {} to the review event log", review.getReviewId(), ex);
+                return Mono.empty();
+            })
+            .then();
+    }
+
+    /**
+     * Restarts the tail after the last event this instance saw. Event ids are generated by each instance, so their
+     * order says nothing about the insertion order; the events are skipped in natural order up to the last one seen
+     * instead. That event is looked up once the new cursor is positioned: if it is gone it was capped out, and every
+     * event still in the collection is newer. If it is capped out while being skipped to, the cursor behind it loses
+     * its position and fails, and the retry finds it gone.
+     */
+    private Flux<ReviewEvent> resume() {
+        final String after = lastEventId.get();
+        final Flux<ReviewEvent> events = reviewReactiveRepository.tailEvents(collectionName);
+
+        if (after == null) {
+            return events;
+        }
+
+        return events.switchOnFirst((first, tailed) -> !first.hasValue()
+            ? tailed
+            : reviewReactiveRepository.eventExists(collectionName, after)
+                .flatMapMany(seen -> seen
+                    ? tailed.skipUntil(event -> after.equals(event.getEventId())).skip(1)
+                    : tailed));
+    }
+
+    private void onEvent(ReviewEvent event) {
+        lastEventId.set(event.getEventId());
+        emit(event.getReview());
+    }
+
+    private void emit(Review review) {
+        reviews.emitNext(review, (signal, result) -> result == Sinks.EmitResult.FAIL_NON_SERIALIZED);
+        reviewStreamDispatcher.publish(review);
+    }
+}
@@ -1,48 +1,194 @@
 package com.reactivespring.handler;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reactivespring.common.stream.SubscriberBuffer;
+import com.reactivespring.domain.LeaderboardOrder;
+import com.reactivespring.domain.RatingTrendPoint;
 import com.reactivespring.domain.Review;
+import com.reactivespring.domain.ReviewCursor;
+import com.reactivespring.domain.ReviewSort;
+import com.reactivespring.domain.ReviewSummary;
+import com.reactivespring.domain.TrendGranularity;
 import com.reactivespring.exception.ReviewDataException;
 import com.reactivespring.exception.ReviewNotFoundException;
+import com.reactivespring.repository.RatingBucketRepository;
+import com.reactivespring.repository.ReviewJournal;
 import com.reactivespring.repository.ReviewReactiveRepository;
+import com.reactivespring.repository.ReviewSummaryRepository;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.server.ServerRequest;
 import org.springframework.web.reactive.function.server.ServerResponse;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.publisher.Sinks;
 
 import javax.validation.ConstraintViolation;
 import javax.validation.Validator;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
 import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
 
 @Slf4j
 @Component
 public class ReviewHandler {
-    private final Sinks.Many<Review> reviewsSink = Sinks.many().replay().all();
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private static final String RESPOND_ASYNC = "respond-async";
 
     private final ReviewReactiveRepository reviewReactiveRepository;
 
+    private final ReviewSummaryRepository reviewSummaryRepository;
+
+    private final RatingBucketRepository ratingBucketRepository;
+
     private final Validator validator;
 
-    public ReviewHandler(ReviewReactiveRepository reviewReactiveRepository, Validator validator) {
+    private final SubscriberBuffer subscriberBuffer;
+
+    private final ReviewStreamDispatcher reviewStreamDispatcher;
+
+    private final ReviewEventStream reviewEventStream;
+
+    private final ReviewWriteCoalescer reviewWriteCoalescer;
+
+    private final ReviewLeaderboard reviewLeaderboard;
+
+    private final ReviewCreatedListener reviewCreatedListener;
+
+    private final ReviewJournal reviewJournal;
+
+    private final ReviewsByMovieCache reviewsByMovieCache;
+
+    private final ReviewTrend reviewTrend;
+
+    private final ObjectMapper objectMapper;
+
+    private final int exportBatchSize;
+
+    private final int exportMaxBatchSize;
+
+    private final int defaultLimit;
+
+    private final int maxLimit;
+
+    private final int streamMaxMovieInfoIds;
+
+    private final int leaderboardDefaultLimit;
+
+    private final int leaderboardMaxLimit;
+
+    private final int trendDefaultBuckets;
+
+    private final int trendDefaultWindowBuckets;
+
+    private final int trendMaxBuckets;
+
+    public ReviewHandler(ReviewReactiveRepository reviewReactiveRepository,
+                         ReviewSummaryRepository reviewSummaryRepository,
+                         RatingBucketRepository ratingBucketRepository,
+                         Validator validator,
+                         SubscriberBuffer subscriberBuffer,
+                         ReviewStreamDispatcher reviewStreamDispatcher,
+                         ReviewEventStream reviewEventStream,
+                         ReviewWriteCoalescer reviewWriteCoalescer,
+                         ReviewLeaderboard reviewLeaderboard,
+                         ReviewCreatedListener reviewCreatedListener,
+                         ReviewJournal reviewJournal,
+                         ReviewsByMovieCache reviewsByMovieCache,
+                         ReviewTrend reviewTrend,
+                         ObjectMapper objectMapper,
+                         @Value("${export.batchSize:1000}") int exportBatchSize,
+                         @Value("${export.maxBatchSize:10000}") int exportMaxBatchSize,
+                         @Value("${reviews.defaultLimit:100}") int defaultLimit,
+                         @Value("${reviews.maxLimit:1000}") int maxLimit,
+                         @Value("${stream.maxMovieInfoIds:100}") int streamMaxMovieInfoIds,
+                         @Value("${leaderboard.defaultLimit:10}") int leaderboardDefaultLimit,
+                         @Value("${leaderboard.maxLimit:100}") int leaderboardMaxLimit,
+                         @Value("${trend.defaultBuckets:30}") int trendDefaultBuckets,
+                         @Value("${trend.defaultWindowBuckets:7}") int trendDefaultWindowBuckets,
+                         @Value("${trend.maxBuckets:2000}") int trendMaxBuckets) {
         this.reviewReactiveRepository = reviewReactiveRepository;
+        this.reviewSummaryRepository = reviewSummaryRepository;
+        this.ratingBucketRepository = ratingBucketRepository;
         this.validator = validator;
+        this.subscriberBuffer = subscriberBuffer;
+        this.reviewStreamDispatcher = reviewStreamDispatcher;
+        this.reviewEventStream = reviewEventStream;
+        this.reviewWriteCoalescer = reviewWriteCoalescer;
+        this.reviewLeaderboard = reviewLeaderboard;
+        this.reviewCreatedListener = reviewCreatedListener;
+        this.reviewJournal = reviewJournal;
+        this.reviewsByMovieCache = reviewsByMovieCache;
+        this.reviewTrend = reviewTrend;
+        this.objectMapper = objectMapper;
+        this.exportBatchSize = exportBatchSize;
+        this.exportMaxBatchSize = exportMaxBatchSize;
+        this.defaultLimit = defaultLimit;
+        this.maxLimit = maxLimit;
+        this.streamMaxMovieInfoIds = streamMaxMovieInfoIds;
+        this.leaderboardDefaultLimit = leaderboardDefaultLimit;
+        this.leaderboardMaxLimit = leaderboardMaxLimit;
+        this.trendDefaultBuckets = trendDefaultBuckets;
+        this.trendDefaultWindowBuckets = trendDefaultWindowBuckets;
+        this.trendMaxBuckets = trendMaxBuckets;
     }
 
     public Mono<ServerResponse> create(ServerRequest request) {
+        final boolean async = reviewJournal.isEnabled() && prefersAsync(request);
+
         return request.bodyToMono(Review.class)
             .doOnNext(this::validate)
-            .flatMap(reviewReactiveRepository::save)
-            .doOnNext(reviewsSink::tryEmitNext)
+            .map(review -> review.withCreatedAt(Instant.now().truncatedTo(ChronoUnit.MILLIS)))
+            .flatMap(review -> async && review.getReviewId() == null ? accept(review) : store(review));
+    }
+
+    private Mono<ServerResponse> store(Review review) {
+        return reviewWriteCoalescer.save(review)
+            .flatMap(saved -> saved.getPrevious() == null
+                ? reviewCreatedListener.onCreated(saved.getReview())
+                : reviewCreatedListener.onReplaced(saved.getPrevious(), saved.getReview()))
             .flatMap(ServerResponse.status(HttpStatus.CREATED)::bodyValue);
     }
 
+    /**
+     * Journals the review and acknowledges it before it reaches MongoDB; the journal drainer stores it later. The id
+     * is assigned here so the caller gets it right away and a replayed journal entry is not stored twice. A review
+     * with a client supplied id may replace a stored one, so it is stored right away and the preference is ignored.
+     */
+    private Mono<ServerResponse> accept(Review review) {
+        final Review accepted = review.withReviewId(new ObjectId().toHexString());
+
+        return reviewJournal.append(accepted)
+            .then(ServerResponse.accepted()
+                .header("Preference-Applied", RESPOND_ASYNC)
+                .bodyValue(accepted));
+    }
+
+    private static boolean prefersAsync(ServerRequest request) {
+        return request.headers().header("Prefer").stream()
+            .flatMap(value -> Arrays.stream(value.split(",")))
+            .anyMatch(preference -> preference.trim().equalsIgnoreCase(RESPOND_ASYNC));
+    }
+
     private void validate(Review review) {
         final Set<ConstraintViolation<Review>> constraintViolations = validator.validate(review);
         log.info("ConstraintViolations : {}", constraintViolations);
@@ -60,20 +206,191 @@ public class ReviewHandler {
     }
 
     public Mono<ServerResponse> index(ServerRequest request) {
+        return Mono.defer(() -> {
+            final Long movieInfoId = request.queryParam("movieInfoId").map(value -> parseLong("movieInfoId", value))
+                .orElse(null);
+            final int limit = request.queryParam("limit").map(value -> parseInt("limit", value)).orElse(defaultLimit);
+            final ReviewSort sort = request.queryParam("sort").map(ReviewSort::parse).orElse(ReviewSort.RECENT);
+            final ReviewCursor after = request.queryParam("cursor").map(ReviewCursor::decode).orElse(null);
+
+            if (limit <= 0 || limit > maxLimit) {
+                throw new ReviewDataException("limit : must be between 1 and " + maxLimit);
+            }
+
+            if (after != null && after.getSort() != sort) {
+                throw new ReviewDataException("cursor : was issued for sort " + after.getSort().name().toLowerCase());
+            }
+
+            if (movieInfoId == null || after != null || !reviewsByMovieCache.isEnabled()) {
+                return reviewReactiveRepository.findPage(movieInfoId, sort, after, limit + 1)
+                    .collectList()
+                    .flatMap(reviews -> buildReviewsResponse(reviews, sort, limit));
+            }
+
+            return firstPage(movieInfoId, sort, limit);
+        });
+    }
+
+    private Mono<ServerResponse> firstPage(long movieInfoId, ReviewSort sort, int limit) {
+        final List<Review> cached = reviewsByMovieCache.get(movieInfoId, sort, limit + 1);
+
+        if (cached != null) {
+            return buildReviewsResponse(cached, sort, limit);
+        }
+
+        final long stamp = reviewsByMovieCache.stamp(movieInfoId);
+
+        // Cache fills read from the primary: a lagging secondary could return the page from before a write whose
+        // invalidation came ahead of the stamp, and it would then be served until it expires.
+        return reviewReactiveRepository.findFirstPageFromPrimary(movieInfoId, sort, limit + 1)
+            .collectList()
+            .doOnNext(reviews -> reviewsByMovieCache.put(movieInfoId, sort, reviews, limit + 1, stamp))
+            .flatMap(reviews -> buildReviewsResponse(reviews, sort, limit));
+    }
+
+    private Mono<ServerResponse> buildReviewsResponse(List<Review> reviews, ReviewSort sort, int limit) {
+        if (reviews.size() <= limit) {
+            return ServerResponse.ok().bodyValue(reviews);
+        }
+
+        final List<Review> page = reviews.subList(0, limit);
+
+        return ServerResponse.ok()
+            .header(NEXT_CURSOR_HEADER, ReviewCursor.of(sort, page.get(limit - 1)).encode())
+            .bodyValue(page);
+    }
+
+    public Mono<ServerResponse> summary(ServerRequest request) {
         final Optional<String> movieInfoIdOptional = request.queryParam("movieInfoId");
 
-        if (movieInfoIdOptional.isPresent()) {
-            final Flux<Review> reviewFlux =
-                reviewReactiveRepository.findByMovieInfoId(Long.parseLong(movieInfoIdOptional.get()));
-            return buildReviewsResponse(reviewFlux);
+        if (movieInfoIdOptional.isEmpty()) {
+            return Mono.error(new ReviewDataException("movieInfoId : must not be null"));
+        }
+
+        final long movieInfoId = parseLong("movieInfoId", movieInfoIdOptional.get());
+
+        return reviewSummaryRepository.findById(movieInfoId)
+            .defaultIfEmpty(new ReviewSummary(movieInfoId))
+            .flatMap(ServerResponse.ok()::bodyValue);
+    }
+
+    public Mono<ServerResponse> leaderboard(ServerRequest request) {
+        return Mono.defer(() -> {
+            final LeaderboardOrder order = request.queryParam("by").map(LeaderboardOrder::parse).orElse(LeaderboardOrder.RATING);
+            final int limit = request.queryParam("limit").map(value -> parseInt("limit", value))
+                .orElse(leaderboardDefaultLimit);
+
+            if (limit <= 0 || limit > leaderboardMaxLimit) {
+                throw new ReviewDataException("limit : must be between 1 and " + leaderboardMaxLimit);
+            }
+
+            return ServerResponse.ok().bodyValue(reviewLeaderboard.top(order, limit));
+        });
+    }
+
+    /**
+     * Rolling average rating of a movie per hour or day bucket. Bounds default to the last {@code trend.defaultBuckets}
+     * buckets up to and including the current one, and are rounded down to bucket starts.
+     */
+    public Mono<ServerResponse> trend(ServerRequest request) {
+        return Mono.defer(() -> {
+            final long movieInfoId = request.queryParam("movieInfoId").map(value -> parseLong("movieInfoId", value))
+                .orElseThrow(() -> new ReviewDataException("movieInfoId : must not be null"));
+            final TrendGranularity granularity = request.queryParam("granularity").map(TrendGranularity::parse)
+                .orElse(TrendGranularity.DAY);
+            final Duration bucket = granularity.getDuration();
+            final Duration window = request.queryParam("window").map(value -> parseDuration("window", value))
+                .orElse(bucket.multipliedBy(trendDefaultWindowBuckets));
+            final Instant to = request.queryParam("to").map(value -> granularity.truncate(parseInstant("to", value)))
+                .orElse(granularity.truncate(Instant.now()).plus(bucket));
+            final Instant from = request.queryParam("from").map(value -> granularity.truncate(parseInstant("from", value)))
+                .orElse(to.minus(bucket.multipliedBy(trendDefaultBuckets)));
+
+            if (window.isNegative() || window.isZero() || window.toMillis() % bucket.toMillis() != 0) {
+                throw new ReviewDataException("window : must be a positive multiple of one " + granularity.name().toLowerCase());
+            }
+
+            if (!from.isBefore(to)) {
+                throw new ReviewDataException("from : must be before to");
+            }
+
+            final long buckets = (to.toEpochMilli() - from.toEpochMilli() + window.toMillis()) / bucket.toMillis() - 1;
+
+            if (buckets > trendMaxBuckets) {
+                throw new ReviewDataException("window : at most " + trendMaxBuckets + " buckets per trend, window included");
+            }
+
+            return reviewTrend.trend(movieInfoId, granularity, from, to, window)
+                .flatMap(ServerResponse.ok()::bodyValue);
+        });
+    }
+
+    private static int parseInt(String name, String value) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException ex) {
+            throw new ReviewDataException(name + " : must be an integer");
+        }
+    }
+
+    private static long parseLong(String name, String value) {
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException ex) {
+            throw new ReviewDataException(name + " : must be an integer");
+        }
+    }
+
+    private static Instant parseInstant(String name, String value) {
+        try {
+            return Instant.parse(value.trim());
+        } catch (DateTimeParseException ex) {
+            throw new ReviewDataException(name + " : must be an ISO-8601 instant");
+        }
+    }
+
+    private static Duration parseDuration(String name, String value) {
+        try {
+            return Duration.parse(value.trim());
+        } catch (DateTimeParseException ex) {
+            throw new ReviewDataException(name + " : must be an ISO-8601 duration");
+        }
+    }
+
+    public Mono<ServerResponse> export(ServerRequest request) {
+        final int batchSize = request.queryParam("batchSize").map(value -> parseInt("batchSize", value))
+            .orElse(exportBatchSize);
+        final boolean snapshot = request.queryParam("snapshot").map(Boolean::parseBoolean).orElse(false);
+
+        if (batchSize <= 0 || batchSize > exportMaxBatchSize) {
+            return Mono.error(new ReviewDataException("batchSize : must be between 1 and " + exportMaxBatchSize));
         }
 
-        final Flux<Review> reviewFlux = reviewReactiveRepository.findAll();
-        return buildReviewsResponse(reviewFlux);
+        final DataBufferFactory bufferFactory = request.exchange().getResponse().bufferFactory();
+        final Flux<DataBuffer> body = reviewReactiveRepository.findAllForExport(batchSize, snapshot)
+            .limitRate(batchSize)
+            .buffer(batchSize)
+            .map(reviews -> encode(reviews, bufferFactory));
+
+        return ServerResponse.ok()
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .body(BodyInserters.fromDataBuffers(body));
     }
 
-    private Mono<ServerResponse> buildReviewsResponse(Flux<Review> reviewFlux) {
-        return ServerResponse.ok().body(reviewFlux, Review.class);
+    private DataBuffer encode(List<Review> reviews, DataBufferFactory bufferFactory) {
+        final DataBuffer buffer = bufferFactory.allocateBuffer();
+
+        try (OutputStream outputStream = buffer.asOutputStream()) {
+            for (Review review : reviews) {
+                outputStream.write(objectMapper.writeValueAsBytes(review));
+                outputStream.write('\n');
+            }
+
+            return buffer;
+        } catch (IOException ex) {
+            DataBufferUtils.release(buffer);
+            throw new UncheckedIOException(ex);
+        }
     }
 
     public Mono<ServerResponse> update(ServerRequest request) {
@@ -91,6 +408,7 @@ public class ReviewHandler {
                         .withRating(requestReview.getRating())
                 )
                 .flatMap(reviewReactiveRepository::save)
+                .flatMap(savedReview -> reviewCreatedListener.onUpdated(review, savedReview))
                 .flatMap(ServerResponse.ok()::bodyValue)
         );
     }
@@ -102,14 +420,36 @@ public class ReviewHandler {
 
         return existingReviewMono.flatMap(review ->
             reviewReactiveRepository.deleteById(review.getReviewId())
+                .doOnSuccess(ignored -> reviewsByMovieCache.invalidate(review.getMovieInfoId()))
+                .then(reviewSummaryRepository.applyRatingChange(review.getMovieInfoId(), review.getRating(), null))
+                .then(ratingBucketRepository
+                    .applyRatingChange(review.getMovieInfoId(), review.getCreatedAt(), review.getRating(), null))
+                .doOnSuccess(ignored -> reviewLeaderboard
+                    .apply(review.getMovieInfoId(), review.getCreatedAt(), -1, review.getRating(), null))
                 .then(ServerResponse.noContent().build())
         );
     }
 
     public Mono<ServerResponse> getReviewsStream(ServerRequest serverRequest) {
+        final List<Long> movieInfoIds = serverRequest.queryParams().getOrDefault("movieInfoId", List.of()).stream()
+            .flatMap(value -> Arrays.stream(value.split(",")))
+            .map(String::trim)
+            .filter(value -> !value.isEmpty())
+            .map(value -> parseLong("movieInfoId", value))
+            .distinct()
+            .collect(toList());
+
+        if (movieInfoIds.size() > streamMaxMovieInfoIds) {
+            return Mono.error(new ReviewDataException("movieInfoId : at most " + streamMaxMovieInfoIds + " ids per stream"));
+        }
+
+        final Flux<Review> reviews = movieInfoIds.isEmpty()
+            ? subscriberBuffer.buffer("reviews", reviewEventStream.reviews())
+            : subscriberBuffer.buffer("reviewsByMovie", reviewStreamDispatcher.subscribe(movieInfoIds));
+
         return ServerResponse.ok()
             .contentType(MediaType.APPLICATION_NDJSON)
-            .body(reviewsSink.asFlux(), Review.class)
+            .body(reviews, Review.class)
             .log();
     }
 }
@@ -0,0 +1,142 @@
+package com.reactivespring.handler;
+
+import com.reactivespring.domain.Review;
+import com.reactivespring.repository.ReviewJournal;
+import com.reactivespring.repository.ReviewReactiveRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stores journaled reviews in MongoDB in unordered batches and moves the journal checkpoint past each stored batch.
+ * A batch that fails as a whole is read again on the next tick. Reviews are stored marked as unapplied, and the mark
+ * is cleared once the review's side effects are applied, so a batch replayed after a crash applies exactly the side
+ * effects that were missing.
+ */
+@Slf4j
+@Component
+public class ReviewJournalDrainer {
+    private final ReviewJournal reviewJournal;
+
+    private final ReviewReactiveRepository reviewReactiveRepository;
+
+    private final ReviewCreatedListener reviewCreatedListener;
+
+    private final int batchSize;
+
+    private final Duration drainInterval;
+
+    private Scheduler scheduler;
+
+    private Disposable draining;
+
+    public ReviewJournalDrainer(ReviewJournal reviewJournal,
+                                ReviewReactiveRepository reviewReactiveRepository,
+                                ReviewCreatedListener reviewCreatedListener,
+                                @Value("${ingestion.drainBatchSize:500}") int batchSize,
+                                @Value("${ingestion.drainInterval:PT0.05S}") Duration drainInterval) {
+        this.reviewJournal = reviewJournal;
+        this.reviewReactiveRepository = reviewReactiveRepository;
+        this.reviewCreatedListener = reviewCreatedListener;
+        this.batchSize = batchSize;
+        this.drainInterval = drainInterval;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!reviewJournal.isEnabled()) {
+            return;
+        }
+
+        scheduler = Schedulers.newSingle("journal-drainer", true);
+        draining = Flux.interval(drainInterval, scheduler)
+            .onBackpressureDrop()
+            .concatMap(tick -> drain()
+                .onErrorResume(ex -> {
+                    log.warn("Could not drain the review journal, retrying", ex);
+                    return Mono.empty();
+                }), 1)
+            .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (draining != null) {
+            draining.dispose();
+            scheduler.dispose();
+        }
+    }
+
+    /**
+     * Drains full batches back to back until the journal is caught up.
+     */
+    Mono<Integer> drain() {
+        return drainBatch()
+            .expand(drained -> drained == batchSize ? drainBatch() : Mono.empty())
+            .reduce(0, Integer::sum);
+    }
+
+    private Mono<Integer> drainBatch() {
+        return Mono.defer(() -> {
+            final List<ReviewJournal.Entry> entries = reviewJournal.read(batchSize);
+
+            if (entries.isEmpty()) {
+                return Mono.just(0);
+            }
+
+            final List<Review> reviews = new ArrayList<>(entries.size());
+            entries.forEach(entry -> reviews.add(entry.getReview()));
+
+            return reviewReactiveRepository.insertUnapplied(reviews)
+                .flatMapMany(failures -> Flux.range(0, reviews.size())
+                    .concatMap(index -> apply(reviews.get(index), failures.get(index))))
+                .then(Mono.fromRunnable(() -> reviewJournal.commit(entries.get(entries.size() - 1).getNext())))
+                .thenReturn(entries.size());
+        });
+    }
+
+    private Mono<Review> apply(Review review, RuntimeException failure) {
+        if (failure == null) {
+            return applied(reviewCreatedListener.onCreated(review));
+        }
+
+        if (failure instanceof DuplicateKeyException) {
+            return applyDuplicate(review);
+        }
+
+        log.error("Dropping journaled review {}", review.getReviewId(), failure);
+        return Mono.empty();
+    }
+
+    /**
+     * A duplicate that is still marked was stored by this record before a crash that came ahead of its side effects.
+     * Unmarked, it was applied already if it equals the record; otherwise the record's client supplied id clashed
+     * with a stored review, which it replaces as a synchronous create would.
+     */
+    private Mono<Review> applyDuplicate(Review review) {
+        return reviewReactiveRepository.findUnapplied(review.getReviewId())
+            .flatMap(stored -> applied(reviewCreatedListener.onCreated(review)))
+            .switchIfEmpty(Mono.defer(() -> reviewReactiveRepository.findById(review.getReviewId())
+                .filter(stored -> !stored.equals(review))
+                .flatMap(stored -> reviewReactiveRepository.replace(review)
+                    .flatMap(previous -> reviewCreatedListener.onReplaced(previous, review))
+                    .switchIfEmpty(Mono.defer(() -> reviewCreatedListener.onCreated(review))))));
+    }
+
+    private Mono<Review> applied(Mono<Review> sideEffects) {
+        return sideEffects.flatMap(review -> reviewReactiveRepository.markApplied(review.getReviewId()).thenReturn(review));
+    }
+}
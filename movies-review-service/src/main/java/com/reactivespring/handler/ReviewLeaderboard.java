@@ -0,0 +1,335 @@
+package com.reactivespring.handler;
+
+import com.reactivespring.domain.LeaderboardEntry;
+import com.reactivespring.domain.LeaderboardOrder;
+import com.reactivespring.domain.RatingBucket;
+import com.reactivespring.domain.TrendGranularity;
+import com.reactivespring.repository.RatingBucketRepository;
+import com.reactivespring.repository.ReviewReactiveRepository;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * Keeps the per-movie review counts and the ratings of the last seven days in memory, ordered by the week's average
+ * rating and by all-time review count, so a leaderboard read walks the first K entries without touching the
+ * database. Every movie stays ordered, not only the current top K, because a delete can move any movie into the top K.
+ * <p>
+ * Ratings are kept per UTC day, for today and the six days before. When the day changes the rating order is rebuilt
+ * once without the day that left the week. Reviews created before they had a creation time never count towards it.
+ * <p>
+ * The leaderboard is built once at startup, from the review counts and the day rating buckets, and then follows the
+ * writes of this instance only. Changes applied while the startup build runs are replayed on top of it; one that
+ * lands while the build is reading may be counted twice until the next restart.
+ */
+@Slf4j
+@Component
+public class ReviewLeaderboard {
+    private static final int WEEK_DAYS = 7;
+
+    private static final Comparator<Standing> BY_RATING = Comparator
+        .comparingDouble(Standing::averageRating).reversed()
+        .thenComparing(Comparator.comparingLong((Standing standing) -> standing.ratingCount).reversed())
+        .thenComparingLong(standing -> standing.movieInfoId);
+
+    private static final Comparator<Standing> BY_REVIEWS = Comparator
+        .comparingLong((Standing standing) -> standing.reviewCount).reversed()
+        .thenComparingLong(standing -> standing.movieInfoId);
+
+    private final ReviewReactiveRepository reviewReactiveRepository;
+
+    private final RatingBucketRepository ratingBucketRepository;
+
+    private final long minRatingCount;
+
+    private final Clock clock;
+
+    private Map<Long, Standing> standings = new HashMap<>();
+
+    private NavigableSet<Standing> byRating = new TreeSet<>(BY_RATING);
+
+    private NavigableSet<Standing> byReviews = new TreeSet<>(BY_REVIEWS);
+
+    private long today;
+
+    private List<Change> changesDuringRebuild;
+
+    @Autowired
+    public ReviewLeaderboard(ReviewReactiveRepository reviewReactiveRepository,
+                             RatingBucketRepository ratingBucketRepository,
+                             @Value("${leaderboard.minRatingCount:10}") long minRatingCount) {
+        this(reviewReactiveRepository, ratingBucketRepository, minRatingCount, Clock.systemUTC());
+    }
+
+    ReviewLeaderboard(ReviewReactiveRepository reviewReactiveRepository,
+                      RatingBucketRepository ratingBucketRepository,
+                      long minRatingCount,
+                      Clock clock) {
+        this.reviewReactiveRepository = reviewReactiveRepository;
+        this.ratingBucketRepository = ratingBucketRepository;
+        this.minRatingCount = minRatingCount;
+        this.clock = clock;
+        this.today = epochDay(clock.instant());
+    }
+
+    /**
+     * Applies a write to a movie's review count and, when the review was created this week, to the week's ratings.
+     */
+    public synchronized void apply(long movieInfoId, Instant createdAt, int reviewDelta,
+                                   Double removedRating, Double addedRating) {
+        final Change change = new Change(movieInfoId, createdAt, reviewDelta, removedRating, addedRating);
+
+        if (changesDuringRebuild != null) {
+            changesDuringRebuild.add(change);
+        }
+
+        roll();
+        apply(change);
+    }
+
+    public synchronized List<LeaderboardEntry> top(LeaderboardOrder order, int limit) {
+        roll();
+
+        final List<LeaderboardEntry> top = new ArrayList<>(limit);
+        final Iterator<Standing> iterator = (order == LeaderboardOrder.RATING ? byRating : byReviews).iterator();
+
+        while (top.size() < limit && iterator.hasNext()) {
+            final Standing standing = iterator.next();
+            top.add(new LeaderboardEntry(
+                standing.movieInfoId, standing.reviewCount, standing.ratingCount, standing.ratingSum
+            ));
+        }
+
+        return top;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        synchronized (this) {
+            if (changesDuringRebuild != null) {
+                return;
+            }
+            changesDuringRebuild = new ArrayList<>();
+        }
+
+        final Instant weekStart = TrendGranularity.DAY.truncate(clock.instant()).minus(Duration.ofDays(WEEK_DAYS - 1));
+
+        Flux.defer(reviewReactiveRepository::aggregateLeaderboardEntries)
+            .collectList()
+            .zipWith(Flux.defer(() -> ratingBucketRepository.findBuckets(TrendGranularity.DAY, weekStart)).collectList())
+            .subscribe(
+                rebuilt -> {
+                    replace(rebuilt.getT1(), rebuilt.getT2());
+                    log.info("Review leaderboard rebuilt for {} movies", rebuilt.getT1().size());
+                },
+                ex -> {
+                    synchronized (this) {
+                        changesDuringRebuild = null;
+                    }
+                    log.error("Could not rebuild the review leaderboard", ex);
+                }
+            );
+    }
+
+    /**
+     * Replaces the leaderboard with the given review counts and day rating buckets, then replays the changes applied
+     * since the rebuild started.
+     */
+    synchronized void replace(List<LeaderboardEntry> reviewCounts, List<RatingBucket> dayBuckets) {
+        standings = new HashMap<>();
+        byRating = new TreeSet<>(BY_RATING);
+        byReviews = new TreeSet<>(BY_REVIEWS);
+        today = epochDay(clock.instant());
+
+        for (LeaderboardEntry entry : reviewCounts) {
+            if (entry.getReviewCount() > 0) {
+                final Standing standing = new Standing(entry.getMovieInfoId());
+                standing.reviewCount = entry.getReviewCount();
+                standings.put(standing.movieInfoId, standing);
+            }
+        }
+
+        for (RatingBucket bucket : dayBuckets) {
+            final Standing standing = standings.get(bucket.getMovieInfoId());
+
+            if (standing != null) {
+                standing.add(epochDay(bucket.getStart()), today, bucket.getCount(), bucket.getSum());
+            }
+        }
+
+        for (Standing standing : standings.values()) {
+            standing.total(today);
+            link(standing);
+        }
+
+        final List<Change> changes = changesDuringRebuild == null ? List.of() : changesDuringRebuild;
+        changesDuringRebuild = null;
+        changes.forEach(this::apply);
+    }
+
+    private void apply(Change change) {
+        final Standing standing = standings.computeIfAbsent(change.movieInfoId, Standing::new);
+        unlink(standing);
+
+        standing.reviewCount += change.reviewDelta;
+
+        if (change.createdAt != null) {
+            final long day = epochDay(change.createdAt);
+
+            if (change.removedRating != null) {
+                standing.add(day, today, -1, -change.removedRating);
+            }
+
+            if (change.addedRating != null) {
+                standing.add(day, today, 1, change.addedRating);
+            }
+        }
+
+        if (standing.reviewCount <= 0) {
+            standings.remove(change.movieInfoId);
+            return;
+        }
+
+        standing.total(today);
+        link(standing);
+    }
+
+    /**
+     * Moves the week forward when the day has changed since the last read or write.
+     */
+    private void roll() {
+        final long day = epochDay(clock.instant());
+
+        if (day == today) {
+            return;
+        }
+
+        today = day;
+        byRating = new TreeSet<>(BY_RATING);
+
+        for (Standing standing : standings.values()) {
+            standing.total(today);
+
+            if (isRanked(standing)) {
+                byRating.add(standing);
+            }
+        }
+    }
+
+    private void link(Standing standing) {
+        byReviews.add(standing);
+
+        if (isRanked(standing)) {
+            byRating.add(standing);
+        }
+    }
+
+    private void unlink(Standing standing) {
+        byReviews.remove(standing);
+
+        if (isRanked(standing)) {
+            byRating.remove(standing);
+        }
+    }
+
+    private boolean isRanked(Standing standing) {
+        return standing.ratingCount > 0 && standing.ratingCount >= minRatingCount;
+    }
+
+    private static long epochDay(Instant instant) {
+        return Math.floorDiv(instant.getEpochSecond(), Duration.ofDays(1).getSeconds());
+    }
+
+    @AllArgsConstructor
+    private static final class Change {
+        private final long movieInfoId;
+
+        private final Instant createdAt;
+
+        private final int reviewDelta;
+
+        private final Double removedRating;
+
+        private final Double addedRating;
+    }
+
+    /**
+     * A movie's all-time review count and its ratings per day of the week, in slots indexed by epoch day modulo seven.
+     * The week totals only change in {@link #total}, which is called while the standing is out of the ordered sets.
+     */
+    private static final class Standing {
+        private final long movieInfoId;
+
+        private final long[] days = new long[WEEK_DAYS];
+
+        private final long[] dayCounts = new long[WEEK_DAYS];
+
+        private final double[] daySums = new double[WEEK_DAYS];
+
+        private long reviewCount;
+
+        private long ratingCount;
+
+        private double ratingSum;
+
+        private Standing(long movieInfoId) {
+            this.movieInfoId = movieInfoId;
+            Arrays.fill(days, Long.MIN_VALUE);
+        }
+
+        private void add(long day, long today, long count, double sum) {
+            if (day > today || day <= today - WEEK_DAYS) {
+                return;
+            }
+
+            final int slot = Math.floorMod(day, WEEK_DAYS);
+
+            if (days[slot] != day) {
+                if (count < 0) {
+                    return;
+                }
+
+                days[slot] = day;
+                dayCounts[slot] = 0;
+                daySums[slot] = 0;
+            }
+
+            dayCounts[slot] += count;
+            daySums[slot] += sum;
+        }
+
+        private void total(long today) {
+            ratingCount = 0;
+            ratingSum = 0;
+
+            for (int slot = 0; slot < WEEK_DAYS; slot++) {
+                if (days[slot] <= today && days[slot] > today - WEEK_DAYS) {
+                    ratingCount += dayCounts[slot];
+                    ratingSum += daySums[slot];
+                }
+            }
+        }
+
+        private double averageRating() {
+            return ratingCount > 0 ? ratingSum / ratingCount : 0;
+        }
+    }
+}
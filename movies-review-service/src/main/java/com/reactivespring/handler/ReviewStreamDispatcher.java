@@ -0,0 +1,65 @@
+package com.reactivespring.handler;
+
+import com.reactivespring.domain.Review;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Routes each new review only to the subscribers of its movie: one sink per subscribed movieInfoId, created with
+ * the first subscriber and dropped with the last, so publishing costs a map lookup plus the interested subscribers.
+ */
+@Component
+public class ReviewStreamDispatcher {
+    private final Map<Long, KeyedSink> sinks = new ConcurrentHashMap<>();
+
+    public ReviewStreamDispatcher(MeterRegistry meterRegistry) {
+        Gauge.builder("stream.keys", sinks, Map::size)
+            .tag("stream", "reviewsByMovie")
+            .description("Movies with at least one filtered review stream subscriber")
+            .register(meterRegistry);
+    }
+
+    public void publish(Review review) {
+        final KeyedSink keyed = sinks.get(review.getMovieInfoId());
+
+        if (keyed != null) {
+            keyed.sink.emitNext(review, (signal, result) -> result == Sinks.EmitResult.FAIL_NON_SERIALIZED);
+        }
+    }
+
+    public Flux<Review> subscribe(Collection<Long> movieInfoIds) {
+        return Flux.merge(movieInfoIds.stream()
+            .distinct()
+            .map(this::subscribe)
+            .collect(Collectors.toList()));
+    }
+
+    private Flux<Review> subscribe(Long movieInfoId) {
+        return Flux.defer(() -> {
+            final KeyedSink keyed = sinks.compute(movieInfoId, (id, existing) -> {
+                final KeyedSink acquired = existing != null ? existing : new KeyedSink();
+                acquired.subscribers++;
+                return acquired;
+            });
+
+            return keyed.sink.asFlux()
+                .doFinally(signal -> sinks.computeIfPresent(movieInfoId, (id, existing) ->
+                    --existing.subscribers == 0 ? null : existing
+                ));
+        });
+    }
+
+    private static class KeyedSink {
+        private final Sinks.Many<Review> sink = Sinks.many().multicast().directBestEffort();
+
+        private int subscribers;
+    }
+}
@@ -0,0 +1,40 @@
+package com.reactivespring.handler;
+
+import com.reactivespring.repository.ReviewSummaryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Slf4j
+@Component
+public class ReviewSummaryReconciler {
+    private final ReviewSummaryRepository reviewSummaryRepository;
+
+    private final boolean enabled;
+
+    private final AtomicBoolean reconciling = new AtomicBoolean();
+
+    public ReviewSummaryReconciler(ReviewSummaryRepository reviewSummaryRepository,
+                                   @Value("${reviewSummary.reconcileEnabled:true}") boolean enabled) {
+        this.reviewSummaryRepository = reviewSummaryRepository;
+        this.enabled = enabled;
+    }
+
+    @Scheduled(cron = "${reviewSummary.reconcileCron:0 0 3 * * *}")
+    public void reconcile() {
+        if (!enabled || !reconciling.compareAndSet(false, true)) {
+            return;
+        }
+
+        reviewSummaryRepository.rebuild()
+            .count()
+            .doFinally(signal -> reconciling.set(false))
+            .subscribe(
+                count -> log.info("Review summaries rebuilt for {} movies", count),
+                ex -> log.error("Could not rebuild review summaries", ex)
+            );
+    }
+}
@@ -0,0 +1,87 @@
+package com.reactivespring.handler;
+
+import com.reactivespring.domain.RatingBucket;
+import com.reactivespring.domain.RatingTrendPoint;
+import com.reactivespring.domain.TrendGranularity;
+import com.reactivespring.repository.RatingBucketRepository;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds a movie's rating trend from its pre-aggregated hour or day buckets, so the cost of a trend depends on the
+ * number of buckets it spans rather than on the number of reviews.
+ */
+@Component
+public class ReviewTrend {
+    private final RatingBucketRepository ratingBucketRepository;
+
+    public ReviewTrend(RatingBucketRepository ratingBucketRepository) {
+        this.ratingBucketRepository = ratingBucketRepository;
+    }
+
+    /**
+     * Returns a point for every bucket starting in [from, to), each with the rolling average of the window of
+     * buckets that ends with it. Both bounds are bucket starts and the window is a whole number of buckets.
+     */
+    public Mono<List<RatingTrendPoint>> trend(long movieInfoId, TrendGranularity granularity,
+                                              Instant from, Instant to, Duration window) {
+        final Instant readFrom = from.minus(window).plus(granularity.getDuration());
+
+        return ratingBucketRepository.findBuckets(movieInfoId, granularity, readFrom, to)
+            .collectList()
+            .map(buckets -> roll(buckets, granularity, readFrom, to, window));
+    }
+
+    static List<RatingTrendPoint> roll(List<RatingBucket> buckets, TrendGranularity granularity,
+                                       Instant readFrom, Instant to, Duration window) {
+        final long unitMillis = granularity.getDuration().toMillis();
+        final int windowBuckets = (int) (window.toMillis() / unitMillis);
+        final int length = (int) ((to.toEpochMilli() - readFrom.toEpochMilli()) / unitMillis);
+        final long[] counts = new long[length];
+        final double[] sums = new double[length];
+
+        for (RatingBucket bucket : buckets) {
+            final long index = (bucket.getStart().toEpochMilli() - readFrom.toEpochMilli()) / unitMillis;
+
+            if (index >= 0 && index < length) {
+                counts[(int) index] += bucket.getCount();
+                sums[(int) index] += bucket.getSum();
+            }
+        }
+
+        final List<RatingTrendPoint> points = new ArrayList<>(Math.max(length - windowBuckets + 1, 0));
+        long windowCount = 0;
+        double windowSum = 0;
+
+        for (int index = 0; index < length; index++) {
+            windowCount += counts[index];
+            windowSum += sums[index];
+
+            if (index >= windowBuckets) {
+                windowCount -= counts[index - windowBuckets];
+                windowSum -= sums[index - windowBuckets];
+            }
+
+            if (index >= windowBuckets - 1) {
+                points.add(new RatingTrendPoint(
+                    readFrom.plusMillis(index * unitMillis),
+                    counts[index],
+                    average(counts[index], sums[index]),
+                    windowCount,
+                    average(windowCount, windowSum)
+                ));
+            }
+        }
+
+        return points;
+    }
+
+    private static Double average(long count, double sum) {
+        return count > 0 ? sum / count : null;
+    }
+}
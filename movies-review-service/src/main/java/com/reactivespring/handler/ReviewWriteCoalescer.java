@@ -0,0 +1,152 @@
+package com.reactivespring.handler;
+
+import com.reactivespring.domain.Review;
+import com.reactivespring.repository.ReviewReactiveRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Groups concurrent review creates into unordered insertMany batches, closed by size or by time, so a burst of
+ * POSTs costs one round trip per batch instead of one per review. Every caller still receives its own saved review
+ * or its own error. A review whose id is already stored fails the insert with a duplicate key and is then saved on its
+ * own, so a create with an existing id replaces that review as it did before creates were batched. The replaced
+ * review comes back with the saved one, so callers can move its rating out instead of counting a new review.
+ */
+@Slf4j
+@Component
+public class ReviewWriteCoalescer implements DisposableBean {
+    private final ReviewReactiveRepository reviewReactiveRepository;
+
+    private final boolean enabled;
+
+    private final Sinks.Many<PendingWrite> pendingWrites = Sinks.many().unicast().onBackpressureBuffer();
+
+    private final Disposable writer;
+
+    public ReviewWriteCoalescer(ReviewReactiveRepository reviewReactiveRepository,
+                                MeterRegistry meterRegistry,
+                                @Value("${writeCoalescer.enabled:true}") boolean enabled,
+                                @Value("${writeCoalescer.maxBatchSize:500}") int maxBatchSize,
+                                @Value("${writeCoalescer.maxDelay:PT0.005S}") Duration maxDelay,
+                                @Value("${writeCoalescer.maxConcurrentBatches:4}") int maxConcurrentBatches) {
+        this.reviewReactiveRepository = reviewReactiveRepository;
+        this.enabled = enabled;
+
+        final DistributionSummary batchSizes = DistributionSummary.builder("reviews.writeCoalescer.batchSize")
+            .description("Reviews inserted per insertMany")
+            .register(meterRegistry);
+
+        writer = !enabled ? null : pendingWrites.asFlux()
+            .bufferTimeout(maxBatchSize, maxDelay)
+            .onBackpressureBuffer()
+            .doOnNext(batch -> batchSizes.record(batch.size()))
+            .flatMap(this::write, maxConcurrentBatches)
+            .subscribe();
+    }
+
+    public Mono<Saved> save(Review review) {
+        if (!enabled) {
+            return review.getReviewId() == null
+                ? reviewReactiveRepository.save(review).map(savedReview -> new Saved(savedReview, null))
+                : replace(review);
+        }
+
+        return Mono.defer(() -> {
+            final PendingWrite pendingWrite = new PendingWrite(review);
+            pendingWrites.emitNext(pendingWrite, (signal, result) -> result == Sinks.EmitResult.FAIL_NON_SERIALIZED);
+
+            return pendingWrite.result.asMono();
+        });
+    }
+
+    private Mono<Void> write(List<PendingWrite> batch) {
+        return reviewReactiveRepository.insertUnordered(batch.stream().map(pendingWrite -> pendingWrite.review).collect(toList()))
+            .flatMap(failures -> complete(batch, failures))
+            .doOnError(exception -> batch.forEach(pendingWrite -> pendingWrite.result.tryEmitError(exception)))
+            .onErrorResume(exception -> {
+                log.error("Exception in writing a batch of {} reviews", batch.size(), exception);
+                return Mono.empty();
+            })
+            .then();
+    }
+
+    private Mono<Void> complete(List<PendingWrite> batch, Map<Integer, RuntimeException> failures) {
+        final List<Mono<Void>> replacements = new ArrayList<>();
+
+        for (int index = 0; index < batch.size(); index++) {
+            final PendingWrite pendingWrite = batch.get(index);
+            final RuntimeException failure = failures.get(index);
+
+            if (failure instanceof DuplicateKeyException) {
+                replacements.add(replace(pendingWrite));
+            } else if (failure != null) {
+                pendingWrite.result.tryEmitError(failure);
+            } else {
+                pendingWrite.result.tryEmitValue(new Saved(pendingWrite.review, null));
+            }
+        }
+
+        return Mono.when(replacements);
+    }
+
+    private Mono<Void> replace(PendingWrite pendingWrite) {
+        return replace(pendingWrite.review)
+            .doOnNext(pendingWrite.result::tryEmitValue)
+            .doOnError(pendingWrite.result::tryEmitError)
+            .onErrorResume(exception -> Mono.empty())
+            .then();
+    }
+
+    /**
+     * The review may have been deleted since its insert failed, in which case it is stored as a new one.
+     */
+    private Mono<Saved> replace(Review review) {
+        return reviewReactiveRepository.replace(review)
+            .map(previous -> new Saved(review, previous))
+            .defaultIfEmpty(new Saved(review, null));
+    }
+
+    @Override
+    public void destroy() {
+        pendingWrites.tryEmitComplete();
+
+        if (writer != null) {
+            writer.dispose();
+        }
+    }
+
+    private static class PendingWrite {
+        private final Review review;
+
+        private final Sinks.One<Saved> result = Sinks.one();
+
+        private PendingWrite(Review review) {
+            this.review = review;
+        }
+    }
+
+    /**
+     * A stored review and the review it replaced, which is null when the review was new.
+     */
+    @lombok.Value
+    public static class Saved {
+        Review review;
+
+        Review previous;
+    }
+}
@@ -0,0 +1,412 @@
+package com.reactivespring.handler;
+
+import com.reactivespring.domain.Review;
+import com.reactivespring.domain.ReviewSort;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Caches the head of each movie's review list, per sort, for first-page reads. Entries live in an open-addressing
+ * table of primitive {@code long} movie ids with parallel value arrays, so there is no boxed key or entry object per
+ * movie. The cached arrays are never modified, and a write to a movie drops all its entries. Writes made by other
+ * instances or directly in the database are picked up once an entry expires.
+ * <p>
+ * The table is bounded by the estimated bytes of the cached reviews and evicts with the clock algorithm: a lookup
+ * marks its slot as referenced, and the eviction hand spares a referenced slot once.
+ * <p>
+ * Lookups take no lock: they read the table optimistically and only fall back to the read lock when a write ran
+ * meanwhile. Puts and invalidations take the write lock. The parallel arrays are replaced together on growth, so an
+ * optimistic read always sees arrays of the same length.
+ */
+@Component
+public class ReviewsByMovieCache {
+    private static final int SORTS = ReviewSort.values().length;
+
+    private static final int STRIPES = 64;
+
+    private static final long REVIEW_BYTES = 128;
+
+    private static final long ARRAY_BYTES = 16;
+
+    private final boolean enabled;
+
+    private final long maxBytes;
+
+    private final long timeToLiveNanos;
+
+    private final AtomicLongArray invalidations = new AtomicLongArray(STRIPES);
+
+    private final StampedLock lock = new StampedLock();
+
+    private Table table = new Table(16);
+
+    private int size;
+
+    private int hand;
+
+    private long totalBytes;
+
+    private final Counter hits;
+
+    private final Counter misses;
+
+    public ReviewsByMovieCache(MeterRegistry meterRegistry,
+                               @Value("${reviewCache.enabled:true}") boolean enabled,
+                               @Value("${reviewCache.maxBytes:33554432}") long maxBytes,
+                               @Value("${reviewCache.timeToLive:PT10S}") Duration timeToLive) {
+        this.enabled = enabled;
+        this.maxBytes = maxBytes;
+        this.timeToLiveNanos = timeToLive.toNanos();
+
+        Gauge.builder("reviews.cache.bytes", this, ReviewsByMovieCache::totalBytes)
+            .description("Estimated bytes of the cached reviews by movie")
+            .register(meterRegistry);
+        Gauge.builder("reviews.cache.movies", this, ReviewsByMovieCache::size)
+            .description("Movies with cached reviews")
+            .register(meterRegistry);
+        hits = lookups(meterRegistry, "hit");
+        misses = lookups(meterRegistry, "miss");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the cached reviews when they hold at least {@code count} reviews or every review of the movie, or null.
+     */
+    public List<Review> get(long movieInfoId, ReviewSort sort, int count) {
+        if (!enabled) {
+            return null;
+        }
+
+        long stamp = lock.tryOptimisticRead();
+        Review[] reviews = lookup(table, movieInfoId, sort, count);
+
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                reviews = lookup(table, movieInfoId, sort, count);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        if (reviews == null) {
+            misses.increment();
+            return null;
+        }
+
+        hits.increment();
+        return Collections.unmodifiableList(Arrays.asList(reviews));
+    }
+
+    /**
+     * Returns the invalidation stamp to pass to {@link #put}, taken before the reviews are read.
+     */
+    public long stamp(long movieInfoId) {
+        return invalidations.get(stripe(movieInfoId));
+    }
+
+    /**
+     * Caches the first reviews of a movie read with the given limit, unless a write to the movie was invalidated
+     * since the stamp was taken, in which case the reviews may already be stale.
+     */
+    public void put(long movieInfoId, ReviewSort sort, List<Review> reviews, int limit, long stamp) {
+        if (!enabled) {
+            return;
+        }
+
+        final Review[] copy = reviews.toArray(new Review[0]);
+        final long copyBytes = estimate(copy);
+
+        if (copyBytes > maxBytes) {
+            return;
+        }
+
+        final long writeStamp = lock.writeLock();
+        try {
+            if (invalidations.get(stripe(movieInfoId)) != stamp) {
+                return;
+            }
+
+            int slot = table.find(movieInfoId);
+
+            if (slot >= 0) {
+                final Review[] previous = table.values[sort.ordinal()][slot];
+                final long previousBytes = previous == null ? 0 : estimate(previous);
+                table.bytes[slot] -= previousBytes;
+                totalBytes -= previousBytes;
+                table.values[sort.ordinal()][slot] = null;
+            }
+
+            evict(copyBytes, movieInfoId);
+
+            slot = table.find(movieInfoId);
+            if (slot < 0) {
+                if (size + 1 > table.keys.length * 3 / 4) {
+                    grow();
+                }
+                slot = insert(movieInfoId);
+            }
+
+            table.values[sort.ordinal()][slot] = copy;
+            table.complete[sort.ordinal()][slot] = copy.length < limit;
+            table.expiresAt[sort.ordinal()][slot] = System.nanoTime() + timeToLiveNanos;
+            table.bytes[slot] += copyBytes;
+            totalBytes += copyBytes;
+        } finally {
+            lock.unlockWrite(writeStamp);
+        }
+    }
+
+    public void invalidate(long movieInfoId) {
+        final long stamp = lock.writeLock();
+        try {
+            invalidations.incrementAndGet(stripe(movieInfoId));
+
+            final int slot = table.find(movieInfoId);
+            if (slot >= 0) {
+                remove(slot);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    long totalBytes() {
+        final long stamp = lock.readLock();
+        try {
+            return totalBytes;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    int size() {
+        final long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Looks the reviews up without assuming any lock is held. Under an optimistic read the result is discarded unless
+     * the stamp validates; the referenced mark it may leave on a moved slot only spares that slot once more.
+     */
+    private static Review[] lookup(Table table, long movieInfoId, ReviewSort sort, int count) {
+        final int slot = table.find(movieInfoId);
+
+        if (slot < 0) {
+            return null;
+        }
+
+        final Review[] reviews = table.values[sort.ordinal()][slot];
+
+        if (reviews == null
+            || System.nanoTime() - table.expiresAt[sort.ordinal()][slot] > 0
+            || (reviews.length < count && !table.complete[sort.ordinal()][slot])) {
+            return null;
+        }
+
+        table.referenced[slot] = true;
+        return reviews;
+    }
+
+    /**
+     * Evicts other movies until the new reviews fit. The movie being cached is never evicted here.
+     */
+    private void evict(long needed, long keep) {
+        final int kept = table.find(keep) >= 0 ? 1 : 0;
+
+        while (totalBytes + needed > maxBytes && size > kept) {
+            hand = (hand + 1) & table.mask;
+
+            if (!table.used[hand] || table.keys[hand] == keep) {
+                continue;
+            }
+
+            if (table.referenced[hand]) {
+                table.referenced[hand] = false;
+            } else {
+                remove(hand);
+            }
+        }
+    }
+
+    private int insert(long key) {
+        final int slot = table.insert(key);
+        size++;
+
+        return slot;
+    }
+
+    /**
+     * Removes the slot and shifts the following entries of its probe run back, so lookups need no tombstones.
+     */
+    private void remove(int slot) {
+        final int mask = table.mask;
+        totalBytes -= table.bytes[slot];
+        table.clear(slot);
+        size--;
+
+        int empty = slot;
+        for (int next = (slot + 1) & mask; table.used[next]; next = (next + 1) & mask) {
+            final int home = hash(table.keys[next]) & mask;
+
+            if (((next - home) & mask) >= ((next - empty) & mask)) {
+                table.move(next, empty);
+                empty = next;
+            }
+        }
+    }
+
+    private void grow() {
+        final Table old = table;
+        final Table grown = new Table(old.keys.length * 2);
+
+        for (int slot = 0; slot < old.keys.length; slot++) {
+            if (old.used[slot]) {
+                grown.copy(old, slot, grown.insert(old.keys[slot]));
+            }
+        }
+
+        table = grown;
+        hand = 0;
+    }
+
+    /**
+     * Rough heap size of the cached array: the array itself plus a fixed cost per review for the object, its boxed
+     * fields and string headers, and a byte per character of its id and comment.
+     */
+    private static long estimate(Review[] reviews) {
+        long estimate = ARRAY_BYTES + 4L * reviews.length;
+
+        for (Review review : reviews) {
+            estimate += REVIEW_BYTES + length(review.getReviewId()) + length(review.getComment());
+        }
+
+        return estimate;
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    private static int stripe(long movieInfoId) {
+        return hash(movieInfoId) & (STRIPES - 1);
+    }
+
+    private static int hash(long key) {
+        final long mixed = key * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+
+    private static Counter lookups(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("reviews.cache.lookups")
+            .tag("result", result)
+            .description("First-page review reads by movie served from or missing the cache")
+            .register(meterRegistry);
+    }
+
+    /**
+     * The parallel slot arrays, allocated and replaced together. Probes are bounded by the capacity so a lookup racing
+     * a write cannot loop.
+     */
+    private static final class Table {
+        private final int mask;
+
+        private final long[] keys;
+
+        private final boolean[] used;
+
+        private final Review[][][] values;
+
+        private final boolean[][] complete;
+
+        private final long[][] expiresAt;
+
+        private final long[] bytes;
+
+        private final boolean[] referenced;
+
+        private Table(int capacity) {
+            mask = capacity - 1;
+            keys = new long[capacity];
+            used = new boolean[capacity];
+            values = new Review[SORTS][capacity][];
+            complete = new boolean[SORTS][capacity];
+            expiresAt = new long[SORTS][capacity];
+            bytes = new long[capacity];
+            referenced = new boolean[capacity];
+        }
+
+        private int find(long key) {
+            int slot = hash(key) & mask;
+
+            for (int probes = 0; probes <= mask && used[slot]; probes++, slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return slot;
+                }
+            }
+
+            return -1;
+        }
+
+        private int insert(long key) {
+            int slot = hash(key) & mask;
+
+            while (used[slot]) {
+                slot = (slot + 1) & mask;
+            }
+
+            used[slot] = true;
+            keys[slot] = key;
+            referenced[slot] = false;
+
+            return slot;
+        }
+
+        private void move(int from, int to) {
+            copy(this, from, to);
+            clear(from);
+        }
+
+        private void copy(Table source, int from, int to) {
+            used[to] = true;
+            keys[to] = source.keys[from];
+            bytes[to] = source.bytes[from];
+            referenced[to] = source.referenced[from];
+
+            for (int sort = 0; sort < SORTS; sort++) {
+                values[sort][to] = source.values[sort][from];
+                complete[sort][to] = source.complete[sort][from];
+                expiresAt[sort][to] = source.expiresAt[sort][from];
+            }
+        }
+
+        private void clear(int slot) {
+            used[slot] = false;
+            bytes[slot] = 0;
+            referenced[slot] = false;
+
+            for (int sort = 0; sort < SORTS; sort++) {
+                values[sort][slot] = null;
+                complete[sort][slot] = false;
+                expiresAt[sort][slot] = 0;
+            }
+        }
+    }
+}
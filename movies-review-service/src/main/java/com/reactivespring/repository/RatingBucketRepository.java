@@ -0,0 +1,7 @@
+package com.reactivespring.repository;
+
+import com.reactivespring.domain.RatingBucket;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+public interface RatingBucketRepository extends ReactiveMongoRepository<RatingBucket, String>, RatingBucketRepositoryCustom {
+}
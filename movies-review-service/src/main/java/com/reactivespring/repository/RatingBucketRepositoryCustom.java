@@ -0,0 +1,14 @@
+package com.reactivespring.repository;
+
+import com.reactivespring.domain.RatingBucket;
+import com.reactivespring.domain.TrendGranularity;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+
+public interface RatingBucketRepositoryCustom {
+    Mono<Void> applyRatingChange(long movieInfoId, Instant createdAt, Double removedRating, Double addedRating);
+    Flux<RatingBucket> findBuckets(long movieInfoId, TrendGranularity granularity, Instant from, Instant to);
+    Flux<RatingBucket> findBuckets(TrendGranularity granularity, Instant from);
+}
@@ -0,0 +1,90 @@
+package com.reactivespring.repository;
+
+import com.reactivespring.domain.RatingBucket;
+import com.reactivespring.domain.TrendGranularity;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.Objects;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+public class RatingBucketRepositoryCustomImpl implements RatingBucketRepositoryCustom {
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    public RatingBucketRepositoryCustomImpl(ReactiveMongoTemplate reactiveMongoTemplate) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+    }
+
+    /**
+     * Moves a rating in or out of the hour and day buckets of the review's creation time. Reviews created before
+     * they had a creation time are not in any bucket, so changes to them are ignored.
+     */
+    @Override
+    public Mono<Void> applyRatingChange(long movieInfoId, Instant createdAt, Double removedRating, Double addedRating) {
+        if (createdAt == null || Objects.equals(removedRating, addedRating)) {
+            return Mono.empty();
+        }
+
+        long countDelta = 0;
+        double sumDelta = 0;
+
+        if (removedRating != null) {
+            countDelta--;
+            sumDelta -= removedRating;
+        }
+
+        if (addedRating != null) {
+            countDelta++;
+            sumDelta += addedRating;
+        }
+
+        final long count = countDelta;
+        final double sum = sumDelta;
+
+        return Flux.fromArray(TrendGranularity.values())
+            .flatMap(granularity -> {
+                final Instant start = granularity.truncate(createdAt);
+                final Update update = new Update()
+                    .inc("count", count)
+                    .inc("sum", sum)
+                    .setOnInsert("movieInfoId", movieInfoId)
+                    .setOnInsert("granularity", granularity.name())
+                    .setOnInsert("start", Date.from(start));
+
+                return reactiveMongoTemplate.upsert(
+                    new Query(where("_id").is(RatingBucket.id(movieInfoId, granularity, start))),
+                    update,
+                    RatingBucket.class
+                );
+            })
+            .then();
+    }
+
+    @Override
+    public Flux<RatingBucket> findBuckets(long movieInfoId, TrendGranularity granularity, Instant from, Instant to) {
+        final Query query = new Query(where("movieInfoId").is(movieInfoId)
+            .and("granularity").is(granularity.name())
+            .and("start").gte(Date.from(from)).lt(Date.from(to)))
+            .with(Sort.by(Sort.Direction.ASC, "start"));
+
+        return reactiveMongoTemplate.find(query, RatingBucket.class);
+    }
+
+    /**
+     * Returns the buckets of every movie starting at or after {@code from}.
+     */
+    @Override
+    public Flux<RatingBucket> findBuckets(TrendGranularity granularity, Instant from) {
+        return reactiveMongoTemplate.find(
+            new Query(where("granularity").is(granularity.name()).and("start").gte(Date.from(from))),
+            RatingBucket.class
+        );
+    }
+}
@@ -0,0 +1,402 @@
+package com.reactivespring.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reactivespring.domain.Review;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of accepted reviews in memory-mapped segment files. Each record is its length, a CRC32 and the
+ * review as JSON; a zero length, a bad checksum or the end of the segment ends the records of a segment, so a record
+ * torn by a crash is ignored. The drained position is kept in a checkpoint file, and segments before it are deleted.
+ * <p>
+ * Records are written by a single journal writer thread, so neither the copy into the mapping nor the mapping of a
+ * new segment runs on the caller's thread. The writer takes every append queued since its last pass, writes them in
+ * order and then completes them together. Appended records survive a crash of the process once they are written to
+ * the mapping. With {@code ingestion.forceOnAppend} each pass also forces the segments it wrote to disk before
+ * completing its appends, which covers a crash of the machine at the cost of one force per pass, not per append.
+ */
+@Slf4j
+@Component
+public class ReviewJournal implements DisposableBean {
+    private static final String SEGMENT_PREFIX = "journal-";
+
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private static final String CHECKPOINT = "checkpoint";
+
+    private static final int HEADER_BYTES = 8;
+
+    private final ObjectMapper objectMapper;
+
+    private final boolean enabled;
+
+    private final Path directory;
+
+    private final int segmentBytes;
+
+    private final boolean forceOnAppend;
+
+    private final Map<Long, MappedByteBuffer> segments = new ConcurrentSkipListMap<>();
+
+    private final Queue<PendingAppend> pendingAppends = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger pendingPasses = new AtomicInteger();
+
+    private Scheduler writer;
+
+    private volatile Position written;
+
+    private volatile Position committed;
+
+    public ReviewJournal(ObjectMapper objectMapper,
+                         MeterRegistry meterRegistry,
+                         @Value("${ingestion.asyncEnabled:false}") boolean enabled,
+                         @Value("${ingestion.journalDirectory:journal}") String directory,
+                         @Value("${ingestion.segmentBytes:67108864}") int segmentBytes,
+                         @Value("${ingestion.forceOnAppend:false}") boolean forceOnAppend) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.directory = Paths.get(directory);
+        this.segmentBytes = segmentBytes;
+        this.forceOnAppend = forceOnAppend;
+
+        if (enabled) {
+            recover();
+            writer = Schedulers.newSingle("journal-writer", true);
+            Gauge.builder("reviews.journal.backlogBytes", this, ReviewJournal::backlogBytes)
+                .description("Journaled bytes not yet drained to MongoDB")
+                .register(meterRegistry);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues the review for the journal writer. The returned Mono completes on the writer thread once the record is
+     * in the journal, and forced to disk with {@code ingestion.forceOnAppend}.
+     */
+    public Mono<Void> append(Review review) {
+        return Mono.create(sink -> {
+            final byte[] payload = serialize(review);
+
+            if (HEADER_BYTES + payload.length > segmentBytes) {
+                sink.error(new IllegalArgumentException(
+                    "Review of " + payload.length + " bytes does not fit a journal segment"));
+                return;
+            }
+
+            pendingAppends.add(new PendingAppend(payload, sink));
+
+            if (pendingPasses.getAndIncrement() == 0) {
+                writer.schedule(this::writePendingAppends);
+            }
+        });
+    }
+
+    /**
+     * Runs on the writer thread until no append is left, taking all queued appends in each pass.
+     */
+    private void writePendingAppends() {
+        int passes = 1;
+
+        do {
+            final List<PendingAppend> batch = new ArrayList<>();
+            PendingAppend pendingAppend;
+
+            while ((pendingAppend = pendingAppends.poll()) != null) {
+                batch.add(pendingAppend);
+            }
+
+            if (!batch.isEmpty()) {
+                write(batch);
+            }
+
+            passes = pendingPasses.addAndGet(-passes);
+        } while (passes != 0);
+    }
+
+    private void write(List<PendingAppend> batch) {
+        final Set<Long> touched = new TreeSet<>();
+
+        try {
+            for (PendingAppend pendingAppend : batch) {
+                touched.add(writeRecord(pendingAppend.payload));
+            }
+
+            if (forceOnAppend) {
+                touched.forEach(segment -> segment(segment).force());
+            }
+        } catch (RuntimeException ex) {
+            batch.forEach(pendingAppend -> pendingAppend.sink.error(ex));
+            return;
+        }
+
+        batch.forEach(pendingAppend -> pendingAppend.sink.success());
+    }
+
+    /**
+     * Writes the record at the end of the journal and returns its segment.
+     */
+    private long writeRecord(byte[] payload) {
+        Position position = written;
+
+        if (position.getOffset() + HEADER_BYTES + payload.length > segmentBytes) {
+            position = new Position(position.getSegment() + 1, 0);
+        }
+
+        final ByteBuffer buffer = segment(position.getSegment()).duplicate();
+        buffer.position(position.getOffset() + HEADER_BYTES);
+        buffer.put(payload);
+        buffer.putInt(position.getOffset() + 4, (int) checksum(payload));
+        buffer.putInt(position.getOffset(), payload.length);
+
+        written = new Position(position.getSegment(), position.getOffset() + HEADER_BYTES + payload.length);
+        return position.getSegment();
+    }
+
+    /**
+     * Reads up to {@code maxEntries} records after the committed position. Reading does not move the committed
+     * position, so records that could not be drained are read again until {@link #commit(Position)} is called.
+     */
+    public List<Entry> read(int maxEntries) {
+        final List<Entry> entries = new ArrayList<>();
+        final Position end = written;
+        Position position = committed;
+
+        while (entries.size() < maxEntries && position.compareTo(end) < 0) {
+            final byte[] payload = record(segment(position.getSegment()), position.getOffset());
+
+            if (payload == null) {
+                position = new Position(position.getSegment() + 1, 0);
+                continue;
+            }
+
+            position = new Position(position.getSegment(), position.getOffset() + HEADER_BYTES + payload.length);
+            entries.add(new Entry(deserialize(payload), position));
+        }
+
+        return entries;
+    }
+
+    public void commit(Position position) {
+        writeCheckpoint(position);
+        committed = position;
+
+        final List<Long> drained = new ArrayList<>();
+        segments.keySet().stream().filter(segment -> segment < position.getSegment()).forEach(drained::add);
+
+        for (Long segment : drained) {
+            segments.remove(segment);
+            delete(segmentPath(segment));
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (writer != null) {
+            writer.dispose();
+        }
+        segments.values().forEach(MappedByteBuffer::force);
+    }
+
+    private long backlogBytes() {
+        final Position end = written;
+        final Position start = committed;
+
+        return (end.getSegment() - start.getSegment()) * (long) segmentBytes + end.getOffset() - start.getOffset();
+    }
+
+    private void recover() {
+        try {
+            Files.createDirectories(directory);
+            final TreeMap<Long, Path> existing = new TreeMap<>();
+
+            try (Stream<Path> files = Files.list(directory)) {
+                files.filter(file -> file.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .forEach(file -> existing.put(segmentNumber(file), file));
+            }
+
+            committed = readCheckpoint().orElseGet(() -> new Position(existing.isEmpty() ? 0 : existing.firstKey(), 0));
+            existing.headMap(committed.getSegment()).values().forEach(ReviewJournal::delete);
+
+            final long last = existing.isEmpty()
+                ? committed.getSegment()
+                : Math.max(existing.lastKey(), committed.getSegment());
+            written = new Position(last, last == committed.getSegment() ? committed.getOffset() : 0);
+
+            byte[] payload;
+            while ((payload = record(segment(last), written.getOffset())) != null) {
+                written = new Position(last, written.getOffset() + HEADER_BYTES + payload.length);
+            }
+
+            log.info("Review journal recovered, {} bytes to drain", backlogBytes());
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Returns the payload of a valid record at the offset, or null where the records of the segment end.
+     */
+    private byte[] record(ByteBuffer segment, int offset) {
+        if (offset + HEADER_BYTES > segmentBytes) {
+            return null;
+        }
+
+        final int length = segment.getInt(offset);
+
+        if (length <= 0 || offset + HEADER_BYTES + length > segmentBytes) {
+            return null;
+        }
+
+        final byte[] payload = new byte[length];
+        final ByteBuffer view = segment.duplicate();
+        view.position(offset + HEADER_BYTES);
+        view.get(payload);
+
+        return (int) checksum(payload) == segment.getInt(offset + 4) ? payload : null;
+    }
+
+    private MappedByteBuffer segment(long segment) {
+        return segments.computeIfAbsent(segment, number -> {
+            try (FileChannel channel = FileChannel.open(segmentPath(number),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+    }
+
+    private Optional<Position> readCheckpoint() throws IOException {
+        final Path checkpoint = directory.resolve(CHECKPOINT);
+
+        if (!Files.exists(checkpoint)) {
+            return Optional.empty();
+        }
+
+        final ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(checkpoint));
+        return Optional.of(new Position(buffer.getLong(), buffer.getInt()));
+    }
+
+    private void writeCheckpoint(Position position) {
+        final ByteBuffer buffer = ByteBuffer.allocate(12).putLong(position.getSegment()).putInt(position.getOffset());
+        final Path temporary = directory.resolve(CHECKPOINT + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temporary,
+            StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            channel.write(buffer.flip());
+            channel.force(true);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+
+        try {
+            Files.move(temporary, directory.resolve(CHECKPOINT), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve(String.format("%s%019d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+    }
+
+    private static long segmentNumber(Path file) {
+        final String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ex) {
+            log.warn("Could not delete drained journal segment {}", file, ex);
+        }
+    }
+
+    private byte[] serialize(Review review) {
+        try {
+            return objectMapper.writeValueAsBytes(review);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private Review deserialize(byte[] payload) {
+        try {
+            return objectMapper.readValue(payload, Review.class);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static long checksum(byte[] payload) {
+        final CRC32 crc = new CRC32();
+        crc.update(payload);
+        return crc.getValue();
+    }
+
+    @lombok.Value
+    public static class Position implements Comparable<Position> {
+        long segment;
+
+        int offset;
+
+        @Override
+        public int compareTo(Position other) {
+            final int bySegment = Long.compare(segment, other.segment);
+            return bySegment != 0 ? bySegment : Integer.compare(offset, other.offset);
+        }
+    }
+
+    @AllArgsConstructor
+    private static class PendingAppend {
+        private final byte[] payload;
+
+        private final MonoSink<Void> sink;
+    }
+
+    @lombok.Value
+    public static class Entry {
+        Review review;
+
+        Position next;
+    }
+}
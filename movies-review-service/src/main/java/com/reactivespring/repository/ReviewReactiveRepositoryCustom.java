@@ -0,0 +1,30 @@
+package com.reactivespring.repository;
+
+import com.reactivespring.domain.LeaderboardEntry;
+import com.reactivespring.domain.Review;
+import com.reactivespring.domain.ReviewEvent;
+import com.reactivespring.domain.ReviewCursor;
+import com.reactivespring.domain.ReviewSort;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+public interface ReviewReactiveRepositoryCustom {
+    Flux<Review> findAll();
+    Flux<Review> findByMovieInfoId(long movieInfoId);
+    Flux<Review> findAllForExport(int batchSize, boolean snapshot);
+    Flux<Review> findPage(Long movieInfoId, ReviewSort sort, ReviewCursor after, int limit);
+    Flux<Review> findFirstPageFromPrimary(long movieInfoId, ReviewSort sort, int limit);
+    Mono<Map<Integer, RuntimeException>> insertUnordered(List<Review> reviews);
+    Mono<Map<Integer, RuntimeException>> insertUnapplied(List<Review> reviews);
+    Mono<Review> findUnapplied(String reviewId);
+    Mono<Void> markApplied(String reviewId);
+    Mono<Review> replace(Review review);
+    Flux<LeaderboardEntry> aggregateLeaderboardEntries();
+    Mono<Void> createEventLog(String collectionName, long maxBytes, long maxDocuments);
+    Mono<ReviewEvent> appendEvent(String collectionName, Review review);
+    Flux<ReviewEvent> tailEvents(String collectionName);
+    Mono<Boolean> eventExists(String collectionName, String eventId);
+}
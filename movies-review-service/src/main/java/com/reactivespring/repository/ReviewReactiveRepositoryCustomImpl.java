@@ -0,0 +1,282 @@
+package com.reactivespring.repository;
+
+import com.mongodb.ClientSessionOptions;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoWriteException;
+import com.mongodb.ReadPreference;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.reactivestreams.client.ClientSession;
+import com.reactivespring.domain.LeaderboardEntry;
+import com.reactivespring.domain.Review;
+import com.reactivespring.domain.ReviewEvent;
+import com.reactivespring.domain.ReviewCursor;
+import com.reactivespring.domain.ReviewSort;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.CollectionOptions;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoExceptionTranslator;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.schema.JsonSchemaObject;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+public class ReviewReactiveRepositoryCustomImpl implements ReviewReactiveRepositoryCustom {
+    private static final MongoExceptionTranslator EXCEPTION_TRANSLATOR = new MongoExceptionTranslator();
+
+    private static final String UNAPPLIED = "unapplied";
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    private final ReactiveMongoTemplate readReactiveMongoTemplate;
+
+    public ReviewReactiveRepositoryCustomImpl(ReactiveMongoTemplate reactiveMongoTemplate,
+                                              @Value("${mongo.reads.readPreference:primary}") String readPreference,
+                                              @Value("${mongo.reads.maxStalenessSeconds:0}") long maxStalenessSeconds) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.readReactiveMongoTemplate = new ReactiveMongoTemplate(
+            reactiveMongoTemplate.getMongoDatabaseFactory(), reactiveMongoTemplate.getConverter()
+        );
+        this.readReactiveMongoTemplate.setReadPreference(readPreference(readPreference, maxStalenessSeconds));
+    }
+
+    @Override
+    public Flux<Review> findAll() {
+        return readReactiveMongoTemplate.find(new Query(), Review.class);
+    }
+
+    @Override
+    public Flux<Review> findByMovieInfoId(long movieInfoId) {
+        return readReactiveMongoTemplate.find(new Query(where("movieInfoId").is(movieInfoId)), Review.class);
+    }
+
+    @Override
+    public Flux<Review> findAllForExport(int batchSize, boolean snapshot) {
+        final Query query = new Query()
+            .cursorBatchSize(batchSize)
+            .noCursorTimeout();
+
+        if (!snapshot) {
+            return readReactiveMongoTemplate.find(query, Review.class);
+        }
+
+        return readReactiveMongoTemplate.withSession(ClientSessionOptions.builder().snapshot(true).build())
+            .execute(operations -> operations.find(query, Review.class), ClientSession::close);
+    }
+
+    @Override
+    public Flux<Review> findPage(Long movieInfoId, ReviewSort sort, ReviewCursor after, int limit) {
+        return readReactiveMongoTemplate.find(pageQuery(movieInfoId, sort, after, limit), Review.class);
+    }
+
+    /**
+     * Reads the first page of a movie from the primary regardless of the configured read preference, for loads whose
+     * result is cached.
+     */
+    @Override
+    public Flux<Review> findFirstPageFromPrimary(long movieInfoId, ReviewSort sort, int limit) {
+        return reactiveMongoTemplate.find(pageQuery(movieInfoId, sort, null, limit), Review.class);
+    }
+
+    private static Query pageQuery(Long movieInfoId, ReviewSort sort, ReviewCursor after, int limit) {
+        final List<Criteria> criteria = new ArrayList<>();
+
+        if (movieInfoId != null) {
+            criteria.add(where("movieInfoId").is(movieInfoId));
+        }
+
+        if (after != null) {
+            criteria.add(sort == ReviewSort.RATING ? ratingBefore(after) : reviewIdBefore(after.getReviewId()));
+        }
+
+        return new Query(criteria.isEmpty() ? new Criteria() : new Criteria().andOperator(criteria))
+            .with(sort == ReviewSort.RATING
+                ? Sort.by(Sort.Direction.DESC, "rating", "reviewId")
+                : Sort.by(Sort.Direction.DESC, "reviewId"))
+            .limit(limit);
+    }
+
+    /**
+     * Inserts the reviews with a single unordered insertMany. Ids are assigned up front and written back to the
+     * given reviews, and the failures are returned by position so one bad document does not fail the others.
+     */
+    @Override
+    public Mono<Map<Integer, RuntimeException>> insertUnordered(List<Review> reviews) {
+        return insertUnordered(reviews, false);
+    }
+
+    /**
+     * Inserts the reviews like {@link #insertUnordered(List)} and marks them until {@link #markApplied(String)} is
+     * called, so a review stored before a crash can be told apart from one whose side effects were applied as well.
+     */
+    @Override
+    public Mono<Map<Integer, RuntimeException>> insertUnapplied(List<Review> reviews) {
+        return insertUnordered(reviews, true);
+    }
+
+    @Override
+    public Mono<Review> findUnapplied(String reviewId) {
+        return reactiveMongoTemplate.findOne(new Query(where("reviewId").is(reviewId).and(UNAPPLIED).is(true)), Review.class);
+    }
+
+    @Override
+    public Mono<Void> markApplied(String reviewId) {
+        return reactiveMongoTemplate.updateFirst(new Query(where("reviewId").is(reviewId)), new Update().unset(UNAPPLIED), Review.class)
+            .then();
+    }
+
+    private Mono<Map<Integer, RuntimeException>> insertUnordered(List<Review> reviews, boolean unapplied) {
+        final List<Document> documents = new ArrayList<>(reviews.size());
+
+        for (Review review : reviews) {
+            final Document document = new Document();
+            reactiveMongoTemplate.getConverter().write(review, document);
+
+            if (document.get("_id") == null) {
+                final ObjectId id = new ObjectId();
+                document.put("_id", id);
+                review.setReviewId(id.toHexString());
+            }
+
+            if (unapplied) {
+                document.put(UNAPPLIED, true);
+            }
+
+            documents.add(document);
+        }
+
+        return reactiveMongoTemplate.getCollection(reactiveMongoTemplate.getCollectionName(Review.class))
+            .flatMap(collection -> Mono.from(collection.insertMany(documents, new InsertManyOptions().ordered(false))))
+            .map(result -> Map.<Integer, RuntimeException>of())
+            .onErrorResume(MongoBulkWriteException.class, exception -> {
+                final Map<Integer, RuntimeException> failures = new HashMap<>();
+
+                for (BulkWriteError writeError : exception.getWriteErrors()) {
+                    failures.put(writeError.getIndex(), translate(new MongoWriteException(writeError, exception.getServerAddress())));
+                }
+
+                return Mono.just(failures);
+            });
+    }
+
+    /**
+     * Replaces the review stored under the same id, or inserts it when there is none, and returns the review it
+     * replaced.
+     */
+    @Override
+    public Mono<Review> replace(Review review) {
+        return reactiveMongoTemplate.findAndReplace(
+            new Query(where("reviewId").is(review.getReviewId())), review, FindAndReplaceOptions.options().upsert()
+        );
+    }
+
+    /**
+     * Counts the reviews of every movie. The ratings of the entries are left empty: the leaderboard ranks by the
+     * ratings of the last week, which it reads from the day rating buckets.
+     */
+    @Override
+    public Flux<LeaderboardEntry> aggregateLeaderboardEntries() {
+        final Aggregation aggregation = Aggregation.newAggregation(
+            Aggregation.group("movieInfoId").count().as("reviewCount"),
+            Aggregation.project("reviewCount").and("movieInfoId").previousOperation()
+        );
+
+        return readReactiveMongoTemplate.aggregate(aggregation, Review.class, LeaderboardEntry.class);
+    }
+
+    /**
+     * Creates the capped collection unless it exists; losing a creation race with another instance is not an error.
+     */
+    @Override
+    public Mono<Void> createEventLog(String collectionName, long maxBytes, long maxDocuments) {
+        return reactiveMongoTemplate.collectionExists(collectionName)
+            .filter(exists -> !exists)
+            .flatMap(missing -> reactiveMongoTemplate.createCollection(
+                    collectionName, CollectionOptions.empty().capped().size(maxBytes).maxDocuments(maxDocuments)
+                )
+                .onErrorResume(ex -> reactiveMongoTemplate.collectionExists(collectionName)
+                    .filter(Boolean::booleanValue)
+                    .switchIfEmpty(Mono.error(ex))
+                    .then(Mono.empty())))
+            .then();
+    }
+
+    @Override
+    public Mono<ReviewEvent> appendEvent(String collectionName, Review review) {
+        return reactiveMongoTemplate.insert(new ReviewEvent(null, review), collectionName);
+    }
+
+    /**
+     * Tails the capped collection from its oldest event in natural order, which is the order the server inserted the
+     * events in. The cursor ends when the collection is empty or the tail falls behind the cap, so callers repeat it.
+     */
+    @Override
+    public Flux<ReviewEvent> tailEvents(String collectionName) {
+        return reactiveMongoTemplate.tail(new Query(), ReviewEvent.class, collectionName);
+    }
+
+    @Override
+    public Mono<Boolean> eventExists(String collectionName, String eventId) {
+        return reactiveMongoTemplate.exists(new Query(where("eventId").is(new ObjectId(eventId))), ReviewEvent.class, collectionName);
+    }
+
+    private RuntimeException translate(RuntimeException exception) {
+        final RuntimeException translated = EXCEPTION_TRANSLATOR.translateExceptionIfPossible(exception);
+
+        return translated != null ? translated : exception;
+    }
+
+    /**
+     * Reviews without a rating sort last in descending order, and $lt never matches them, so they are added back
+     * explicitly until the cursor has reached them.
+     */
+    private static Criteria ratingBefore(ReviewCursor after) {
+        if (after.getRating() == null) {
+            return new Criteria().andOperator(where("rating").is(null), reviewIdBefore(after.getReviewId()));
+        }
+
+        return new Criteria().orOperator(
+            where("rating").lt(after.getRating()),
+            new Criteria().andOperator(where("rating").is(after.getRating()), reviewIdBefore(after.getReviewId())),
+            where("rating").is(null)
+        );
+    }
+
+    /**
+     * Generated ids are ObjectIds, which sort after client supplied string ids, so string ids follow the last
+     * ObjectId in descending order.
+     */
+    private static Criteria reviewIdBefore(String reviewId) {
+        if (!ObjectId.isValid(reviewId)) {
+            return where("reviewId").lt(reviewId);
+        }
+
+        return new Criteria().orOperator(
+            where("reviewId").lt(new ObjectId(reviewId)),
+            where("reviewId").type(JsonSchemaObject.Type.STRING)
+        );
+    }
+
+    private static ReadPreference readPreference(String name, long maxStalenessSeconds) {
+        if (maxStalenessSeconds <= 0) {
+            return ReadPreference.valueOf(name);
+        }
+
+        return ReadPreference.valueOf(name, List.of(), maxStalenessSeconds, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,10 @@
+package com.reactivespring.repository;
+
+import com.reactivespring.domain.ReviewSummary;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReviewSummaryRepositoryCustom {
+    Mono<Void> applyRatingChange(long movieInfoId, Double removedRating, Double addedRating);
+    Flux<ReviewSummary> rebuild();
+}
@@ -0,0 +1,170 @@
+package com.reactivespring.repository;
+
+import com.reactivespring.domain.Review;
+import com.reactivespring.domain.ReviewSummary;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+public class ReviewSummaryRepositoryCustomImpl implements ReviewSummaryRepositoryCustom {
+    private static final String REBUILT_AT = "rebuiltAt";
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    public ReviewSummaryRepositoryCustomImpl(ReactiveMongoTemplate reactiveMongoTemplate) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+    }
+
+    @Override
+    public Mono<Void> applyRatingChange(long movieInfoId, Double removedRating, Double addedRating) {
+        if (Objects.equals(removedRating, addedRating)) {
+            return Mono.empty();
+        }
+
+        final Update update = new Update();
+        final Map<String, Long> histogramDeltas = new HashMap<>();
+        long countDelta = 0;
+        double sumDelta = 0;
+
+        if (removedRating != null) {
+            countDelta--;
+            sumDelta -= removedRating;
+            histogramDeltas.merge(ReviewSummary.bucket(removedRating), -1L, Long::sum);
+        }
+
+        if (addedRating != null) {
+            countDelta++;
+            sumDelta += addedRating;
+            histogramDeltas.merge(ReviewSummary.bucket(addedRating), 1L, Long::sum);
+            update.min("min", addedRating).max("max", addedRating);
+        }
+
+        update.inc("count", countDelta).inc("sum", sumDelta).setOnInsert(REBUILT_AT, new Date());
+        histogramDeltas.forEach((bucket, delta) -> {
+            if (delta != 0) {
+                update.inc("histogram." + bucket, delta);
+            }
+        });
+
+        final Mono<Void> applied = reactiveMongoTemplate.upsert(byMovieInfoId(movieInfoId), update, ReviewSummary.class)
+            .then();
+
+        return removedRating == null ? applied : applied.then(refreshRange(movieInfoId, removedRating));
+    }
+
+    /**
+     * $min and $max cannot be undone, so when the removed rating was the current minimum or maximum the range is
+     * recomputed from the reviews of that movie.
+     */
+    private Mono<Void> refreshRange(long movieInfoId, double removedRating) {
+        final Query boundary = new Query(where("_id").is(movieInfoId)
+            .orOperator(where("min").is(removedRating), where("max").is(removedRating)));
+
+        return reactiveMongoTemplate.exists(boundary, ReviewSummary.class)
+            .filter(Boolean::booleanValue)
+            .flatMap(stale -> reactiveMongoTemplate.aggregate(
+                    Aggregation.newAggregation(
+                        Aggregation.match(ratedReviews().and("movieInfoId").is(movieInfoId)),
+                        Aggregation.group().min("rating").as("min").max("rating").as("max")
+                    ),
+                    Review.class,
+                    Document.class
+                )
+                .next()
+                .map(range -> new Update().set("min", range.get("min")).set("max", range.get("max")))
+                .defaultIfEmpty(new Update().unset("min").unset("max")))
+            .flatMap(update -> reactiveMongoTemplate.updateFirst(byMovieInfoId(movieInfoId), update, ReviewSummary.class))
+            .then();
+    }
+
+    /**
+     * Recomputes every summary from the reviews collection. Rating changes applied while a rebuild runs may be
+     * overwritten by the rebuilt values, so this is meant for a periodic off-peak reconciliation.
+     * <p>
+     * Rebuilt summaries are stamped with the time the rebuild started, and summaries created by rating changes with
+     * their creation time, so the summaries of movies left without rated reviews are the ones stamped earlier.
+     */
+    @Override
+    public Flux<ReviewSummary> rebuild() {
+        final Aggregation aggregation = Aggregation.newAggregation(
+            Aggregation.match(ratedReviews()),
+            Aggregation.project("movieInfoId", "rating")
+                .and(ArithmeticOperators.Floor.floorValueOf("rating")).as("bucket"),
+            Aggregation.group("movieInfoId", "bucket")
+                .count().as("count")
+                .sum("rating").as("sum")
+                .min("rating").as("min")
+                .max("rating").as("max"),
+            Aggregation.sort(Sort.Direction.ASC, "movieInfoId")
+        ).withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+
+        return Flux.defer(() -> {
+            final Date rebuiltAt = new Date();
+
+            return reactiveMongoTemplate.aggregate(aggregation, Review.class, Document.class)
+                .bufferUntilChanged(ReviewSummaryRepositoryCustomImpl::movieInfoId)
+                .map(ReviewSummaryRepositoryCustomImpl::toSummary)
+                .concatMap(summary -> save(summary, rebuiltAt))
+                .concatWith(reactiveMongoTemplate.remove(
+                    new Query(new Criteria().orOperator(where(REBUILT_AT).lt(rebuiltAt), where(REBUILT_AT).exists(false))),
+                    ReviewSummary.class
+                ).then(Mono.empty()));
+        });
+    }
+
+    private Mono<ReviewSummary> save(ReviewSummary summary, Date rebuiltAt) {
+        final Document document = new Document();
+        reactiveMongoTemplate.getConverter().write(summary, document);
+        document.put(REBUILT_AT, rebuiltAt);
+
+        return reactiveMongoTemplate.save(document, reactiveMongoTemplate.getCollectionName(ReviewSummary.class))
+            .thenReturn(summary);
+    }
+
+    private static ReviewSummary toSummary(List<Document> buckets) {
+        final ReviewSummary summary = new ReviewSummary(movieInfoId(buckets.get(0)));
+
+        for (Document bucket : buckets) {
+            final long count = bucket.get("count", Number.class).longValue();
+            final double min = bucket.get("min", Number.class).doubleValue();
+            final double max = bucket.get("max", Number.class).doubleValue();
+            final long star = bucket.get("_id", Document.class).get("bucket", Number.class).longValue();
+
+            summary.setCount(summary.getCount() + count);
+            summary.setSum(summary.getSum() + bucket.get("sum", Number.class).doubleValue());
+            summary.setMin(summary.getMin() == null ? min : Math.min(summary.getMin(), min));
+            summary.setMax(summary.getMax() == null ? max : Math.max(summary.getMax(), max));
+            summary.getHistogram().put(Long.toString(star), count);
+        }
+
+        return summary;
+    }
+
+    private static Long movieInfoId(Document bucket) {
+        return bucket.get("_id", Document.class).get("movieInfoId", Number.class).longValue();
+    }
+
+    private static Criteria ratedReviews() {
+        return where("rating").ne(null);
+    }
+
+    private static Query byMovieInfoId(long movieInfoId) {
+        return new Query(where("_id").is(movieInfoId));
+    }
+}
@@ -18,6 +18,10 @@ public class ReviewRouter {
                 builder
                     .POST("", reviewHandler::create)
                     .GET("", reviewHandler::index)
+                    .GET("/export", reviewHandler::export)
+                    .GET("/summary", reviewHandler::summary)
+                    .GET("/leaderboard", reviewHandler::leaderboard)
+                    .GET("/trend", reviewHandler::trend)
                     .PUT("/{id}", reviewHandler::update)
                     .DELETE("/{id}", reviewHandler::delete)
                     .GET("/stream", reviewHandler::getReviewsStream)
@@ -0,0 +1,80 @@
+package com.reactivespring.routes;
+
+import com.reactivespring.domain.LeaderboardEntry;
+import com.reactivespring.domain.Review;
+import com.reactivespring.repository.ReviewReactiveRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+@ActiveProfiles("test")
+@AutoConfigureWebTestClient
+@SpringBootTest(webEnvironment = RANDOM_PORT)
+@TestPropertySource(properties = "leaderboard.minRatingCount=2")
+class ReviewLeaderboardIntgTest {
+    private static final String REVIEWS_URL = "/v1/reviews";
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ReviewReactiveRepository reviewReactiveRepository;
+
+    @BeforeEach
+    void setUp() {
+        final List<Review> reviews = List.of(
+            new Review("abc", 1L, "Awesome Movie", 9.0),
+            new Review("def", 1L, "Good Movie", 7.5),
+            new Review("ghi", 1L, "No rating", null),
+            new Review("jkl", 2L, "Excellent Movie", 9.5),
+            new Review("mno", 2L, "Excellent Movie", 9.0)
+        );
+
+        reviewReactiveRepository.saveAll(reviews).blockLast();
+    }
+
+    @AfterEach
+    void tearDown() {
+        reviewReactiveRepository.deleteAll().block();
+    }
+
+    @Test
+    void aggregateLeaderboardEntries() {
+        StepVerifier.create(reviewReactiveRepository.aggregateLeaderboardEntries().collectList())
+            .assertNext(entries -> assertThat(entries).containsExactlyInAnyOrder(
+                new LeaderboardEntry(1L, 3, 0, 0),
+                new LeaderboardEntry(2L, 2, 0, 0)
+            ))
+            .verifyComplete();
+    }
+
+    @Test
+    void leaderboardFollowsWrites() {
+        for (double rating : new double[]{10.0, 10.0}) {
+            webTestClient.post()
+                .uri(REVIEWS_URL)
+                .bodyValue(new Review(null, 3L, "Great Movie", rating))
+                .exchange()
+                .expectStatus().isCreated();
+        }
+
+        webTestClient.get()
+            .uri(REVIEWS_URL + "/leaderboard?by=rating&limit=1")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBodyList(LeaderboardEntry.class)
+            .value(entries -> assertThat(entries).singleElement().isEqualTo(new LeaderboardEntry(3L, 2, 2, 20.0)));
+    }
+}
@@ -0,0 +1,142 @@
+package com.reactivespring.routes;
+
+import com.reactivespring.domain.Review;
+import com.reactivespring.domain.ReviewSummary;
+import com.reactivespring.repository.ReviewReactiveRepository;
+import com.reactivespring.repository.ReviewSummaryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+@ActiveProfiles("test")
+@AutoConfigureWebTestClient
+@SpringBootTest(webEnvironment = RANDOM_PORT)
+class ReviewSummaryIntgTest {
+    private static final String REVIEWS_URL = "/v1/reviews";
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ReviewReactiveRepository reviewReactiveRepository;
+
+    @Autowired
+    private ReviewSummaryRepository reviewSummaryRepository;
+
+    @BeforeEach
+    void setUp() {
+        final List<Review> reviews = List.of(
+            new Review("abc", 1L, "Awesome Movie", 9.0),
+            new Review("def", 1L, "Good Movie", 7.5),
+            new Review("ghi", 2L, "Excellent Movie", 8.0)
+        );
+
+        reviewReactiveRepository.saveAll(reviews).blockLast();
+        reviewSummaryRepository.rebuild().blockLast();
+    }
+
+    @AfterEach
+    void tearDown() {
+        reviewReactiveRepository.deleteAll().block();
+        reviewSummaryRepository.deleteAll().block();
+    }
+
+    @Test
+    void rebuild() {
+        StepVerifier.create(reviewSummaryRepository.findById(1L))
+            .assertNext(summary -> {
+                assertThat(summary.getCount()).isEqualTo(2);
+                assertThat(summary.getSum()).isEqualTo(16.5);
+                assertThat(summary.getMin()).isEqualTo(7.5);
+                assertThat(summary.getMax()).isEqualTo(9.0);
+                assertThat(summary.getHistogram()).isEqualTo(Map.of("7", 1L, "9", 1L));
+            })
+            .verifyComplete();
+    }
+
+    @Test
+    void rebuildRemovesSummariesOfMoviesWithoutRatedReviews() {
+        reviewSummaryRepository.save(new ReviewSummary(99L, 1, 5.0, 5.0, 5.0, Map.of("5", 1L))).block();
+
+        StepVerifier.create(reviewSummaryRepository.rebuild().map(ReviewSummary::getMovieInfoId).collectList())
+            .assertNext(movieInfoIds -> assertThat(movieInfoIds).containsExactly(1L, 2L))
+            .verifyComplete();
+
+        StepVerifier.create(reviewSummaryRepository.findAll().map(ReviewSummary::getMovieInfoId).collectList())
+            .assertNext(movieInfoIds -> assertThat(movieInfoIds).containsExactlyInAnyOrder(1L, 2L))
+            .verifyComplete();
+    }
+
+    @Test
+    void summaryFollowsWrites() {
+        webTestClient.post()
+            .uri(REVIEWS_URL)
+            .bodyValue(new Review(null, 1L, "Great Movie", 9.5))
+            .exchange()
+            .expectStatus().isCreated();
+
+        webTestClient.put()
+            .uri(REVIEWS_URL + "/{id}", "def")
+            .bodyValue(new Review(null, 1L, "Better on rewatch", 8.5))
+            .exchange()
+            .expectStatus().isOk();
+
+        webTestClient.delete()
+            .uri(REVIEWS_URL + "/{id}", "abc")
+            .exchange()
+            .expectStatus().isNoContent();
+
+        webTestClient.get()
+            .uri(REVIEWS_URL + "/summary?movieInfoId=1")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody(ReviewSummary.class)
+            .value(summary -> {
+                assertThat(summary.getCount()).isEqualTo(2);
+                assertThat(summary.getSum()).isEqualTo(18.0);
+                assertThat(summary.getMin()).isEqualTo(8.5);
+                assertThat(summary.getMax()).isEqualTo(9.5);
+                assertThat(summary.getHistogram()).containsEntry("8", 1L).containsEntry("9", 1L);
+            });
+    }
+
+    @Test
+    void createWithExistingIdReplacesTheRating() {
+        webTestClient.post()
+            .uri(REVIEWS_URL)
+            .bodyValue(new Review("jkl", 2L, "Good Movie", 6.0))
+            .exchange()
+            .expectStatus().isCreated();
+
+        webTestClient.post()
+            .uri(REVIEWS_URL)
+            .bodyValue(new Review("jkl", 2L, "Better on rewatch", 7.0))
+            .exchange()
+            .expectStatus().isCreated();
+
+        webTestClient.get()
+            .uri(REVIEWS_URL + "/summary?movieInfoId=2")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody(ReviewSummary.class)
+            .value(summary -> {
+                assertThat(summary.getCount()).isEqualTo(2);
+                assertThat(summary.getSum()).isEqualTo(15.0);
+                assertThat(summary.getMin()).isEqualTo(7.0);
+                assertThat(summary.getMax()).isEqualTo(8.0);
+                assertThat(summary.getHistogram()).containsEntry("7", 1L).containsEntry("8", 1L);
+            });
+    }
+}
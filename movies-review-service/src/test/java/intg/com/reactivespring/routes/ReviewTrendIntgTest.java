@@ -0,0 +1,122 @@
+package com.reactivespring.routes;
+
+import com.reactivespring.domain.RatingBucket;
+import com.reactivespring.domain.RatingTrendPoint;
+import com.reactivespring.domain.Review;
+import com.reactivespring.domain.TrendGranularity;
+import com.reactivespring.repository.RatingBucketRepository;
+import com.reactivespring.repository.ReviewReactiveRepository;
+import com.reactivespring.repository.ReviewSummaryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.test.StepVerifier;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+@ActiveProfiles("test")
+@AutoConfigureWebTestClient
+@SpringBootTest(webEnvironment = RANDOM_PORT)
+class ReviewTrendIntgTest {
+    private static final String REVIEWS_URL = "/v1/reviews";
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ReviewReactiveRepository reviewReactiveRepository;
+
+    @Autowired
+    private ReviewSummaryRepository reviewSummaryRepository;
+
+    @Autowired
+    private RatingBucketRepository ratingBucketRepository;
+
+    @AfterEach
+    void tearDown() {
+        reviewReactiveRepository.deleteAll().block();
+        reviewSummaryRepository.deleteAll().block();
+        ratingBucketRepository.deleteAll().block();
+    }
+
+    @Test
+    void bucketsFollowWrites() {
+        final Review first = create(new Review(null, 1L, "Awesome Movie", 9.0));
+        final Review second = create(new Review(null, 1L, "Good Movie", 7.0));
+        create(new Review(null, 2L, "Excellent Movie", 8.0));
+
+        assertThat(first.getCreatedAt()).isNotNull();
+
+        webTestClient.put()
+            .uri(REVIEWS_URL + "/{id}", second.getReviewId())
+            .bodyValue(new Review(null, 1L, "Better on rewatch", 8.0))
+            .exchange()
+            .expectStatus().isOk();
+
+        webTestClient.delete()
+            .uri(REVIEWS_URL + "/{id}", first.getReviewId())
+            .exchange()
+            .expectStatus().isNoContent();
+
+        webTestClient.post()
+            .uri(REVIEWS_URL)
+            .bodyValue(new Review(null, 1L, "Great Movie", 6.0))
+            .exchange()
+            .expectStatus().isCreated();
+
+        final Instant hour = TrendGranularity.HOUR.truncate(first.getCreatedAt());
+        StepVerifier.create(ratingBucketRepository.findById(RatingBucket.id(1L, TrendGranularity.HOUR, hour)))
+            .assertNext(bucket -> {
+                assertThat(bucket.getCount()).isEqualTo(2);
+                assertThat(bucket.getSum()).isEqualTo(14.0);
+                assertThat(bucket.getStart()).isEqualTo(hour);
+            })
+            .verifyComplete();
+
+        webTestClient.get()
+            .uri(REVIEWS_URL + "/trend?movieInfoId=1&granularity=day&window=P7D")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBodyList(RatingTrendPoint.class)
+            .value(points -> {
+                assertThat(points).hasSize(30);
+                final RatingTrendPoint today = points.get(points.size() - 1);
+                assertThat(today.getStart()).isEqualTo(TrendGranularity.DAY.truncate(first.getCreatedAt()));
+                assertThat(today.getCount()).isEqualTo(2);
+                assertThat(today.getWindowAverage()).isEqualTo(7.0);
+            });
+    }
+
+    @Test
+    void reviewsWithoutCreationTimeAreNotBucketed() {
+        reviewReactiveRepository.saveAll(List.of(new Review("abc", 1L, "Awesome Movie", 9.0))).blockLast();
+
+        webTestClient.delete()
+            .uri(REVIEWS_URL + "/{id}", "abc")
+            .exchange()
+            .expectStatus().isNoContent();
+
+        StepVerifier.create(ratingBucketRepository.count())
+            .expectNext(0L)
+            .verifyComplete();
+    }
+
+    private Review create(Review review) {
+        return webTestClient.post()
+            .uri(REVIEWS_URL)
+            .bodyValue(review)
+            .exchange()
+            .expectStatus().isCreated()
+            .expectBody(Review.class)
+            .returnResult()
+            .getResponseBody();
+    }
+}
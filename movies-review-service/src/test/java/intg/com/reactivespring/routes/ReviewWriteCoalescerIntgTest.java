@@ -0,0 +1,74 @@
+package com.reactivespring.routes;
+
+import com.reactivespring.domain.Review;
+import com.reactivespring.handler.ReviewWriteCoalescer;
+import com.reactivespring.repository.ReviewReactiveRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ActiveProfiles("test")
+@SpringBootTest
+@TestPropertySource(properties = {
+    "writeCoalescer.maxBatchSize=3",
+    "writeCoalescer.maxDelay=PT10S"
+})
+class ReviewWriteCoalescerIntgTest {
+    @Autowired
+    private ReviewWriteCoalescer reviewWriteCoalescer;
+
+    @Autowired
+    private ReviewReactiveRepository reviewReactiveRepository;
+
+    @AfterEach
+    void tearDown() {
+        reviewReactiveRepository.deleteAll().block();
+    }
+
+    @Test
+    void duplicateReplacesTheStoredReviewWithoutFailingItsBatchMates() {
+        reviewReactiveRepository.save(new Review("abc", 1L, "Awesome Movie", 9.0)).block();
+
+        final Mono<ReviewWriteCoalescer.Saved> generated = reviewWriteCoalescer.save(new Review(null, 1L, "Good Movie", 7.5))
+            .cache();
+        final Mono<ReviewWriteCoalescer.Saved> duplicate = reviewWriteCoalescer.save(new Review("abc", 1L, "Copy", 1.0))
+            .cache();
+        final Mono<ReviewWriteCoalescer.Saved> supplied = reviewWriteCoalescer.save(new Review("def", 2L, "Excellent Movie", 8.0))
+            .cache();
+        Flux.merge(generated, duplicate, supplied).blockLast(Duration.ofSeconds(5));
+
+        StepVerifier.create(generated)
+            .assertNext(saved -> {
+                assertThat(saved.getReview().getReviewId()).isNotNull();
+                assertThat(saved.getPrevious()).isNull();
+            })
+            .verifyComplete();
+        StepVerifier.create(duplicate)
+            .assertNext(saved -> assertThat(saved.getPrevious().getComment()).isEqualTo("Awesome Movie"))
+            .verifyComplete();
+        StepVerifier.create(supplied)
+            .assertNext(saved -> assertThat(saved.getPrevious()).isNull())
+            .verifyComplete();
+
+        StepVerifier.create(reviewReactiveRepository.findAll().map(Review::getComment).collectList())
+            .assertNext(comments -> assertThat(comments).containsExactlyInAnyOrderElementsOf(
+                List.of("Copy", "Good Movie", "Excellent Movie")
+            ))
+            .verifyComplete();
+
+        StepVerifier.create(generated.flatMap(saved -> reviewReactiveRepository.findById(saved.getReview().getReviewId())))
+            .assertNext(review -> assertThat(review.getRating()).isEqualTo(7.5))
+            .verifyComplete();
+    }
+}
@@ -0,0 +1,92 @@
+package com.reactivespring.routes;
+
+import com.reactivespring.domain.Review;
+import com.reactivespring.repository.ReviewReactiveRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+@ActiveProfiles("test")
+@AutoConfigureWebTestClient
+@SpringBootTest(webEnvironment = RANDOM_PORT)
+@TestPropertySource(properties = {
+    "ingestion.asyncEnabled=true",
+    "ingestion.journalDirectory=target/journal-intg",
+    "ingestion.drainInterval=PT0.02S"
+})
+class ReviewsAsyncIngestionIntgTest {
+    private static final String REVIEWS_URL = "/v1/reviews";
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ReviewReactiveRepository reviewReactiveRepository;
+
+    @AfterEach
+    void tearDown() {
+        reviewReactiveRepository.deleteAll().block();
+    }
+
+    @Test
+    void acceptsReviewAndStoresItLater() {
+        final Review accepted = webTestClient.post()
+            .uri(REVIEWS_URL)
+            .header("Prefer", "respond-async")
+            .bodyValue(new Review(null, 1L, "Awesome Movie", 9.0))
+            .exchange()
+            .expectStatus().isAccepted()
+            .expectHeader().valueEquals("Preference-Applied", "respond-async")
+            .expectBody(Review.class)
+            .returnResult()
+            .getResponseBody();
+
+        assertThat(accepted).isNotNull();
+        assertThat(accepted.getReviewId()).isNotNull();
+
+        StepVerifier.create(reviewReactiveRepository.findById(accepted.getReviewId())
+                .switchIfEmpty(Mono.error(new IllegalStateException("Not drained yet")))
+                .retryWhen(Retry.fixedDelay(50, Duration.ofMillis(100))))
+            .assertNext(review -> assertThat(review.getComment()).isEqualTo("Awesome Movie"))
+            .verifyComplete();
+    }
+
+    @Test
+    void storesSynchronouslyWithoutPreference() {
+        webTestClient.post()
+            .uri(REVIEWS_URL)
+            .bodyValue(new Review(null, 1L, "Awesome Movie", 9.0))
+            .exchange()
+            .expectStatus().isCreated();
+    }
+
+    @Test
+    void storesSynchronouslyWithClientSuppliedId() {
+        reviewReactiveRepository.save(new Review("abc", 1L, "Awesome Movie", 9.0)).block();
+
+        webTestClient.post()
+            .uri(REVIEWS_URL)
+            .header("Prefer", "respond-async")
+            .bodyValue(new Review("abc", 1L, "Changed my mind", 4.0))
+            .exchange()
+            .expectStatus().isCreated()
+            .expectHeader().doesNotExist("Preference-Applied");
+
+        StepVerifier.create(reviewReactiveRepository.findById("abc"))
+            .assertNext(review -> assertThat(review.getComment()).isEqualTo("Changed my mind"))
+            .verifyComplete();
+    }
+}
@@ -0,0 +1,78 @@
+package com.reactivespring.routes;
+
+import com.reactivespring.domain.Review;
+import com.reactivespring.repository.ReviewReactiveRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+@ActiveProfiles("test")
+@AutoConfigureWebTestClient
+@SpringBootTest(webEnvironment = RANDOM_PORT)
+@TestPropertySource(properties = {
+    "stream.source=capped-collection",
+    "stream.cappedCollection=reviewEventsIntg",
+    "stream.tailRetryDelay=PT0.1S"
+})
+class ReviewsCappedStreamIntgTest {
+    private static final String REVIEWS_URL = "/v1/reviews";
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ReviewReactiveRepository reviewReactiveRepository;
+
+    @Autowired
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @AfterEach
+    void tearDown() {
+        reviewReactiveRepository.deleteAll().block();
+    }
+
+    @Test
+    void streamIncludesReviewsPublishedByOtherInstances() {
+        reviewReactiveRepository.createEventLog("reviewEventsIntg", 1048576, 1000)
+            .then(reviewReactiveRepository.appendEvent("reviewEventsIntg", new Review("other", 1L, "Elsewhere", 7.0)))
+            .block();
+
+        webTestClient.post()
+            .uri(REVIEWS_URL)
+            .bodyValue(new Review(null, 2L, "Awesome Movie", 9.0))
+            .exchange()
+            .expectStatus().isCreated();
+
+        final Flux<Review> stream = webTestClient.get()
+            .uri(REVIEWS_URL + "/stream")
+            .accept(MediaType.APPLICATION_NDJSON)
+            .exchange()
+            .expectStatus().isOk()
+            .returnResult(Review.class)
+            .getResponseBody();
+
+        StepVerifier.create(stream)
+            .assertNext(review -> assertThat(review.getReviewId()).isEqualTo("other"))
+            .assertNext(review -> assertThat(review.getComment()).isEqualTo("Awesome Movie"))
+            .thenCancel()
+            .verify(Duration.ofSeconds(10));
+
+        StepVerifier.create(reactiveMongoTemplate.executeCommand("{collStats: 'reviewEventsIntg'}"))
+            .assertNext(stats -> assertThat(stats.getBoolean("capped")).isTrue())
+            .verifyComplete();
+    }
+}
@@ -1,6 +1,7 @@
 package com.reactivespring.routes;
 
 import com.reactivespring.domain.Review;
+import com.reactivespring.handler.ReviewHandler;
 import com.reactivespring.repository.ReviewReactiveRepository;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.AfterEach;
@@ -9,11 +10,15 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import org.springframework.web.util.UriComponentsBuilder;
+import reactor.test.StepVerifier;
 
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
 
@@ -134,4 +139,47 @@ public class ReviewsRouterIntgTest {
             .expectBodyList(Review.class)
             .hasSize(2);
     }
+
+    @Test
+    void exportReviews() {
+        StepVerifier.create(webTestClient
+                .get()
+                .uri(REVIEWS_URL + "/export?batchSize=2")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(Review.class)
+                .getResponseBody())
+            .expectNextCount(3)
+            .verifyComplete();
+    }
+
+    @Test
+    void getReviewsPageByPage() {
+        for (String sort : List.of("recent", "rating")) {
+            final List<Review> seen = new ArrayList<>();
+            String cursor = null;
+
+            do {
+                final String uri = REVIEWS_URL + "?limit=1&sort=" + sort + (cursor == null ? "" : "&cursor=" + cursor);
+                final var result = webTestClient
+                    .get()
+                    .uri(uri)
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBodyList(Review.class)
+                    .hasSize(1)
+                    .returnResult();
+
+                seen.addAll(Objects.requireNonNull(result.getResponseBody()));
+                cursor = result.getResponseHeaders().getFirst(ReviewHandler.NEXT_CURSOR_HEADER);
+            } while (cursor != null);
+
+            assertThat(seen).extracting(Review::getReviewId).doesNotHaveDuplicates().hasSize(3);
+
+            if (sort.equals("rating")) {
+                assertThat(seen).extracting(Review::getRating).isSortedAccordingTo(Comparator.reverseOrder());
+            }
+        }
+    }
 }
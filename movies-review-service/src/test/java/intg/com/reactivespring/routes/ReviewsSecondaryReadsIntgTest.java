@@ -0,0 +1,72 @@
+package com.reactivespring.routes;
+
+import com.reactivespring.domain.Review;
+import com.reactivespring.repository.ReviewReactiveRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.List;
+
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+@ActiveProfiles("test")
+@AutoConfigureWebTestClient
+@SpringBootTest(webEnvironment = RANDOM_PORT)
+@TestPropertySource(properties = {
+    "spring.mongodb.embedded.storage.repl-set-name=rs0",
+    "mongo.reads.readPreference=secondaryPreferred",
+    "mongo.reads.maxStalenessSeconds=90"
+})
+public class ReviewsSecondaryReadsIntgTest {
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ReviewReactiveRepository reviewReactiveRepository;
+
+    private static final String REVIEWS_URL = "/v1/reviews";
+
+    @BeforeEach
+    void setUp() {
+        final List<Review> reviews = List.of(
+            new Review("abc", 1L, "Awesome Movie", 9.0),
+            new Review(null, 2L, "Excellent Movie", 8.0));
+
+        reviewReactiveRepository.saveAll(reviews).blockLast();
+    }
+
+    @AfterEach
+    void tearDown() {
+        reviewReactiveRepository.deleteAll().block();
+    }
+
+    @Test
+    void getAllReviewsByMovieInfoId() {
+        webTestClient
+            .get()
+            .uri(REVIEWS_URL + "?movieInfoId=1")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBodyList(Review.class)
+            .hasSize(1);
+    }
+
+    @Test
+    void updateStaysOnPrimary() {
+        webTestClient
+            .put()
+            .uri(REVIEWS_URL + "/{id}", "abc")
+            .bodyValue(new Review(null, 1L, "Cool Movie", 9.3))
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.comment").isEqualTo("Cool Movie");
+    }
+}
@@ -0,0 +1,128 @@
+package com.reactivespring.handler;
+
+import com.reactivespring.domain.Review;
+import com.reactivespring.domain.ReviewEvent;
+import com.reactivespring.repository.ReviewReactiveRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReviewEventStreamTest {
+    private final ReviewReactiveRepository reviewReactiveRepository = Mockito.mock(ReviewReactiveRepository.class);
+
+    private final ReviewStreamDispatcher reviewStreamDispatcher = new ReviewStreamDispatcher(new SimpleMeterRegistry());
+
+    private final Review first = new Review("abc", 1L, "Awesome Movie", 9.0);
+
+    private final Review second = new Review("def", 2L, "Excellent Movie", 8.0);
+
+    private ReviewEventStream reviewEventStream;
+
+    @BeforeEach
+    void setUp() {
+        when(reviewReactiveRepository.createEventLog(eq("reviewEvents"), anyLong(), anyLong())).thenReturn(Mono.empty());
+    }
+
+    @AfterEach
+    void tearDown() {
+        reviewEventStream.stop();
+    }
+
+    @Test
+    void localSourceEmitsPublishedReviews() {
+        reviewEventStream = eventStream("local");
+        final List<Review> dispatched = new ArrayList<>();
+        reviewStreamDispatcher.subscribe(List.of(1L)).subscribe(dispatched::add);
+
+        StepVerifier.create(reviewEventStream.publish(first)).verifyComplete();
+
+        StepVerifier.create(reviewEventStream.reviews())
+            .expectNext(first)
+            .thenCancel()
+            .verify();
+        assertThat(dispatched).containsExactly(first);
+        verify(reviewReactiveRepository, never()).appendEvent(any(), any());
+    }
+
+    @Test
+    void cappedCollectionSourceStreamsTailedEventsOnly() {
+        when(reviewReactiveRepository.appendEvent("reviewEvents", first)).thenReturn(Mono.just(new ReviewEvent("1", first)));
+        when(reviewReactiveRepository.tailEvents("reviewEvents"))
+            .thenReturn(Flux.just(new ReviewEvent("1", first), new ReviewEvent("2", second)).concatWith(Flux.never()));
+        reviewEventStream = eventStream("capped-collection");
+
+        StepVerifier.create(reviewEventStream.publish(first)).verifyComplete();
+        reviewEventStream.start();
+
+        StepVerifier.create(reviewEventStream.reviews())
+            .expectNext(first, second)
+            .thenCancel()
+            .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void cappedCollectionSourceResumesAfterLastEventInNaturalOrder() {
+        final Review third = new Review("ghi", 3L, "Good Movie", 7.0);
+        when(reviewReactiveRepository.tailEvents("reviewEvents"))
+            .thenReturn(Flux.just(new ReviewEvent("5", first)))
+            .thenReturn(Flux.just(new ReviewEvent("5", first), new ReviewEvent("3", second), new ReviewEvent("9", third))
+                .concatWith(Flux.never()));
+        when(reviewReactiveRepository.eventExists("reviewEvents", "5")).thenReturn(Mono.just(true));
+        reviewEventStream = eventStream("capped-collection");
+
+        reviewEventStream.start();
+
+        StepVerifier.create(reviewEventStream.reviews())
+            .expectNext(first, second, third)
+            .thenCancel()
+            .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void cappedCollectionSourceResumesFromOldestEventWhenLastEventWasCappedOut() {
+        when(reviewReactiveRepository.tailEvents("reviewEvents"))
+            .thenReturn(Flux.just(new ReviewEvent("5", first)))
+            .thenReturn(Flux.just(new ReviewEvent("3", second)).concatWith(Flux.never()));
+        when(reviewReactiveRepository.eventExists("reviewEvents", "5")).thenReturn(Mono.just(false));
+        reviewEventStream = eventStream("capped-collection");
+
+        reviewEventStream.start();
+
+        StepVerifier.create(reviewEventStream.reviews())
+            .expectNext(first, second)
+            .thenCancel()
+            .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void failedAppendDoesNotFailThePublisher() {
+        when(reviewReactiveRepository.appendEvent("reviewEvents", first))
+            .thenReturn(Mono.error(new IllegalStateException("connection closed")));
+        reviewEventStream = eventStream("capped-collection");
+
+        StepVerifier.create(reviewEventStream.publish(first)).verifyComplete();
+    }
+
+    private ReviewEventStream eventStream(String source) {
+        return new ReviewEventStream(
+            reviewReactiveRepository, reviewStreamDispatcher, source, "reviewEvents", 1024, 10, Duration.ofMillis(10)
+        );
+    }
+}
@@ -0,0 +1,145 @@
+package com.reactivespring.handler;
+
+import com.reactivespring.domain.Review;
+import com.reactivespring.repository.ReviewJournal;
+import com.reactivespring.repository.ReviewReactiveRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReviewJournalDrainerTest {
+    private final ReviewJournal reviewJournal = Mockito.mock(ReviewJournal.class);
+
+    private final ReviewReactiveRepository reviewReactiveRepository = Mockito.mock(ReviewReactiveRepository.class);
+
+    private final ReviewCreatedListener reviewCreatedListener = Mockito.mock(ReviewCreatedListener.class);
+
+    private final ReviewJournalDrainer reviewJournalDrainer = new ReviewJournalDrainer(
+        reviewJournal, reviewReactiveRepository, reviewCreatedListener, 2, Duration.ofMillis(50)
+    );
+
+    @BeforeEach
+    void setUp() {
+        when(reviewReactiveRepository.markApplied(any())).thenReturn(Mono.empty());
+    }
+
+    @Test
+    void storesBatchesAndCommitsPastThem() {
+        final Review first = new Review("a", 1L, "Awesome Movie", 9.0);
+        final Review second = new Review("b", 1L, "Good Movie", 7.5);
+        final Review third = new Review("c", 2L, "Excellent Movie", 8.0);
+        when(reviewJournal.read(2))
+            .thenReturn(List.of(entry(first, 1), entry(second, 2)))
+            .thenReturn(List.of(entry(third, 3)))
+            .thenReturn(List.of());
+        when(reviewReactiveRepository.insertUnapplied(any())).thenReturn(Mono.just(Map.of()));
+        when(reviewCreatedListener.onCreated(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        StepVerifier.create(reviewJournalDrainer.drain())
+            .expectNext(3)
+            .verifyComplete();
+
+        verify(reviewCreatedListener).onCreated(first);
+        verify(reviewCreatedListener).onCreated(second);
+        verify(reviewCreatedListener).onCreated(third);
+        verify(reviewJournal).commit(new ReviewJournal.Position(0, 2));
+        verify(reviewJournal).commit(new ReviewJournal.Position(0, 3));
+    }
+
+    @Test
+    void appliesReviewsStoredButNotAppliedBeforeACrash() {
+        final Review stored = new Review("a", 1L, "Awesome Movie", 9.0);
+        final Review pending = new Review("b", 1L, "Good Movie", 7.5);
+        when(reviewJournal.read(2))
+            .thenReturn(List.of(entry(stored, 1), entry(pending, 2)))
+            .thenReturn(List.of());
+        when(reviewReactiveRepository.insertUnapplied(any()))
+            .thenReturn(Mono.just(Map.of(0, new DuplicateKeyException("E11000 duplicate key error"))));
+        when(reviewReactiveRepository.findUnapplied("a")).thenReturn(Mono.just(stored));
+        when(reviewCreatedListener.onCreated(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        StepVerifier.create(reviewJournalDrainer.drain())
+            .expectNext(2)
+            .verifyComplete();
+
+        verify(reviewCreatedListener).onCreated(stored);
+        verify(reviewCreatedListener).onCreated(pending);
+        verify(reviewReactiveRepository).markApplied("a");
+        verify(reviewReactiveRepository).markApplied("b");
+        verify(reviewJournal).commit(new ReviewJournal.Position(0, 2));
+    }
+
+    @Test
+    void skipsReviewsAppliedBeforeACrash() {
+        final Review applied = new Review("a", 1L, "Awesome Movie", 9.0);
+        when(reviewJournal.read(2))
+            .thenReturn(List.of(entry(applied, 1)))
+            .thenReturn(List.of());
+        when(reviewReactiveRepository.insertUnapplied(any()))
+            .thenReturn(Mono.just(Map.of(0, new DuplicateKeyException("E11000 duplicate key error"))));
+        when(reviewReactiveRepository.findUnapplied("a")).thenReturn(Mono.empty());
+        when(reviewReactiveRepository.findById("a")).thenReturn(Mono.just(new Review("a", 1L, "Awesome Movie", 9.0)));
+
+        StepVerifier.create(reviewJournalDrainer.drain())
+            .expectNext(1)
+            .verifyComplete();
+
+        verify(reviewCreatedListener, never()).onCreated(any());
+        verify(reviewReactiveRepository, never()).replace(any());
+        verify(reviewJournal).commit(new ReviewJournal.Position(0, 1));
+    }
+
+    @Test
+    void clashingIdReplacesTheStoredReview() {
+        final Review previous = new Review("a", 1L, "Awesome Movie", 9.0);
+        final Review replacement = new Review("a", 1L, "Changed my mind", 4.0);
+        when(reviewJournal.read(2))
+            .thenReturn(List.of(entry(replacement, 1)))
+            .thenReturn(List.of());
+        when(reviewReactiveRepository.insertUnapplied(any()))
+            .thenReturn(Mono.just(Map.of(0, new DuplicateKeyException("E11000 duplicate key error"))));
+        when(reviewReactiveRepository.findUnapplied("a")).thenReturn(Mono.empty());
+        when(reviewReactiveRepository.findById("a")).thenReturn(Mono.just(previous));
+        when(reviewReactiveRepository.replace(replacement)).thenReturn(Mono.just(previous));
+        when(reviewCreatedListener.onReplaced(previous, replacement)).thenReturn(Mono.just(replacement));
+
+        StepVerifier.create(reviewJournalDrainer.drain())
+            .expectNext(1)
+            .verifyComplete();
+
+        verify(reviewCreatedListener).onReplaced(previous, replacement);
+        verify(reviewCreatedListener, never()).onCreated(any());
+        verify(reviewJournal).commit(new ReviewJournal.Position(0, 1));
+    }
+
+    @Test
+    void failedBatchIsNotCommitted() {
+        when(reviewJournal.read(2)).thenReturn(List.of(entry(new Review("a", 1L, "Awesome Movie", 9.0), 1)));
+        when(reviewReactiveRepository.insertUnapplied(any()))
+            .thenReturn(Mono.error(new DataAccessResourceFailureException("Timed out")));
+
+        StepVerifier.create(reviewJournalDrainer.drain())
+            .verifyError(DataAccessResourceFailureException.class);
+
+        verify(reviewJournal, never()).commit(any());
+        verify(reviewCreatedListener, times(0)).onCreated(any());
+    }
+
+    private static ReviewJournal.Entry entry(Review review, int offset) {
+        return new ReviewJournal.Entry(review, new ReviewJournal.Position(0, offset));
+    }
+}
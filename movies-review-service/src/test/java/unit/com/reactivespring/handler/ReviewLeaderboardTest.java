@@ -0,0 +1,229 @@
+package com.reactivespring.handler;
+
+import com.reactivespring.domain.LeaderboardEntry;
+import com.reactivespring.domain.LeaderboardOrder;
+import com.reactivespring.domain.RatingBucket;
+import com.reactivespring.domain.TrendGranularity;
+import com.reactivespring.repository.RatingBucketRepository;
+import com.reactivespring.repository.ReviewReactiveRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+class ReviewLeaderboardTest {
+    private static final Instant NOW = Instant.parse("2026-10-19T10:15:30Z");
+
+    private final ReviewReactiveRepository reviewReactiveRepository = Mockito.mock(ReviewReactiveRepository.class);
+
+    private final RatingBucketRepository ratingBucketRepository = Mockito.mock(RatingBucketRepository.class);
+
+    private final MutableClock clock = new MutableClock(NOW);
+
+    private ReviewLeaderboard reviewLeaderboard;
+
+    @BeforeEach
+    void setUp() {
+        reviewLeaderboard = new ReviewLeaderboard(reviewReactiveRepository, ratingBucketRepository, 2, clock);
+    }
+
+    @Test
+    void ranksByAverageRatingAboveTheMinimumRatingCount() {
+        reviewLeaderboard.apply(1L, NOW, 1, null, 9.0);
+        reviewLeaderboard.apply(1L, NOW, 1, null, 7.0);
+        reviewLeaderboard.apply(2L, NOW, 1, null, 9.5);
+        reviewLeaderboard.apply(2L, NOW, 1, null, 9.5);
+        reviewLeaderboard.apply(3L, NOW, 1, null, 10.0);
+
+        assertThat(reviewLeaderboard.top(LeaderboardOrder.RATING, 10))
+            .extracting(LeaderboardEntry::getMovieInfoId)
+            .containsExactly(2L, 1L);
+        assertThat(reviewLeaderboard.top(LeaderboardOrder.RATING, 1))
+            .singleElement()
+            .satisfies(entry -> assertThat(entry.getAverageRating()).isEqualTo(9.5));
+    }
+
+    @Test
+    void ranksByReviewCountIncludingUnratedReviews() {
+        reviewLeaderboard.apply(1L, NOW, 1, null, 9.0);
+        reviewLeaderboard.apply(2L, NOW, 1, null, null);
+        reviewLeaderboard.apply(2L, NOW, 1, null, null);
+        reviewLeaderboard.apply(3L, NOW, 1, null, 8.0);
+
+        assertThat(reviewLeaderboard.top(LeaderboardOrder.REVIEWS, 2))
+            .extracting(LeaderboardEntry::getMovieInfoId)
+            .containsExactly(2L, 1L);
+    }
+
+    @Test
+    void updatesAndDeletesReorderTheLeaderboard() {
+        reviewLeaderboard.apply(1L, NOW, 1, null, 9.0);
+        reviewLeaderboard.apply(1L, NOW, 1, null, 8.0);
+        reviewLeaderboard.apply(2L, NOW, 1, null, 8.0);
+        reviewLeaderboard.apply(2L, NOW, 1, null, 8.0);
+
+        reviewLeaderboard.apply(2L, NOW, 0, 8.0, 10.0);
+        assertThat(reviewLeaderboard.top(LeaderboardOrder.RATING, 10))
+            .extracting(LeaderboardEntry::getMovieInfoId)
+            .containsExactly(2L, 1L);
+
+        reviewLeaderboard.apply(2L, NOW, -1, 10.0, null);
+        assertThat(reviewLeaderboard.top(LeaderboardOrder.RATING, 10))
+            .extracting(LeaderboardEntry::getMovieInfoId)
+            .containsExactly(1L);
+
+        reviewLeaderboard.apply(2L, NOW, -1, 8.0, null);
+        assertThat(reviewLeaderboard.top(LeaderboardOrder.REVIEWS, 10))
+            .extracting(LeaderboardEntry::getMovieInfoId)
+            .containsExactly(1L);
+    }
+
+    @Test
+    void ratingsOlderThanAWeekDoNotRank() {
+        reviewLeaderboard.apply(1L, NOW.minus(Duration.ofDays(7)), 1, null, 10.0);
+        reviewLeaderboard.apply(1L, NOW.minus(Duration.ofDays(7)), 1, null, 10.0);
+        reviewLeaderboard.apply(1L, NOW, 1, null, null);
+        reviewLeaderboard.apply(2L, NOW.minus(Duration.ofDays(6)), 1, null, 6.0);
+        reviewLeaderboard.apply(2L, NOW, 1, null, 8.0);
+        reviewLeaderboard.apply(3L, null, 1, null, 10.0);
+        reviewLeaderboard.apply(3L, null, 1, null, 10.0);
+
+        assertThat(reviewLeaderboard.top(LeaderboardOrder.RATING, 10))
+            .singleElement()
+            .isEqualTo(new LeaderboardEntry(2L, 2, 2, 14.0));
+        assertThat(reviewLeaderboard.top(LeaderboardOrder.REVIEWS, 10))
+            .extracting(LeaderboardEntry::getMovieInfoId)
+            .containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    void ratingsLeaveTheWeekWhenTheDayChanges() {
+        reviewLeaderboard.apply(1L, NOW.minus(Duration.ofDays(6)), 1, null, 10.0);
+        reviewLeaderboard.apply(1L, NOW, 1, null, 7.5);
+        reviewLeaderboard.apply(1L, NOW, 1, null, 7.5);
+        reviewLeaderboard.apply(2L, NOW, 1, null, 8.0);
+        reviewLeaderboard.apply(2L, NOW, 1, null, 8.0);
+
+        assertThat(reviewLeaderboard.top(LeaderboardOrder.RATING, 10))
+            .extracting(LeaderboardEntry::getMovieInfoId)
+            .containsExactly(1L, 2L);
+
+        clock.instant = NOW.plus(Duration.ofDays(1));
+
+        assertThat(reviewLeaderboard.top(LeaderboardOrder.RATING, 10))
+            .containsExactly(new LeaderboardEntry(2L, 2, 2, 16.0), new LeaderboardEntry(1L, 3, 2, 15.0));
+
+        reviewLeaderboard.apply(1L, NOW.minus(Duration.ofDays(6)), -1, 10.0, null);
+
+        assertThat(reviewLeaderboard.top(LeaderboardOrder.RATING, 10))
+            .contains(new LeaderboardEntry(1L, 2, 2, 15.0));
+    }
+
+    @Test
+    void rebuildReplacesTheLeaderboard() {
+        reviewLeaderboard.apply(1L, NOW, 1, null, 9.0);
+        when(reviewReactiveRepository.aggregateLeaderboardEntries()).thenReturn(Flux.just(
+            new LeaderboardEntry(2L, 3, 0, 0),
+            new LeaderboardEntry(3L, 5, 0, 0)
+        ));
+        when(ratingBucketRepository.findBuckets(eq(TrendGranularity.DAY), any())).thenReturn(Flux.just(
+            dayBucket(2L, NOW, 2, 15.0),
+            dayBucket(3L, NOW.minus(Duration.ofDays(1)), 3, 24.0),
+            dayBucket(3L, NOW, 2, 16.0)
+        ));
+
+        reviewLeaderboard.rebuild();
+
+        assertThat(reviewLeaderboard.top(LeaderboardOrder.REVIEWS, 10))
+            .extracting(LeaderboardEntry::getMovieInfoId)
+            .containsExactly(3L, 2L);
+        assertThat(reviewLeaderboard.top(LeaderboardOrder.RATING, 10))
+            .extracting(LeaderboardEntry::getAverageRating)
+            .containsExactly(8.0, 7.5);
+    }
+
+    @Test
+    void rebuildKeepsChangesAppliedWhileItRuns() {
+        final Sinks.Many<LeaderboardEntry> reviewCounts = Sinks.many().unicast().onBackpressureBuffer();
+        when(reviewReactiveRepository.aggregateLeaderboardEntries()).thenReturn(reviewCounts.asFlux());
+        when(ratingBucketRepository.findBuckets(eq(TrendGranularity.DAY), any()))
+            .thenReturn(Flux.just(dayBucket(1L, NOW, 2, 18.0)));
+
+        reviewLeaderboard.rebuild();
+        reviewLeaderboard.apply(1L, NOW, 1, null, 6.0);
+        reviewLeaderboard.apply(2L, NOW, 1, null, 7.0);
+
+        reviewCounts.tryEmitNext(new LeaderboardEntry(1L, 2, 0, 0));
+        reviewCounts.tryEmitComplete();
+
+        assertThat(reviewLeaderboard.top(LeaderboardOrder.REVIEWS, 10))
+            .containsExactly(new LeaderboardEntry(1L, 3, 3, 24.0), new LeaderboardEntry(2L, 1, 1, 7.0));
+    }
+
+    @Test
+    void rebuildKeepsChangesAppliedBetweenItsReadsAndTheSwap() {
+        final Sinks.Many<RatingBucket> dayBuckets = Sinks.many().unicast().onBackpressureBuffer();
+        when(reviewReactiveRepository.aggregateLeaderboardEntries())
+            .thenReturn(Flux.just(new LeaderboardEntry(1L, 2, 0, 0)));
+        when(ratingBucketRepository.findBuckets(eq(TrendGranularity.DAY), any())).thenReturn(dayBuckets.asFlux());
+
+        reviewLeaderboard.rebuild();
+        dayBuckets.tryEmitNext(dayBucket(1L, NOW, 2, 18.0));
+        reviewLeaderboard.apply(1L, NOW, 1, null, 6.0);
+        dayBuckets.tryEmitComplete();
+
+        assertThat(reviewLeaderboard.top(LeaderboardOrder.REVIEWS, 10))
+            .containsExactly(new LeaderboardEntry(1L, 3, 3, 24.0));
+    }
+
+    @Test
+    void readsReturnCopies() {
+        reviewLeaderboard.replace(List.of(new LeaderboardEntry(1L, 2, 0, 0)), List.of(dayBucket(1L, NOW, 2, 18.0)));
+
+        reviewLeaderboard.top(LeaderboardOrder.REVIEWS, 1).get(0).setReviewCount(100);
+
+        assertThat(reviewLeaderboard.top(LeaderboardOrder.REVIEWS, 1).get(0).getReviewCount()).isEqualTo(2);
+    }
+
+    private static RatingBucket dayBucket(long movieInfoId, Instant createdAt, long count, double sum) {
+        final Instant start = TrendGranularity.DAY.truncate(createdAt);
+        return new RatingBucket(RatingBucket.id(movieInfoId, TrendGranularity.DAY, start),
+            movieInfoId, TrendGranularity.DAY, start, count, sum);
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant instant;
+
+        private MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
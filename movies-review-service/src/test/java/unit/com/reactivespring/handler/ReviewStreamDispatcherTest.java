@@ -0,0 +1,68 @@
+package com.reactivespring.handler;
+
+import com.reactivespring.domain.Review;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReviewStreamDispatcherTest {
+    private SimpleMeterRegistry meterRegistry;
+
+    private ReviewStreamDispatcher reviewStreamDispatcher;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        reviewStreamDispatcher = new ReviewStreamDispatcher(meterRegistry);
+    }
+
+    @Test
+    void routesReviewsOnlyToSubscribersOfTheirMovie() {
+        final List<Review> firstMovie = new ArrayList<>();
+        final List<Review> bothMovies = new ArrayList<>();
+
+        final Disposable first = reviewStreamDispatcher.subscribe(List.of(1L)).subscribe(firstMovie::add);
+        final Disposable both = reviewStreamDispatcher.subscribe(List.of(1L, 2L, 2L)).subscribe(bothMovies::add);
+
+        reviewStreamDispatcher.publish(new Review("a", 1L, "Awesome Movie", 9.0));
+        reviewStreamDispatcher.publish(new Review("b", 2L, "Excellent Movie", 8.0));
+        reviewStreamDispatcher.publish(new Review("c", 3L, "Good Movie", 7.0));
+
+        assertThat(firstMovie).extracting(Review::getReviewId).containsExactly("a");
+        assertThat(bothMovies).extracting(Review::getReviewId).containsExactly("a", "b");
+
+        first.dispose();
+        both.dispose();
+    }
+
+    @Test
+    void dropsMovieWithItsLastSubscriber() {
+        final Disposable first = reviewStreamDispatcher.subscribe(List.of(1L)).subscribe();
+        final Disposable second = reviewStreamDispatcher.subscribe(List.of(1L, 2L)).subscribe();
+
+        assertThat(keys()).isEqualTo(2);
+
+        first.dispose();
+        assertThat(keys()).isEqualTo(2);
+
+        second.dispose();
+        assertThat(keys()).isZero();
+
+        final List<Review> received = new ArrayList<>();
+        final Disposable resubscribed = reviewStreamDispatcher.subscribe(List.of(1L)).subscribe(received::add);
+        reviewStreamDispatcher.publish(new Review("a", 1L, "Awesome Movie", 9.0));
+
+        assertThat(received).hasSize(1);
+        resubscribed.dispose();
+    }
+
+    private double keys() {
+        return meterRegistry.get("stream.keys").tag("stream", "reviewsByMovie").gauge().value();
+    }
+}
@@ -0,0 +1,70 @@
+package com.reactivespring.handler;
+
+import com.reactivespring.domain.RatingBucket;
+import com.reactivespring.domain.RatingTrendPoint;
+import com.reactivespring.domain.TrendGranularity;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReviewTrendTest {
+    private static final Instant START = Instant.parse("2026-10-19T00:00:00Z");
+
+    @Test
+    void rollsTheWindowOverEveryBucketIncludingEmptyOnes() {
+        final List<RatingTrendPoint> points = ReviewTrend.roll(
+            List.of(bucket(0, 2, 18.0), bucket(1, 1, 6.0), bucket(3, 1, 4.0)),
+            TrendGranularity.HOUR,
+            START,
+            hour(5),
+            Duration.ofHours(3)
+        );
+
+        assertThat(points).extracting(RatingTrendPoint::getStart).containsExactly(hour(2), hour(3), hour(4));
+        assertThat(points).extracting(RatingTrendPoint::getCount).containsExactly(0L, 1L, 0L);
+        assertThat(points).extracting(RatingTrendPoint::getWindowCount).containsExactly(3L, 2L, 1L);
+        assertThat(points).extracting(RatingTrendPoint::getWindowAverage).containsExactly(8.0, 5.0, 4.0);
+        assertThat(points.get(0).getAverage()).isNull();
+    }
+
+    @Test
+    void singleBucketWindowIsTheBucketAverage() {
+        final List<RatingTrendPoint> points = ReviewTrend.roll(
+            List.of(bucket(0, 4, 30.0)),
+            TrendGranularity.HOUR,
+            START,
+            hour(2),
+            Duration.ofHours(1)
+        );
+
+        assertThat(points).extracting(RatingTrendPoint::getAverage).containsExactly(7.5, null);
+        assertThat(points).extracting(RatingTrendPoint::getWindowAverage).containsExactly(7.5, null);
+    }
+
+    @Test
+    void emptiedBucketHasNoAverage() {
+        final List<RatingTrendPoint> points = ReviewTrend.roll(
+            List.of(bucket(0, 0, 0.0)),
+            TrendGranularity.HOUR,
+            START,
+            hour(1),
+            Duration.ofHours(1)
+        );
+
+        assertThat(points).singleElement()
+            .hasFieldOrPropertyWithValue("count", 0L)
+            .hasFieldOrPropertyWithValue("windowAverage", null);
+    }
+
+    private static RatingBucket bucket(int hour, long count, double sum) {
+        return new RatingBucket(RatingBucket.id(1L, TrendGranularity.HOUR, hour(hour)), 1L, TrendGranularity.HOUR, hour(hour), count, sum);
+    }
+
+    private static Instant hour(int hour) {
+        return START.plus(Duration.ofHours(hour));
+    }
+}
@@ -0,0 +1,168 @@
+package com.reactivespring.handler;
+
+import com.reactivespring.domain.Review;
+import com.reactivespring.repository.ReviewReactiveRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReviewWriteCoalescerTest {
+    private final ReviewReactiveRepository reviewReactiveRepository = Mockito.mock(ReviewReactiveRepository.class);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ReviewWriteCoalescer reviewWriteCoalescer;
+
+    @AfterEach
+    void tearDown() {
+        reviewWriteCoalescer.destroy();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void coalescesConcurrentCreatesIntoOneInsert() {
+        when(reviewReactiveRepository.insertUnordered(any())).thenReturn(Mono.just(Map.of()));
+        reviewWriteCoalescer = coalescer(3, Duration.ofSeconds(10));
+
+        StepVerifier.create(Flux.merge(save("a", 1L), save("b", 2L), save("c", 3L)).map(Review::getReviewId).collectList())
+            .assertNext(reviewIds -> assertThat(reviewIds).containsExactlyInAnyOrder("a", "b", "c"))
+            .verifyComplete();
+
+        final ArgumentCaptor<List<Review>> batch = ArgumentCaptor.forClass(List.class);
+        verify(reviewReactiveRepository).insertUnordered(batch.capture());
+        assertThat(batch.getValue()).extracting(Review::getReviewId).containsExactly("a", "b", "c");
+        assertThat(meterRegistry.get("reviews.writeCoalescer.batchSize").summary().max()).isEqualTo(3);
+    }
+
+    @Test
+    void flushesPartialBatchAfterMaxDelay() {
+        when(reviewReactiveRepository.insertUnordered(any())).thenReturn(Mono.just(Map.of()));
+        reviewWriteCoalescer = coalescer(100, Duration.ofMillis(20));
+
+        StepVerifier.create(save("a", 1L))
+            .expectNextMatches(review -> review.getReviewId().equals("a"))
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void failingDocumentDoesNotFailItsBatchMates() {
+        when(reviewReactiveRepository.insertUnordered(any()))
+            .thenReturn(Mono.just(Map.of(1, new DataIntegrityViolationException("Document failed validation"))));
+        reviewWriteCoalescer = coalescer(3, Duration.ofSeconds(10));
+
+        final Mono<Review> first = save("a", 1L).cache();
+        final Mono<Review> invalid = save("b", 2L).cache();
+        final Mono<Review> third = save("c", 3L).cache();
+        Flux.merge(first, invalid.onErrorResume(exception -> Mono.empty()), third).blockLast(Duration.ofSeconds(5));
+
+        StepVerifier.create(first).expectNextMatches(review -> review.getReviewId().equals("a")).verifyComplete();
+        StepVerifier.create(invalid).verifyError(DataIntegrityViolationException.class);
+        StepVerifier.create(third).expectNextMatches(review -> review.getReviewId().equals("c")).verifyComplete();
+    }
+
+    @Test
+    void existingIdReplacesTheStoredReview() {
+        final Review previous = new Review("b", 2L, "Awesome Movie", 9.0);
+        final Review replacement = new Review("b", 2L, "Changed my mind", 4.0);
+        when(reviewReactiveRepository.insertUnordered(any()))
+            .thenReturn(Mono.just(Map.of(1, new DuplicateKeyException("E11000 duplicate key error"))));
+        when(reviewReactiveRepository.replace(replacement)).thenReturn(Mono.just(previous));
+        reviewWriteCoalescer = coalescer(2, Duration.ofSeconds(10));
+
+        final Mono<ReviewWriteCoalescer.Saved> created = reviewWriteCoalescer.save(new Review("a", 1L, "Awesome Movie", 9.0))
+            .cache();
+        final Mono<ReviewWriteCoalescer.Saved> replaced = reviewWriteCoalescer.save(replacement).cache();
+        Flux.merge(created, replaced).blockLast(Duration.ofSeconds(5));
+
+        StepVerifier.create(created)
+            .assertNext(saved -> assertThat(saved.getPrevious()).isNull())
+            .verifyComplete();
+        StepVerifier.create(replaced)
+            .assertNext(saved -> {
+                assertThat(saved.getReview()).isSameAs(replacement);
+                assertThat(saved.getPrevious()).isSameAs(previous);
+            })
+            .verifyComplete();
+    }
+
+    @Test
+    void existingIdDeletedBeforeTheReplaceIsStoredAsNew() {
+        final Review review = new Review("a", 1L, "Awesome Movie", 9.0);
+        when(reviewReactiveRepository.insertUnordered(any()))
+            .thenReturn(Mono.just(Map.of(0, new DuplicateKeyException("E11000 duplicate key error"))));
+        when(reviewReactiveRepository.replace(review)).thenReturn(Mono.empty());
+        reviewWriteCoalescer = coalescer(1, Duration.ofSeconds(10));
+
+        StepVerifier.create(reviewWriteCoalescer.save(review))
+            .assertNext(saved -> assertThat(saved.getPrevious()).isNull())
+            .verifyComplete();
+    }
+
+    @Test
+    void failedInsertFailsEveryCallerAndKeepsCoalescing() {
+        when(reviewReactiveRepository.insertUnordered(any()))
+            .thenReturn(Mono.error(new IllegalStateException("connection closed")))
+            .thenReturn(Mono.just(Map.of()));
+        reviewWriteCoalescer = coalescer(2, Duration.ofSeconds(10));
+
+        StepVerifier.create(Flux.merge(save("a", 1L), save("b", 2L)))
+            .verifyErrorMessage("connection closed");
+
+        StepVerifier.create(Flux.merge(save("c", 3L), save("d", 4L)))
+            .expectNextCount(2)
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+
+        verify(reviewReactiveRepository, times(2)).insertUnordered(any());
+    }
+
+    @Test
+    void disabledCoalescerSavesDirectly() {
+        final Review review = new Review(null, 1L, "Awesome Movie", 9.0);
+        final Review previous = new Review("b", 2L, "Awesome Movie", 9.0);
+        final Review replacement = new Review("b", 2L, "Changed my mind", 4.0);
+        when(reviewReactiveRepository.save(review)).thenReturn(Mono.just(review.withReviewId("a")));
+        when(reviewReactiveRepository.replace(replacement)).thenReturn(Mono.just(previous));
+        reviewWriteCoalescer = new ReviewWriteCoalescer(
+            reviewReactiveRepository, meterRegistry, false, 3, Duration.ofSeconds(10), 1
+        );
+
+        StepVerifier.create(reviewWriteCoalescer.save(review))
+            .expectNext(new ReviewWriteCoalescer.Saved(review.withReviewId("a"), null))
+            .verifyComplete();
+
+        StepVerifier.create(reviewWriteCoalescer.save(replacement))
+            .expectNext(new ReviewWriteCoalescer.Saved(replacement, previous))
+            .verifyComplete();
+
+        verify(reviewReactiveRepository, never()).insertUnordered(any());
+    }
+
+    private ReviewWriteCoalescer coalescer(int maxBatchSize, Duration maxDelay) {
+        return new ReviewWriteCoalescer(reviewReactiveRepository, meterRegistry, true, maxBatchSize, maxDelay, 1);
+    }
+
+    private Mono<Review> save(String reviewId, long movieInfoId) {
+        return reviewWriteCoalescer.save(new Review(reviewId, movieInfoId, "Awesome Movie", 9.0))
+            .map(ReviewWriteCoalescer.Saved::getReview);
+    }
+}
@@ -0,0 +1,185 @@
+package com.reactivespring.handler;
+
+import com.reactivespring.domain.Review;
+import com.reactivespring.domain.ReviewSort;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ReviewsByMovieCacheTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void servesFirstPagesThatFitTheCachedReviews() {
+        final ReviewsByMovieCache cache = cache(1048576, Duration.ofMinutes(1));
+        cache.put(1L, ReviewSort.RECENT, reviews(1L, 5), 5, cache.stamp(1L));
+
+        assertThat(cache.get(1L, ReviewSort.RECENT, 5)).hasSize(5);
+        assertThat(cache.get(1L, ReviewSort.RECENT, 3)).hasSize(5);
+        assertThat(cache.get(1L, ReviewSort.RECENT, 6)).isNull();
+        assertThat(cache.get(1L, ReviewSort.RATING, 3)).isNull();
+        assertThat(cache.get(2L, ReviewSort.RECENT, 3)).isNull();
+        assertThat(meterRegistry.get("reviews.cache.lookups").tag("result", "hit").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void servesAnyLimitWhenEveryReviewIsCached() {
+        final ReviewsByMovieCache cache = cache(1048576, Duration.ofMinutes(1));
+        cache.put(1L, ReviewSort.RATING, reviews(1L, 2), 11, cache.stamp(1L));
+
+        assertThat(cache.get(1L, ReviewSort.RATING, 101)).hasSize(2);
+    }
+
+    @Test
+    void cachedReviewsCannotBeModified() {
+        final ReviewsByMovieCache cache = cache(1048576, Duration.ofMinutes(1));
+        cache.put(1L, ReviewSort.RECENT, reviews(1L, 2), 11, cache.stamp(1L));
+
+        final List<Review> cached = cache.get(1L, ReviewSort.RECENT, 1);
+        assertThatThrownBy(() -> cached.set(0, null)).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    void invalidateDropsEverySortOfTheMovie() {
+        final ReviewsByMovieCache cache = cache(1048576, Duration.ofMinutes(1));
+        cache.put(1L, ReviewSort.RECENT, reviews(1L, 2), 11, cache.stamp(1L));
+        cache.put(1L, ReviewSort.RATING, reviews(1L, 2), 11, cache.stamp(1L));
+        cache.put(2L, ReviewSort.RECENT, reviews(2L, 2), 11, cache.stamp(2L));
+
+        cache.invalidate(1L);
+
+        assertThat(cache.get(1L, ReviewSort.RECENT, 1)).isNull();
+        assertThat(cache.get(1L, ReviewSort.RATING, 1)).isNull();
+        assertThat(cache.get(2L, ReviewSort.RECENT, 1)).hasSize(2);
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    void readStartedBeforeAnInvalidationIsNotCached() {
+        final ReviewsByMovieCache cache = cache(1048576, Duration.ofMinutes(1));
+        final long stamp = cache.stamp(1L);
+
+        cache.invalidate(1L);
+        cache.put(1L, ReviewSort.RECENT, reviews(1L, 2), 11, stamp);
+
+        assertThat(cache.get(1L, ReviewSort.RECENT, 1)).isNull();
+    }
+
+    @Test
+    void expiredReviewsAreNotServed() {
+        final ReviewsByMovieCache cache = cache(1048576, Duration.ZERO);
+        cache.put(1L, ReviewSort.RECENT, reviews(1L, 2), 11, cache.stamp(1L));
+
+        assertThat(cache.get(1L, ReviewSort.RECENT, 1)).isNull();
+    }
+
+    @Test
+    void evictsUnreferencedMoviesToStayWithinMaxBytes() {
+        final ReviewsByMovieCache cache = cache(1000, Duration.ofMinutes(1));
+
+        for (long movieInfoId = 1; movieInfoId <= 5; movieInfoId++) {
+            cache.put(movieInfoId, ReviewSort.RECENT, reviews(movieInfoId, 2), 11, cache.stamp(movieInfoId));
+            assertThat(cache.get(1L, ReviewSort.RECENT, 1)).isNotNull();
+        }
+
+        assertThat(cache.totalBytes()).isLessThanOrEqualTo(1000);
+        assertThat(cache.size()).isLessThan(5);
+        assertThat(cache.get(5L, ReviewSort.RECENT, 1)).isNotNull();
+    }
+
+    @Test
+    void doesNotCacheReviewsLargerThanMaxBytes() {
+        final ReviewsByMovieCache cache = cache(500, Duration.ofMinutes(1));
+        cache.put(1L, ReviewSort.RECENT, reviews(1L, 10), 11, cache.stamp(1L));
+
+        assertThat(cache.get(1L, ReviewSort.RECENT, 1)).isNull();
+        assertThat(cache.totalBytes()).isZero();
+    }
+
+    @Test
+    void keepsEveryMovieAcrossGrowthAndRemovals() {
+        final ReviewsByMovieCache cache = cache(Long.MAX_VALUE, Duration.ofMinutes(1));
+
+        for (long movieInfoId = 0; movieInfoId < 1000; movieInfoId++) {
+            cache.put(movieInfoId, ReviewSort.RECENT, reviews(movieInfoId, 1), 11, cache.stamp(movieInfoId));
+        }
+        for (long movieInfoId = 0; movieInfoId < 1000; movieInfoId += 3) {
+            cache.invalidate(movieInfoId);
+        }
+
+        for (long movieInfoId = 0; movieInfoId < 1000; movieInfoId++) {
+            final List<Review> cached = cache.get(movieInfoId, ReviewSort.RECENT, 1);
+
+            if (movieInfoId % 3 == 0) {
+                assertThat(cached).isNull();
+            } else {
+                assertThat(cached).extracting(Review::getMovieInfoId).containsExactly(movieInfoId);
+            }
+        }
+        assertThat(cache.size()).isEqualTo(666);
+    }
+
+    @Test
+    void concurrentLookupsOnlySeeTheirOwnMovie() throws InterruptedException {
+        final ReviewsByMovieCache cache = cache(64 * 1024, Duration.ofMinutes(1));
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        final AtomicInteger foreign = new AtomicInteger();
+
+        for (int thread = 0; thread < 4; thread++) {
+            final boolean writer = thread == 0;
+            executor.execute(() -> {
+                for (int round = 0; round < 20000; round++) {
+                    final long movieInfoId = round % 500;
+
+                    if (writer) {
+                        if (round % 3 == 0) {
+                            cache.invalidate(movieInfoId);
+                        } else {
+                            cache.put(movieInfoId, ReviewSort.RECENT, reviews(movieInfoId, 2), 11, cache.stamp(movieInfoId));
+                        }
+                    } else {
+                        final List<Review> cached = cache.get(movieInfoId, ReviewSort.RECENT, 1);
+
+                        if (cached != null && cached.stream().anyMatch(review -> review.getMovieInfoId() != movieInfoId)) {
+                            foreign.incrementAndGet();
+                        }
+                    }
+                }
+            });
+        }
+
+        executor.shutdown();
+        assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+        assertThat(foreign.get()).isZero();
+        assertThat(cache.totalBytes()).isLessThanOrEqualTo(64 * 1024);
+    }
+
+    @Test
+    void disabledCacheKeepsNothing() {
+        final ReviewsByMovieCache cache = new ReviewsByMovieCache(meterRegistry, false, 1048576, Duration.ofMinutes(1));
+        cache.put(1L, ReviewSort.RECENT, reviews(1L, 2), 11, cache.stamp(1L));
+
+        assertThat(cache.get(1L, ReviewSort.RECENT, 1)).isNull();
+    }
+
+    private ReviewsByMovieCache cache(long maxBytes, Duration timeToLive) {
+        return new ReviewsByMovieCache(meterRegistry, true, maxBytes, timeToLive);
+    }
+
+    private static List<Review> reviews(long movieInfoId, int count) {
+        return IntStream.range(0, count)
+            .mapToObj(index -> new Review(movieInfoId + "-" + index, movieInfoId, "Awesome Movie", 9.0))
+            .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,156 @@
+package com.reactivespring.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reactivespring.domain.Review;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReviewJournalTest {
+    @TempDir
+    Path directory;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ReviewJournal reviewJournal;
+
+    @AfterEach
+    void tearDown() {
+        reviewJournal.destroy();
+    }
+
+    @Test
+    void readsAppendedReviewsUntilCommitted() {
+        reviewJournal = journal(4096);
+        final Instant createdAt = Instant.parse("2026-10-19T10:15:30.123Z");
+        reviewJournal.append(new Review("a", 1L, "Awesome Movie", 9.0, createdAt)).block();
+        reviewJournal.append(new Review("b", 2L, "Good Movie", 7.5)).block();
+
+        final List<ReviewJournal.Entry> entries = reviewJournal.read(10);
+        assertThat(reviewIds(entries)).containsExactly("a", "b");
+        assertThat(entries.get(0).getReview().getCreatedAt()).isEqualTo(createdAt);
+        assertThat(reviewIds(reviewJournal.read(10))).containsExactly("a", "b");
+        assertThat(meterRegistry.get("reviews.journal.backlogBytes").gauge().value()).isPositive();
+
+        reviewJournal.commit(entries.get(0).getNext());
+        assertThat(reviewIds(reviewJournal.read(10))).containsExactly("b");
+
+        reviewJournal.commit(entries.get(1).getNext());
+        assertThat(reviewJournal.read(10)).isEmpty();
+        assertThat(meterRegistry.get("reviews.journal.backlogBytes").gauge().value()).isZero();
+    }
+
+    @Test
+    void rollsSegmentsAndDeletesDrainedOnes() throws IOException {
+        reviewJournal = journal(256);
+
+        for (int index = 0; index < 10; index++) {
+            reviewJournal.append(new Review("r" + index, 1L, "Awesome Movie", 9.0)).block();
+        }
+        assertThat(segments()).hasSizeGreaterThan(1);
+
+        final List<ReviewJournal.Entry> entries = reviewJournal.read(100);
+        assertThat(entries).hasSize(10);
+
+        reviewJournal.commit(entries.get(entries.size() - 1).getNext());
+        assertThat(segments()).hasSize(1);
+    }
+
+    @Test
+    void replaysUncommittedReviewsAfterRestart() {
+        reviewJournal = journal(256);
+
+        for (int index = 0; index < 6; index++) {
+            reviewJournal.append(new Review("r" + index, 1L, "Awesome Movie", 9.0)).block();
+        }
+        reviewJournal.commit(reviewJournal.read(2).get(1).getNext());
+        reviewJournal.destroy();
+
+        reviewJournal = journal(256);
+        assertThat(reviewIds(reviewJournal.read(100))).containsExactly("r2", "r3", "r4", "r5");
+
+        reviewJournal.append(new Review("r6", 1L, "Awesome Movie", 9.0)).block();
+        assertThat(reviewIds(reviewJournal.read(100))).containsExactly("r2", "r3", "r4", "r5", "r6");
+    }
+
+    @Test
+    void ignoresTornRecordAfterRestart() throws IOException {
+        reviewJournal = journal(4096);
+        reviewJournal.append(new Review("a", 1L, "Awesome Movie", 9.0)).block();
+        final int end = reviewJournal.read(1).get(0).getNext().getOffset();
+        reviewJournal.destroy();
+
+        try (FileChannel channel = FileChannel.open(segments().get(0), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(12).putInt(64).putInt(42).putInt(7).flip(), end);
+        }
+
+        reviewJournal = journal(4096);
+        assertThat(reviewIds(reviewJournal.read(10))).containsExactly("a");
+
+        reviewJournal.append(new Review("b", 2L, "Good Movie", 7.5)).block();
+        assertThat(reviewIds(reviewJournal.read(10))).containsExactly("a", "b");
+    }
+
+    @Test
+    void appendsOnTheWriterThreadAndForcesEachPass() {
+        reviewJournal = journal(256, true);
+
+        final List<String> threads = Flux.range(0, 20)
+            .flatMap(index -> reviewJournal.append(new Review("r" + index, 1L, "Awesome Movie", 9.0))
+                .then(Mono.fromCallable(() -> Thread.currentThread().getName())))
+            .collectList()
+            .block();
+
+        assertThat(threads).hasSize(20).allMatch(thread -> thread.startsWith("journal-writer"));
+        assertThat(reviewJournal.read(100)).hasSize(20);
+    }
+
+    @Test
+    void rejectsReviewsLargerThanASegment() {
+        reviewJournal = journal(64);
+
+        StepVerifier.create(reviewJournal.append(new Review("a", 1L, "A comment too long for a tiny segment", 9.0)))
+            .expectError(IllegalArgumentException.class)
+            .verify();
+        assertThat(reviewJournal.read(10)).isEmpty();
+    }
+
+    private ReviewJournal journal(int segmentBytes) {
+        return journal(segmentBytes, false);
+    }
+
+    private ReviewJournal journal(int segmentBytes, boolean forceOnAppend) {
+        return new ReviewJournal(
+            new ObjectMapper().findAndRegisterModules(), meterRegistry, true, directory.toString(), segmentBytes, forceOnAppend
+        );
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".log"))
+                .sorted()
+                .collect(Collectors.toList());
+        }
+    }
+
+    private static List<String> reviewIds(List<ReviewJournal.Entry> entries) {
+        return entries.stream().map(entry -> entry.getReview().getReviewId()).collect(Collectors.toList());
+    }
+}
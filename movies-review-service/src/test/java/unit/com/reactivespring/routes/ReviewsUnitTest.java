@@ -1,47 +1,109 @@
 package com.reactivespring.routes;
 
+import com.reactivespring.common.config.CompressionWebFilter;
+import com.reactivespring.common.stream.StreamScheduler;
+import com.reactivespring.common.stream.SubscriberBuffer;
+import com.reactivespring.domain.LeaderboardEntry;
+import com.reactivespring.domain.RatingBucket;
+import com.reactivespring.domain.RatingTrendPoint;
 import com.reactivespring.domain.Review;
+import com.reactivespring.domain.ReviewCursor;
+import com.reactivespring.domain.ReviewSort;
+import com.reactivespring.domain.ReviewSummary;
+import com.reactivespring.domain.TrendGranularity;
 import com.reactivespring.exceptionhandler.GlobalErrorHandler;
+import com.reactivespring.handler.ReviewCreatedListener;
+import com.reactivespring.handler.ReviewEventStream;
 import com.reactivespring.handler.ReviewHandler;
+import com.reactivespring.handler.ReviewLeaderboard;
+import com.reactivespring.handler.ReviewStreamDispatcher;
+import com.reactivespring.handler.ReviewTrend;
+import com.reactivespring.handler.ReviewWriteCoalescer;
+import com.reactivespring.handler.ReviewsByMovieCache;
+import com.reactivespring.repository.RatingBucketRepository;
+import com.reactivespring.repository.ReviewJournal;
 import com.reactivespring.repository.ReviewReactiveRepository;
+import com.reactivespring.repository.ReviewSummaryRepository;
 import com.reactivespring.router.ReviewRouter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import org.springframework.web.util.UriComponentsBuilder;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.zip.GZIPInputStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @WebFluxTest
 @AutoConfigureWebTestClient
-@ContextConfiguration(classes = {ReviewRouter.class, ReviewHandler.class, GlobalErrorHandler.class})
+@ContextConfiguration(classes = {
+    ReviewRouter.class, ReviewHandler.class, GlobalErrorHandler.class, CompressionWebFilter.class,
+    SubscriberBuffer.class, StreamScheduler.class, ReviewStreamDispatcher.class, ReviewWriteCoalescer.class,
+    ReviewEventStream.class, ReviewLeaderboard.class, ReviewCreatedListener.class, ReviewJournal.class,
+    ReviewsByMovieCache.class, ReviewTrend.class, SimpleMeterRegistry.class
+})
+@TestPropertySource(properties = {
+    "writeCoalescer.enabled=false",
+    "reviewCache.enabled=false"
+})
 public class ReviewsUnitTest {
     @MockBean
     private ReviewReactiveRepository reviewReactiveRepository;
 
+    @MockBean
+    private ReviewSummaryRepository reviewSummaryRepository;
+
+    @MockBean
+    private RatingBucketRepository ratingBucketRepository;
+
     @Autowired
     private WebTestClient webTestClient;
 
     private static final String REVIEWS_URL = "/v1/reviews";
 
+    @BeforeEach
+    void setUp() {
+        when(reviewSummaryRepository.applyRatingChange(anyLong(), any(), any())).thenReturn(Mono.empty());
+        when(ratingBucketRepository.applyRatingChange(anyLong(), any(), any(), any())).thenReturn(Mono.empty());
+    }
+
     @Test
     void create() {
         final var review = new Review("abc", 3L, "Awesome Movie", 9.0);
 
-        when(reviewReactiveRepository.save(isA(Review.class))).thenReturn(Mono.just(review));
+        when(reviewReactiveRepository.replace(isA(Review.class))).thenReturn(Mono.empty());
 
         webTestClient
             .post()
@@ -57,6 +119,8 @@ public class ReviewsUnitTest {
                     .hasFieldOrPropertyWithValue("movieInfoId", 3L)
                     .matches(it -> Objects.nonNull(it.getReviewId()));
             });
+
+        verify(reviewSummaryRepository).applyRatingChange(3L, null, 9.0);
     }
 
     @Test
@@ -83,7 +147,7 @@ public class ReviewsUnitTest {
             new Review(null, 2L, "Excellent Movie", 8.0)
         );
 
-        when(reviewReactiveRepository.findAll()).thenReturn(Flux.fromIterable(reviews));
+        when(reviewReactiveRepository.findPage(null, ReviewSort.RECENT, null, 101)).thenReturn(Flux.fromIterable(reviews));
 
         webTestClient
             .get()
@@ -94,6 +158,69 @@ public class ReviewsUnitTest {
             .hasSize(3);
     }
 
+    @Test
+    void getAllReviewsGzip() throws IOException {
+        final List<Review> reviews = Flux.range(1, 50)
+            .map(i -> new Review("id" + i, 1L, "Awesome Movie " + i, 9.0))
+            .collectList()
+            .block();
+
+        when(reviewReactiveRepository.findPage(null, ReviewSort.RECENT, null, 101))
+            .thenReturn(Flux.fromIterable(Objects.requireNonNull(reviews)));
+
+        final byte[] body = webTestClient
+            .get()
+            .uri(REVIEWS_URL)
+            .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().valueEquals(HttpHeaders.CONTENT_ENCODING, "gzip")
+            .expectBody().returnResult()
+            .getResponseBody();
+
+        try (GZIPInputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(Objects.requireNonNull(body)))) {
+            assertThat(new String(inputStream.readAllBytes(), StandardCharsets.UTF_8))
+                .contains("\"comment\":\"Awesome Movie 1\"", "\"comment\":\"Awesome Movie 50\"");
+        }
+    }
+
+    @Test
+    void exportReviews() {
+        final List<Review> reviews = List.of(
+            new Review("abc", 1L, "Awesome Movie", 9.0),
+            new Review("def", 1L, "Awesome Movie1", 9.0),
+            new Review("ghi", 2L, "Excellent Movie", 8.0)
+        );
+
+        when(reviewReactiveRepository.findAllForExport(eq(2), eq(false))).thenReturn(Flux.fromIterable(reviews));
+
+        final String body = webTestClient
+            .get()
+            .uri(REVIEWS_URL + "/export?batchSize=2")
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().contentType(MediaType.APPLICATION_NDJSON)
+            .expectBody(String.class)
+            .returnResult()
+            .getResponseBody();
+
+        assertThat(body).isNotNull();
+        assertThat(body.split("\n"))
+            .hasSize(3)
+            .allMatch(line -> line.startsWith("{\"reviewId\":"));
+    }
+
+    @Test
+    void exportReviewsInvalidBatchSize() {
+        webTestClient
+            .get()
+            .uri(REVIEWS_URL + "/export?batchSize=0")
+            .exchange()
+            .expectStatus().isBadRequest();
+
+        verify(reviewReactiveRepository, never()).findAllForExport(anyInt(), anyBoolean());
+    }
+
     @Test
     void update() {
         final var reviewId = "abc";
@@ -117,6 +244,8 @@ public class ReviewsUnitTest {
                     .hasFieldOrPropertyWithValue("comment", "Cool Movie")
                     .hasFieldOrPropertyWithValue("rating", 9.3);
             });
+
+        verify(reviewSummaryRepository).applyRatingChange(1L, 9.0, 9.3);
     }
 
     @Test
@@ -132,6 +261,55 @@ public class ReviewsUnitTest {
             .uri(REVIEWS_URL + "/{id}", reviewId)
             .exchange()
             .expectStatus().isNoContent();
+
+        verify(reviewSummaryRepository).applyRatingChange(1L, 9.0, null);
+    }
+
+    @Test
+    void summary() {
+        final var summary = new ReviewSummary(1L, 3, 26.0, 8.0, 9.0, Map.of("8", 1L, "9", 2L));
+
+        when(reviewSummaryRepository.findById(1L)).thenReturn(Mono.just(summary));
+
+        webTestClient
+            .get()
+            .uri(REVIEWS_URL + "/summary?movieInfoId=1")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.count").isEqualTo(3)
+            .jsonPath("$.min").isEqualTo(8.0)
+            .jsonPath("$.max").isEqualTo(9.0)
+            .jsonPath("$.average").isEqualTo(26.0 / 3)
+            .jsonPath("$.histogram.9").isEqualTo(2);
+
+        verify(reviewReactiveRepository, never()).findByMovieInfoId(anyLong());
+    }
+
+    @Test
+    void summaryWithoutReviews() {
+        when(reviewSummaryRepository.findById(2L)).thenReturn(Mono.empty());
+
+        webTestClient
+            .get()
+            .uri(REVIEWS_URL + "/summary?movieInfoId=2")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.movieInfoId").isEqualTo(2)
+            .jsonPath("$.count").isEqualTo(0)
+            .jsonPath("$.average").doesNotExist();
+    }
+
+    @Test
+    void summaryRequiresMovieInfoId() {
+        webTestClient
+            .get()
+            .uri(REVIEWS_URL + "/summary")
+            .exchange()
+            .expectStatus().isBadRequest()
+            .expectBody(String.class)
+            .isEqualTo("movieInfoId : must not be null");
     }
 
     @Test
@@ -146,7 +324,7 @@ public class ReviewsUnitTest {
             .buildAndExpand()
             .toUri();
 
-        when(reviewReactiveRepository.findByMovieInfoId(isA(Long.class))).thenReturn(Flux.fromIterable(reviews));
+        when(reviewReactiveRepository.findPage(1L, ReviewSort.RECENT, null, 101)).thenReturn(Flux.fromIterable(reviews));
 
         webTestClient
             .get()
@@ -156,4 +334,274 @@ public class ReviewsUnitTest {
             .expectBodyList(Review.class)
             .hasSize(2);
     }
+
+    @Test
+    void getReviewsPage() {
+        final List<Review> reviews = List.of(
+            new Review("c", 1L, "Awesome Movie", 9.0),
+            new Review("b", 1L, "Good Movie", 8.0),
+            new Review("a", 1L, "Fine Movie", 7.0)
+        );
+
+        when(reviewReactiveRepository.findPage(1L, ReviewSort.RATING, null, 3)).thenReturn(Flux.fromIterable(reviews));
+
+        final String cursor = webTestClient
+            .get()
+            .uri(REVIEWS_URL + "?movieInfoId=1&sort=rating&limit=2")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBodyList(Review.class)
+            .hasSize(2)
+            .returnResult()
+            .getResponseHeaders()
+            .getFirst(ReviewHandler.NEXT_CURSOR_HEADER);
+
+        assertThat(ReviewCursor.decode(cursor)).isEqualTo(new ReviewCursor(ReviewSort.RATING, 8.0, "b"));
+
+        when(reviewReactiveRepository.findPage(1L, ReviewSort.RATING, ReviewCursor.decode(cursor), 3))
+            .thenReturn(Flux.just(reviews.get(2)));
+
+        webTestClient
+            .get()
+            .uri(REVIEWS_URL + "?movieInfoId=1&sort=rating&limit=2&cursor=" + cursor)
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().doesNotExist(ReviewHandler.NEXT_CURSOR_HEADER)
+            .expectBodyList(Review.class)
+            .hasSize(1);
+    }
+
+    @Test
+    void getReviewsPageValidation() {
+        webTestClient.get()
+            .uri(REVIEWS_URL + "?limit=1001")
+            .exchange()
+            .expectStatus().isBadRequest()
+            .expectBody(String.class)
+            .isEqualTo("limit : must be between 1 and 1000");
+
+        webTestClient.get()
+            .uri(REVIEWS_URL + "?limit=abc")
+            .exchange()
+            .expectStatus().isBadRequest()
+            .expectBody(String.class)
+            .isEqualTo("limit : must be an integer");
+
+        webTestClient.get()
+            .uri(REVIEWS_URL + "?movieInfoId=abc")
+            .exchange()
+            .expectStatus().isBadRequest()
+            .expectBody(String.class)
+            .isEqualTo("movieInfoId : must be an integer");
+
+        webTestClient.get()
+            .uri(REVIEWS_URL + "?sort=title")
+            .exchange()
+            .expectStatus().isBadRequest()
+            .expectBody(String.class)
+            .isEqualTo("sort : must be one of recent, rating");
+
+        webTestClient.get()
+            .uri(REVIEWS_URL + "?cursor=not-a-cursor")
+            .exchange()
+            .expectStatus().isBadRequest()
+            .expectBody(String.class)
+            .isEqualTo("cursor : is not valid");
+
+        webTestClient.get()
+            .uri(REVIEWS_URL + "?sort=recent&cursor=" + new ReviewCursor(ReviewSort.RATING, 8.0, "b").encode())
+            .exchange()
+            .expectStatus().isBadRequest()
+            .expectBody(String.class)
+            .isEqualTo("cursor : was issued for sort rating");
+
+        verify(reviewReactiveRepository, never()).findPage(any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void getReviewsStreamTooManyMovieInfoIds() {
+        final String movieInfoIds = LongStream.rangeClosed(1, 101)
+            .mapToObj(Long::toString)
+            .collect(Collectors.joining(","));
+
+        webTestClient
+            .get()
+            .uri(REVIEWS_URL + "/stream?movieInfoId=" + movieInfoIds)
+            .exchange()
+            .expectStatus().isBadRequest()
+            .expectBody(String.class)
+            .isEqualTo("movieInfoId : at most 100 ids per stream");
+    }
+
+    @Test
+    void leaderboardFollowsCreates() {
+        when(reviewReactiveRepository.replace(isA(Review.class))).thenReturn(Mono.empty());
+
+        webTestClient.post().uri(REVIEWS_URL).bodyValue(new Review("abc", 4242L, "Awesome Movie", 9.0)).exchange()
+            .expectStatus().isCreated();
+        webTestClient.post().uri(REVIEWS_URL).bodyValue(new Review("def", 4242L, "Awesome Movie", 8.0)).exchange()
+            .expectStatus().isCreated();
+
+        webTestClient
+            .get()
+            .uri(REVIEWS_URL + "/leaderboard?by=reviews&limit=1")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBodyList(LeaderboardEntry.class)
+            .value(entries -> assertThat(entries)
+                .singleElement()
+                .hasFieldOrPropertyWithValue("movieInfoId", 4242L)
+                .hasFieldOrPropertyWithValue("reviewCount", 2L));
+    }
+
+    @Test
+    void createWithExistingIdReplacesTheReview() {
+        final AtomicReference<Review> stored = new AtomicReference<>();
+        when(reviewReactiveRepository.replace(isA(Review.class)))
+            .thenAnswer(invocation -> Mono.justOrEmpty(stored.getAndSet(invocation.getArgument(0))));
+
+        webTestClient.post().uri(REVIEWS_URL).bodyValue(new Review("abc", 4343L, "Awesome Movie", 9.0)).exchange()
+            .expectStatus().isCreated();
+        webTestClient.post().uri(REVIEWS_URL).bodyValue(new Review("abc", 4343L, "Changed my mind", 4.0)).exchange()
+            .expectStatus().isCreated();
+
+        verify(reviewSummaryRepository).applyRatingChange(4343L, null, 9.0);
+        verify(reviewSummaryRepository).applyRatingChange(4343L, 9.0, 4.0);
+        verify(reviewSummaryRepository, never()).applyRatingChange(4343L, null, 4.0);
+        verify(ratingBucketRepository).applyRatingChange(eq(4343L), isA(Instant.class), eq(9.0), isNull());
+        verify(ratingBucketRepository).applyRatingChange(eq(4343L), isA(Instant.class), isNull(), eq(4.0));
+
+        webTestClient
+            .get()
+            .uri(REVIEWS_URL + "/leaderboard?by=reviews&limit=100")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBodyList(LeaderboardEntry.class)
+            .value(entries -> assertThat(entries)
+                .filteredOn(entry -> entry.getMovieInfoId() == 4343L)
+                .singleElement()
+                .hasFieldOrPropertyWithValue("reviewCount", 1L));
+    }
+
+    @Test
+    void leaderboardValidation() {
+        webTestClient
+            .get()
+            .uri(REVIEWS_URL + "/leaderboard?by=newest")
+            .exchange()
+            .expectStatus().isBadRequest()
+            .expectBody(String.class)
+            .isEqualTo("by : must be one of rating, reviews");
+
+        webTestClient
+            .get()
+            .uri(REVIEWS_URL + "/leaderboard?limit=101")
+            .exchange()
+            .expectStatus().isBadRequest()
+            .expectBody(String.class)
+            .isEqualTo("limit : must be between 1 and 100");
+
+        webTestClient
+            .get()
+            .uri(REVIEWS_URL + "/leaderboard?limit=abc")
+            .exchange()
+            .expectStatus().isBadRequest()
+            .expectBody(String.class)
+            .isEqualTo("limit : must be an integer");
+    }
+
+    @Test
+    void createRecordsCreationTime() {
+        final var review = new Review(null, 5L, "Awesome Movie", 9.0, Instant.EPOCH);
+        when(reviewReactiveRepository.save(isA(Review.class)))
+            .thenAnswer(invocation -> Mono.just(invocation.<Review>getArgument(0).withReviewId("abc")));
+
+        webTestClient
+            .post()
+            .uri(REVIEWS_URL)
+            .bodyValue(review)
+            .exchange()
+            .expectStatus().isCreated()
+            .expectBody(Review.class)
+            .value(savedReview -> assertThat(savedReview.getCreatedAt()).isAfter(Instant.EPOCH));
+
+        verify(ratingBucketRepository).applyRatingChange(eq(5L), isA(Instant.class), isNull(), eq(9.0));
+    }
+
+    @Test
+    void trend() {
+        final Instant day = Instant.parse("2026-10-10T00:00:00Z");
+        when(ratingBucketRepository.findBuckets(1L, TrendGranularity.DAY, day.minusSeconds(86400), day.plusSeconds(2 * 86400)))
+            .thenReturn(Flux.just(
+                new RatingBucket("1:DAY:a", 1L, TrendGranularity.DAY, day.minusSeconds(86400), 2, 16.0),
+                new RatingBucket("1:DAY:b", 1L, TrendGranularity.DAY, day.plusSeconds(86400), 1, 5.0)
+            ));
+
+        webTestClient
+            .get()
+            .uri(REVIEWS_URL + "/trend?movieInfoId=1&granularity=day&window=P2D&from=2026-10-10T06:00:00Z&to=2026-10-12T00:00:00Z")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBodyList(RatingTrendPoint.class)
+            .value(points -> {
+                assertThat(points).extracting(RatingTrendPoint::getStart)
+                    .containsExactly(day, day.plusSeconds(86400));
+                assertThat(points).extracting(RatingTrendPoint::getWindowCount).containsExactly(2L, 1L);
+                assertThat(points).extracting(RatingTrendPoint::getWindowAverage).containsExactly(8.0, 5.0);
+                assertThat(points).extracting(RatingTrendPoint::getAverage).containsExactly(null, 5.0);
+            });
+    }
+
+    @Test
+    void trendValidation() {
+        webTestClient
+            .get()
+            .uri(REVIEWS_URL + "/trend")
+            .exchange()
+            .expectStatus().isBadRequest()
+            .expectBody(String.class)
+            .isEqualTo("movieInfoId : must not be null");
+
+        webTestClient
+            .get()
+            .uri(REVIEWS_URL + "/trend?movieInfoId=1&granularity=week")
+            .exchange()
+            .expectStatus().isBadRequest()
+            .expectBody(String.class)
+            .isEqualTo("granularity : must be one of hour, day");
+
+        webTestClient
+            .get()
+            .uri(REVIEWS_URL + "/trend?movieInfoId=1&granularity=day&window=PT36H")
+            .exchange()
+            .expectStatus().isBadRequest()
+            .expectBody(String.class)
+            .isEqualTo("window : must be a positive multiple of one day");
+
+        webTestClient
+            .get()
+            .uri(REVIEWS_URL + "/trend?movieInfoId=1&from=2026-10-12T00:00:00Z&to=2026-10-10T00:00:00Z")
+            .exchange()
+            .expectStatus().isBadRequest()
+            .expectBody(String.class)
+            .isEqualTo("from : must be before to");
+
+        webTestClient
+            .get()
+            .uri(REVIEWS_URL + "/trend?movieInfoId=1&granularity=hour&from=2020-01-01T00:00:00Z&to=2026-01-01T00:00:00Z")
+            .exchange()
+            .expectStatus().isBadRequest()
+            .expectBody(String.class)
+            .isEqualTo("window : at most 2000 buckets per trend, window included");
+
+        webTestClient
+            .get()
+            .uri(REVIEWS_URL + "/trend?movieInfoId=1&to=yesterday")
+            .exchange()
+            .expectStatus().isBadRequest()
+            .expectBody(String.class)
+            .isEqualTo("to : must be an ISO-8601 instant");
+
+        verify(ratingBucketRepository, never()).findBuckets(anyLong(), any(), any(), any());
+    }
 }
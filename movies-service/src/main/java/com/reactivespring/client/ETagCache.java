@@ -0,0 +1,46 @@
+package com.reactivespring.client;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+public class ETagCache<T> {
+    private final Map<String, Entry<T>> entries;
+
+    public ETagCache(int maxEntries) {
+        entries = Collections.synchronizedMap(new LinkedHashMap<String, ETagCache.Entry<T>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ETagCache.Entry<T>> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    public Optional<Entry<T>> get(String key) {
+        return Optional.ofNullable(entries.get(key));
+    }
+
+    public void put(String key, String eTag, T body) {
+        if (eTag == null || body == null) {
+            entries.remove(key);
+            return;
+        }
+
+        entries.put(key, new Entry<>(eTag, body));
+    }
+
+    public void remove(String key) {
+        entries.remove(key);
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class Entry<T> {
+        private String eTag;
+        private T body;
+    }
+}
@@ -8,6 +8,7 @@ import com.reactivespring.util.RetryUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.Exceptions;
@@ -17,53 +18,77 @@ import reactor.util.retry.Retry;
 import reactor.util.retry.RetryBackoffSpec;
 
 import java.time.Duration;
+import java.util.Optional;
 
 @Slf4j
 @Component
 public class MoviesInfoRestClient {
     private final WebClient webClient;
 
+    private final ETagCache<MovieInfo> movieInfoCache;
+
     @Value("${restClient.moviesInfoUrl}")
     private String moviesInfoUrl;
 
-    public MoviesInfoRestClient(WebClient webClient) {
+    public MoviesInfoRestClient(WebClient webClient,
+                                @Value("${restClient.moviesInfoCacheSize:1000}") int movieInfoCacheSize) {
         this.webClient = webClient;
+        this.movieInfoCache = new ETagCache<>(movieInfoCacheSize);
     }
 
     public Mono<MovieInfo> retrieveMovieInfo(String movieId) {
         final String url = moviesInfoUrl.concat("/{id}");
 
-        return webClient.get()
-            .uri(url, movieId)
-            .retrieve()
-            .onStatus(HttpStatus::is4xxClientError, clientResponse -> {
-                log.info("Status code is : {}", clientResponse.statusCode().value());
+        return Mono.defer(() -> {
+            final Optional<ETagCache.Entry<MovieInfo>> cached = movieInfoCache.get(movieId);
 
-                if (clientResponse.statusCode() == HttpStatus.NOT_FOUND) {
-                    return Mono.error(new MoviesInfoClientException(
-                        String.format("Movie info with id %s not found", movieId),
-                        clientResponse.statusCode().value()
-                    ));
-                }
+            return webClient.get()
+                .uri(url, movieId)
+                .headers(headers -> cached.ifPresent(entry -> headers.setIfNoneMatch(entry.getETag())))
+                .retrieve()
+                .onStatus(HttpStatus::is4xxClientError, clientResponse -> {
+                    log.info("Status code is : {}", clientResponse.statusCode().value());
 
-                return clientResponse.bodyToMono(String.class)
-                    .flatMap(responseMessage -> Mono.error(new MoviesInfoClientException(
-                        responseMessage, clientResponse.statusCode().value()
-                    )));
-            })
-            .onStatus(HttpStatus::is5xxServerError, clientResponse -> {
-                log.info("Status code is : {}", clientResponse.statusCode().value());
+                    if (clientResponse.statusCode() == HttpStatus.NOT_FOUND) {
+                        movieInfoCache.remove(movieId);
+                        return Mono.error(new MoviesInfoClientException(
+                            String.format("Movie info with id %s not found", movieId),
+                            clientResponse.statusCode().value()
+                        ));
+                    }
 
-                return clientResponse.bodyToMono(String.class)
-                    .flatMap(responseMessage -> Mono.error(new MoviesInfoServerException(
-                        "Server Exception in MoviesInfoService " + responseMessage
-                    )));
-            })
-            .bodyToMono(MovieInfo.class)
+                    return clientResponse.bodyToMono(String.class)
+                        .flatMap(responseMessage -> Mono.error(new MoviesInfoClientException(
+                            responseMessage, clientResponse.statusCode().value()
+                        )));
+                })
+                .onStatus(HttpStatus::is5xxServerError, clientResponse -> {
+                    log.info("Status code is : {}", clientResponse.statusCode().value());
+
+                    return clientResponse.bodyToMono(String.class)
+                        .flatMap(responseMessage -> Mono.error(new MoviesInfoServerException(
+                            "Server Exception in MoviesInfoService " + responseMessage
+                        )));
+                })
+                .toEntity(MovieInfo.class)
+                .flatMap(responseEntity -> Mono.justOrEmpty(cachedOrFresh(movieId, cached, responseEntity)));
+        })
             .retryWhen(RetryUtil.retrySpec())
             .log();
     }
 
+    private MovieInfo cachedOrFresh(String movieId,
+                                    Optional<ETagCache.Entry<MovieInfo>> cached,
+                                    ResponseEntity<MovieInfo> responseEntity) {
+        if (responseEntity.getStatusCode() == HttpStatus.NOT_MODIFIED && cached.isPresent()) {
+            log.info("Movie info {} not modified, using cached body", movieId);
+            return cached.get().getBody();
+        }
+
+        movieInfoCache.put(movieId, responseEntity.getHeaders().getETag(), responseEntity.getBody());
+        return responseEntity.getBody();
+    }
+
     public Flux<MovieInfo> retrieveMovieInfoStream() {
         final String url = moviesInfoUrl.concat("/stream");
 
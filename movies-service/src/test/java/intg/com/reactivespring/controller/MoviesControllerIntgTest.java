@@ -18,6 +18,7 @@ import org.springframework.util.MimeType;
 import java.util.Objects;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
 import static com.github.tomakehurst.wiremock.client.WireMock.get;
 import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
@@ -75,6 +76,51 @@ public class MoviesControllerIntgTest {
             });
     }
 
+    @Test
+    void retrieveMovieById_MovieInfo_NotModified() {
+        final var movieId = "def";
+
+        stubFor(
+            get(urlEqualTo("/api/v1/movies-info/" + movieId))
+                .willReturn(
+                    aResponse().withHeader(HttpHeaders.CONTENT_TYPE, MediaTypes.APPLICATION_JSON)
+                        .withHeader(HttpHeaders.ETAG, "\"def-0\"")
+                        .withBodyFile("movieinfo.json")
+                )
+        );
+
+        stubFor(
+            get(urlEqualTo("/api/v1/movies-info/" + movieId))
+                .withHeader(HttpHeaders.IF_NONE_MATCH, equalTo("\"def-0\""))
+                .willReturn(aResponse().withStatus(304).withHeader(HttpHeaders.ETAG, "\"def-0\""))
+        );
+
+        stubFor(
+            get(urlPathEqualTo("/v1/reviews"))
+                .willReturn(
+                    aResponse().withHeader(HttpHeaders.CONTENT_TYPE, MediaTypes.APPLICATION_JSON)
+                        .withBodyFile("reviews.json")
+                )
+        );
+
+        for (int i = 0; i < 2; i++) {
+            webTestClient.get()
+                .uri("/v1/movies/{id}", movieId)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Movie.class)
+                .consumeWith(movieEntityExchangeResult -> {
+                    final Movie movie = movieEntityExchangeResult.getResponseBody();
+
+                    assertThat(Objects.requireNonNull(movie).getMovieInfo().getName())
+                        .isEqualTo("Batman Begins");
+                });
+        }
+
+        verify(1, getRequestedFor(urlEqualTo("/api/v1/movies-info/" + movieId))
+            .withHeader(HttpHeaders.IF_NONE_MATCH, equalTo("\"def-0\"")));
+    }
+
     @Test
     void retrieveMovieById_MovieInfo_404() {
         final var movieId = "abc";